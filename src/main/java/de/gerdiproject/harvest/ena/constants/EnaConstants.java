@@ -19,6 +19,7 @@ import java.lang.reflect.Type;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import com.google.gson.reflect.TypeToken;
 
@@ -80,16 +81,10 @@ public class EnaConstants
     public static final String TAX_ID = "taxId";
     public static final String TAX_COMMON_NAME = "commonName";
 
-    public static final String LETTER_PREFIX_REGEX = "^[a-zA-Z]+";
-    public static final String NUMBER_REGEX = "[0-9]";
-    public static final String ACCESSION_FORMAT_BASE = "%s%%0%dd";
-    public static final String URL_ERROR = "Could not retrieve entries from: %s";
-
     public static final String DOI_REF_SELECTION = "reference[type=article] > xref[db=DOI]";
     public static final String PUBMED_REF_SELECTION = "reference[type=article] > xref[db=PUBMED]";
     public static final String SUBMISSION_REF_SELECTION = "reference[type=submission]";
 
-    public static final String USER_AGENT = "Mozilla/5.0";
     public static final String TITLE_FASTQ_FILE = "TITLE";
     public static final String RUN_ATTRIBUTE = "RUN_ATTRIBUTE";
     public static final String ENA_LAST_UPDATE = "RUN_ATTRIBUTE > TAG:contains(ENA-LAST-UPDATE) + VALUE";
@@ -107,12 +102,12 @@ public class EnaConstants
      */
     public static final List<String> ACCESSION_NUMBER_FORMATS = Collections.unmodifiableList(Arrays.asList(
                                                                     // Asssembled/Annotated sequences
-                                                                    "[A-Z]{1}\\d{5}(?\\.\\d+)?",
-                                                                    "[A-Z]{2}\\d{6}(?\\.\\d+)?",
-                                                                    "[A-Z]{4}S?\\d{8,9}(?\\.\\d+)?",
+                                                                    "[A-Z]{1}\\d{5}(\\.\\d+)?",
+                                                                    "[A-Z]{2}\\d{6}(\\.\\d+)?",
+                                                                    "[A-Z]{4}S?\\d{8,9}(\\.\\d+)?",
 
                                                                     // Protein coding sequences
-                                                                    "[A-Z]{3}\\d{5}(?\\.\\d+",
+                                                                    "[A-Z]{3}\\d{5}(\\.\\d+)?",
 
                                                                     // Traces
                                                                     "TI\\d+",
@@ -122,7 +117,7 @@ public class EnaConstants
                                                                     "PRJ(E|D|N)\\d+",
                                                                     // Samples
                                                                     "ERS\\d{6,}",
-                                                                    "SAM(E|D|N)[A-Z]?\\\\d+",
+                                                                    "SAM(E|D|N)[A-Z]?\\d+",
 
                                                                     // Experiments
                                                                     "(E|D|S)RX\\d{6,}",
@@ -134,12 +129,97 @@ public class EnaConstants
                                                                     "(E|D|S)RZ\\d{6,}",
 
                                                                     // Genome collections
-                                                                    "GCA_\\d{9}(?\\.\\d+)?"
+                                                                    "GCA_\\d{9}(\\.\\d+)?"
                                                                 ));
 
+    /**
+     * A precompiled pattern that matches all {@linkplain #ACCESSION_NUMBER_FORMATS}.
+     */
+    public static final Pattern ACCESSION_NUMBER_PATTERN =
+        Pattern.compile("(?:" + String.join(")|(?:", ACCESSION_NUMBER_FORMATS) + ")");
+
     public static final String INVALID_ACCESSION_ERROR = "Invalid accession number '%s'! Check valid values at "
                                                          + "https://www.ebi.ac.uk/ena/submit/accession-number-formats";
 
+    // ACCESSION RANGES
+    // the version suffix of an accession (e.g. .1 of BC000001.1) is matched, but not captured
+    public static final Pattern ACCESSION_RANGE_PATTERN =
+        Pattern.compile("([A-Z]+_?)(\\d*)(?:(?<=\\d)\\.\\d+)?(?:-([A-Z]+_?)(\\d+)(?:\\.\\d+)?)?");
+    public static final String ACCESSION_RANGE_SEPARATOR = "-";
+    public static final String ACCESSION_RANGE_LIST_SEPARATOR = "[,;\\s]+";
+    public static final String ACCESSION_RANGE_FILE_PREFIX = "@";
+    public static final String ACCESSION_RANGE_FILE_COMMENT = "#";
+    public static final int MAX_ACCESSION_NUMBER_LENGTH = 9;
+    // number of digits that follow letter prefixes of length 1 to 4
+    public static final List<Integer> DEFAULT_ACCESSION_NUMBER_LENGTHS = Collections.unmodifiableList(Arrays.asList(0, 5, 6, 5, 8));
+    public static final String INVALID_ACCESSION_RANGE_ERROR = "Invalid accession range '%s'! Expected a prefix (e.g. BC), "
+                                                               + "an accession (e.g. BC000001), or a range (e.g. BC000001-BC050000)";
+    public static final String ACCESSION_RANGE_FILE_ERROR = "Could not read accession ranges from file: %s";
+
+    // HTTP REQUESTS
+    public static final String URL_ERROR = "Could not retrieve entries from: %s";
+    public static final String HTTP_STATUS_ERROR = "Received HTTP status %d from: %s";
+    public static final String USER_AGENT = "Mozilla/5.0";
+    public static final String USER_AGENT_HEADER = "User-Agent";
+    public static final int HTTP_TIMEOUT = 60000;
+
+    // HTTP CACHE
+    public static final String HTTP_CACHE_FOLDER = "httpCache";
+    public static final String HTTP_CACHE_BODY_SUFFIX = ".gz";
+    public static final String HTTP_CACHE_HEADER_SUFFIX = ".headers";
+    public static final String HTTP_CACHE_KEY_ALGORITHM = "SHA-256";
+    public static final int HTTP_CACHE_BUFFER_SIZE = 8192;
+    public static final long BYTES_PER_MEGABYTE = 1024L * 1024L;
+    public static final String ETAG_HEADER = "ETag";
+    public static final String LAST_MODIFIED_HEADER = "Last-Modified";
+    public static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+    public static final String IF_MODIFIED_SINCE_HEADER = "If-Modified-Since";
+    public static final String HTTP_CACHE_STATISTICS = "%s: HTTP cache hits: %d, misses: %d";
+
+    // BATCHES AND PARTITIONS
+    public static final long BATCH_TARGET_LATENCY = 20000;
+    public static final long BATCH_MAX_PAYLOAD_BYTES = 50 * 1024 * 1024;
+    public static final String BATCH_SIZE_CHANGED = "%s: Changed batch size from %d to %d";
+    public static final String PARTITION_NAME = "%s (%s)";
+    public static final String PARTITION_STARTED = "%s: Started harvesting partition %s";
+    public static final String PARTITION_PROGRESS = "%s: Partition %s is %d%% complete";
+    public static final int PARTITION_PROGRESS_STEP = 10;
+    public static final String GAP_PROBE_FAILED = "Could not probe accession range %s, continuing without skipping: %s";
+
+    // UPPER BOUNDS AND FINGERPRINTS
+    public static final String UPPER_BOUND_PROBED = "%s: Limited range %s to the highest populated accession %s";
+    public static final String UPPER_BOUND_PROBE_FAILED = "%s: Could not probe the upper bound of range %s: %s";
+    public static final String SEQUENCE_RESULT = "sequence";
+    public static final String ACCESSION_PREFIX_QUERY = "accession=\"%s*\"";
+    public static final String VERSION_STRING_SEPARATOR = ";";
+
+    // CHECKPOINTS
+    public static final String CHECKPOINT_FILE = "accessionCheckpoint.properties";
+    public static final String TEMP_FILE_SUFFIX = ".tmp";
+    public static final String CHECKPOINT_RESUMED = "%s: Resuming range %s at %s";
+    public static final String CHECKPOINT_ERROR = "%s: Could not access the harvest checkpoint: %s";
+
+    // VERSION INDEX
+    public static final String VERSION_INDEX_FILE = "accessionVersions.bin.gz";
+    public static final Pattern INDEXED_ACCESSION_PATTERN = Pattern.compile("([A-Za-z_]+)(\\d+)");
+    public static final String VERSION_INDEX_LOADED = "%s: Loaded the versions of %d accessions";
+    public static final String VERSION_INDEX_ERROR = "%s: Could not access the accession version index: %s";
+
+    // DISK QUEUE
+    public static final String QUEUE_SEGMENT_FILE = "segment%d.bin";
+    public static final String QUEUE_POINTER_FILE = "pointers.bin";
+    public static final long QUEUE_SEGMENT_SIZE = 16L * 1024L * 1024L;
+    public static final int QUEUE_BUFFER_SIZE = 65536;
+
+    // DICTIONARIES
+    public static final int DICTIONARY_SIZE = 10000;
+    // the dictionaries are static, so their statistics cover all ETLs of a kind since the service started
+    public static final String DICTIONARY_STATISTICS =
+        "Shared dictionary of %s: Reused %d of %d values since the service started, %d distinct values are cached";
+    public static final String ACCESSION_SUBJECTS_NAME = "subjects of all accession ETLs";
+    public static final String FASTQ_SUBJECTS_NAME = "subjects of all FASTQ ETLs";
+    public static final String FASTQ_FIELD_VALUES_NAME = "field values of all FASTQ ETLs";
+
     /**
     * Create a list of research disciplines.
     *
@@ -47,37 +47,103 @@ public class EnaFastqConstants
         + "submitted_format,sra_bytes,sra_md5,sra_ftp,sra_aspera,sra_galaxy,cram_index_ftp,cram_index_aspera,"
         + "cram_index_galaxy,sample_alias,broker_name,sample_title,nominal_sdev,first_created";
 
+    // the JSON fields and TSV columns of the runs that are requested from the ENA Portal API
+    public static final String STUDY_ACCESSION_FIELD = "study_accession";
+    public static final String SECONDARY_STUDY_ACCESSION_FIELD = "secondary_study_accession";
+    public static final String SAMPLE_ACCESSION_FIELD = "sample_accession";
+    public static final String SECONDARY_SAMPLE_ACCESSION_FIELD = "secondary_sample_accession";
+    public static final String EXPERIMENT_ACCESSION_FIELD = "experiment_accession";
+    public static final String RUN_ACCESSION_FIELD = "run_accession";
+    public static final String SUBMISSION_ACCESSION_FIELD = "submission_accession";
+    public static final String TAX_ID_FIELD = "tax_id";
+    public static final String SCIENTIFIC_NAME_FIELD = "scientific_name";
+    public static final String INSTRUMENT_PLATFORM_FIELD = "instrument_platform";
+    public static final String LIBRARY_STRATEGY_FIELD = "library_strategy";
+    public static final String LIBRARY_SOURCE_FIELD = "library_source";
+    public static final String FIRST_PUBLIC_FIELD = "first_public";
+    public static final String LAST_UPDATED_FIELD = "last_updated";
+    public static final String EXPERIMENT_TITLE_FIELD = "experiment_title";
+    public static final String STUDY_TITLE_FIELD = "study_title";
+    public static final String EXPERIMENT_ALIAS_FIELD = "experiment_alias";
+    public static final String RUN_ALIAS_FIELD = "run_alias";
+    public static final String FASTQ_FTP_FIELD = "fastq_ftp";
+    public static final String SUBMITTED_FTP_FIELD = "submitted_ftp";
+    public static final String SRA_FTP_FIELD = "sra_ftp";
+    public static final String CRAM_INDEX_FTP_FIELD = "cram_index_ftp";
+    public static final String SAMPLE_ALIAS_FIELD = "sample_alias";
+    public static final String SAMPLE_TITLE_FIELD = "sample_title";
+    public static final String FIRST_CREATED_FIELD = "first_created";
+
     private static final String SELECTED_FIELDS =
-        "fastq_ftp,"
-        + "submitted_ftp,"
-        + "submitted_format,"
-        + "sra_ftp,"
-        + "cram_index_ftp,"
-        + "sample_alias,"
-        + "sample_title,"
-        + "first_created,"
-        + "first_public,"
-        + "last_updated,"
-        + "experiment_title,"
-        + "study_title,"
-        + "library_strategy,"
-        + "library_source,"
-        + "experiment_alias,"
-        + "run_alias,"
-        + "instrument_platform,"
-        + "scientific_name,"
-        + "study_accession,"
-        + "secondary_study_accession,"
-        + "sample_accession,"
-        + "secondary_sample_accession,"
-        + "experiment_accession,"
-        + "submission_accession,"
-        + "run_accession,"
-        + "tax_id";
-
-    public static final String FASTQ_JSON_URL = "https://www.ebi.ac.uk/ena/portal/api/filereport?result=read_run&accession=%s%06d&offset=0&limit=1&format=json&fields=" + SELECTED_FIELDS;
+        FASTQ_FTP_FIELD
+        + "," + SUBMITTED_FTP_FIELD
+        + "," + SRA_FTP_FIELD
+        + "," + CRAM_INDEX_FTP_FIELD
+        + "," + SAMPLE_ALIAS_FIELD
+        + "," + SAMPLE_TITLE_FIELD
+        + "," + FIRST_CREATED_FIELD
+        + "," + FIRST_PUBLIC_FIELD
+        + "," + LAST_UPDATED_FIELD
+        + "," + EXPERIMENT_TITLE_FIELD
+        + "," + STUDY_TITLE_FIELD
+        + "," + LIBRARY_STRATEGY_FIELD
+        + "," + LIBRARY_SOURCE_FIELD
+        + "," + EXPERIMENT_ALIAS_FIELD
+        + "," + RUN_ALIAS_FIELD
+        + "," + INSTRUMENT_PLATFORM_FIELD
+        + "," + SCIENTIFIC_NAME_FIELD
+        + "," + STUDY_ACCESSION_FIELD
+        + "," + SECONDARY_STUDY_ACCESSION_FIELD
+        + "," + SAMPLE_ACCESSION_FIELD
+        + "," + SECONDARY_SAMPLE_ACCESSION_FIELD
+        + "," + EXPERIMENT_ACCESSION_FIELD
+        + "," + SUBMISSION_ACCESSION_FIELD
+        + "," + RUN_ACCESSION_FIELD
+        + "," + TAX_ID_FIELD;
+
+    public static final String FASTQ_JSON_URL_PREFIX = "https://www.ebi.ac.uk/ena/portal/api/filereport?result=read_run&accession=";
+    public static final String FASTQ_JSON_URL_SUFFIX = "&offset=0&limit=1&format=json&fields=" + SELECTED_FIELDS;
+    public static final String FASTQ_JSON_URL = FASTQ_JSON_URL_PREFIX + "%s%06d" + FASTQ_JSON_URL_SUFFIX;
+    public static final int FASTQ_ID_WIDTH = 6;
+    public static final String FASTQ_PAGE_URL = "https://www.ebi.ac.uk/ena/portal/api/search?result=read_run&query=%s&offset=%d&limit=%d"
+                                                + "&sortFields=run_accession&format=tsv&fields=" + SELECTED_FIELDS;
+    public static final String FASTQ_RANGE_QUERY = "run_accession>=\"%1$s%2$06d\" AND run_accession<=\"%1$s%3$06d\"";
+    public static final String FASTQ_PAGE_ERROR = "Could not retrieve FASTQ runs %s%06d to %s%06d: %s";
+    public static final String UPDATED_RUNS_QUERY = "run_accession=\"%s*\" AND last_updated>=%s";
+    public static final String UPDATED_RUNS_ERROR = "Could not retrieve FASTQ runs of %s that were updated since %s: %s";
+    public static final int UPDATED_RUNS_PAGE_SIZE = 1000;
     public static final String FASTQ_SOURCE_URL = "https://www.ebi.ac.uk/ena/portal/api/filereport?result=read_run&accession=%s&offset=0&limit=1&format=json&fields=" + ALL_FIELDS;
 
+    public static final String READ_RUN_RESULT = "read_run";
+    public static final String RUN_PREFIX_QUERY = "run_accession=\"%s*\"";
+    public static final String NEWEST_RUNS_URL = "https://www.ebi.ac.uk/ena/portal/api/search?result=read_run&query=%s&fields=run_accession"
+                                                 + "&sortFields=first_created&sortDirection=desc&limit=%d&format=tsv";
+    public static final int NEWEST_RUNS_LIMIT = 1000;
+    public static final int MIN_ID_WIDTH_LIMIT = 1000000;
+    public static final String UPPER_BOUND_PROBED = "%s: Enumerating run IDs up to the highest run %s%06d";
+    public static final String UPPER_BOUND_PROBE_FAILED = "%s: Could not probe the highest run ID, enumerating up to %s%06d: %s";
+    public static final String NO_RUNS_FOUND = "No runs found";
+
+    public static final String ABSENT_IDS_FILE = "absentRunIds%s.bin.gz";
+    public static final long MILLISECONDS_PER_HOUR = 60L * 60L * 1000L;
+    public static final int ABSENT_IDS_SAVE_INTERVAL = 10000;
+    public static final String ABSENT_IDS_LOADED = "%s: Skipping %d run IDs that are known to be absent";
+    public static final String ABSENT_IDS_ERROR = "%s: Could not access the absent run IDs: %s";
+    public static final String RUN_REQUEST_FAILED = "%s: Could not retrieve run %s, which is requested again by the next harvest: %s";
+
+    public static final String HIGH_WATER_MARK_FILE = "lastHarvestDate%s.txt";
+    public static final String HIGH_WATER_MARK_LOADED = "%s: Harvesting runs that were updated since %s";
+    public static final String HIGH_WATER_MARK_MISSING = "%s: No previous harvest found, harvesting all runs";
+    public static final String HIGH_WATER_MARK_ERROR = "%s: Could not access the date of the last harvest: %s";
+    public static final String HIGH_WATER_MARK_KEPT = "%s: Keeping the date of the last harvest, because %d runs could not be retrieved";
+
+    public static final int MAX_SHARD_WORKERS = 16;
+    public static final int SHARD_QUEUE_CAPACITY = 1000;
+    public static final int SHARD_PROGRESS_STEP = 10;
+    public static final String SHARD_NAME = "%1$s%2$06d-%1$s%3$06d";
+    public static final String SHARD_STARTED = "%s: Started harvesting shard %s";
+    public static final String SHARD_PROGRESS = "%s: Shard %s is %d%% complete";
+
     public static final String ETL_NAME = "Ena%C%sFastqETL";
     public static final Type JSON_TYPE = new TypeToken<List<EnaFastqVO>>() {} .getType();
 
@@ -29,8 +29,40 @@ public class EnaParameterConstants
     // KEYS
     public static final String FROM_KEY = "accFrom";
     public static final String BATCH_SIZE_KEY = "batchSize";
+    public static final String PREFETCH_DEPTH_KEY = "prefetchDepth";
+    public static final String STREAM_ENTRIES_KEY = "streamEntries";
+    public static final String GAP_SKIP_THRESHOLD_KEY = "gapSkipThreshold";
+    public static final String ACC_RANGES_KEY = "accRanges";
+    public static final String PARALLEL_PARTITIONS_KEY = "parallelPartitions";
+    public static final String COLD_START_KEY = "coldStart";
+    public static final String SKIP_UNCHANGED_KEY = "skipUnchanged";
+    public static final String PROBE_UPPER_BOUND_KEY = "probeUpperBound";
+    public static final String HTTP_CACHE_SIZE_KEY = "httpCacheSize";
+    public static final String PAGE_SIZE_KEY = "pageSize";
+    public static final String ABSENT_ID_TTL_KEY = "absentIdTtl";
+    public static final String SHARD_COUNT_KEY = "shardCount";
+    public static final String INCREMENTAL_HARVEST_KEY = "incrementalHarvest";
+    public static final String RESUME_CRAWL_KEY = "resumeCrawl";
+    public static final String CRAWL_WORKERS_KEY = "crawlWorkers";
+    public static final String TAXONOMY_DUMP_KEY = "taxonomyDump";
 
     // DEFAULT VALUES
     public static final String FROM_DEFAULT_VALUE = "BC000001";
     public static final int BATCH_SIZE_DEFAULT_VALUE = 50;
+    public static final int PREFETCH_DEPTH_DEFAULT_VALUE = 0;
+    public static final boolean STREAM_ENTRIES_DEFAULT_VALUE = false;
+    public static final int GAP_SKIP_THRESHOLD_DEFAULT_VALUE = 0;
+    public static final String ACC_RANGES_DEFAULT_VALUE = "";
+    public static final int PARALLEL_PARTITIONS_DEFAULT_VALUE = 1;
+    public static final boolean COLD_START_DEFAULT_VALUE = false;
+    public static final boolean SKIP_UNCHANGED_DEFAULT_VALUE = false;
+    public static final boolean PROBE_UPPER_BOUND_DEFAULT_VALUE = false;
+    public static final int HTTP_CACHE_SIZE_DEFAULT_VALUE = 0;
+    public static final int PAGE_SIZE_DEFAULT_VALUE = 0;
+    public static final int ABSENT_ID_TTL_DEFAULT_VALUE = 0;
+    public static final int SHARD_COUNT_DEFAULT_VALUE = 1;
+    public static final boolean INCREMENTAL_HARVEST_DEFAULT_VALUE = false;
+    public static final boolean RESUME_CRAWL_DEFAULT_VALUE = false;
+    public static final int CRAWL_WORKERS_DEFAULT_VALUE = 1;
+    public static final String TAXONOMY_DUMP_DEFAULT_VALUE = "";
 }
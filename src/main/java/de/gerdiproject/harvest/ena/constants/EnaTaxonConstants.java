@@ -41,10 +41,23 @@ public class EnaTaxonConstants
 
     // Extraction
     public static final String QUEUE_FOLDER = "taxonQueue";
+    public static final String TAXON_RESULT = "taxon";
+    public static final String TAXON_TREE_QUERY = "tax_tree(1)";
     public static final String SET_ELEMENT = "TAXON_SET";
     public static final String CHILDREN_ELEMENT = "children";
     public static final String TAXON_ID_ATTRIBUTE = "taxId";
     public static final String TAXON_ROOT_ID = "1";
+    public static final String VISITED_FILE = "visitedTaxa.bin.gz";
+    public static final int VISITED_SAVE_INTERVAL = 100;
+    public static final String CRAWL_RESUMED = "%s: Resuming the taxonomy crawl with %d queued and %d visited taxa";
+    public static final int MAX_CRAWL_WORKERS = 16;
+    public static final int CRAWL_QUEUE_CAPACITY = 1000;
+    public static final long CRAWL_SHUTDOWN_TIMEOUT = 60;
+    public static final String CRAWL_SHUTDOWN_TIMEOUT_ERROR = "%s: The crawl workers did not stop within %d seconds, so the state of the taxonomy crawl is not saved";
+    public static final String CRAWL_STATE_ERROR = "%s: Could not access the state of the taxonomy crawl: %s";
+    public static final String DUMP_GZIP_SUFFIX = ".gz";
+    public static final String DUMP_READ = "%s: Reading taxa from the taxonomy dump: %s";
+    public static final String DUMP_ERROR = "Could not read the taxonomy dump: %s";
 
 
     // Transformation
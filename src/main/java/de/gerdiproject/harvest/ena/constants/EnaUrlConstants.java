@@ -30,8 +30,14 @@ public class EnaUrlConstants
 {
     // URLs
     //private static final String PROVIDER_URL = "https://www.ebi.ac.uk/ena";
-    public static final String RANGE_ACCESSION_URL = "https://www.ebi.ac.uk/ena/data/view/%s-%s&display=xml&header=true";
+    public static final String RANGE_ACCESSION_URL_PREFIX = "https://www.ebi.ac.uk/ena/data/view/";
+    public static final String RANGE_ACCESSION_URL_SUFFIX = "&display=xml&header=true";
+    public static final int RANGE_ACCESSION_URL_CAPACITY = 96;
     public static final String SINGLE_ACCESSION_URL = "https://www.ebi.ac.uk/ena/data/view/%s&display=xml&header=true";
+    public static final String PORTAL_COUNT_URL = "https://www.ebi.ac.uk/ena/portal/api/count?result=%s&query=%s";
+    public static final String PORTAL_NEWEST_URL =
+        "https://www.ebi.ac.uk/ena/portal/api/search?result=%s&query=%s&fields=last_updated"
+        + "&sortFields=last_updated&sortDirection=desc&limit=1&format=tsv";
 
     public static final String VIEW_URL = "https://www.ebi.ac.uk/ena/browser/view/%s";
     public static final String VIEW_URL_TEXT = "https://www.ebi.ac.uk/ena/data/view/%s&display=text";
@@ -15,12 +15,15 @@
  */
 package de.gerdiproject.harvest.etls;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.function.Function;
 
 import org.jsoup.nodes.Element;
 
 import de.gerdiproject.harvest.config.Configuration;
 import de.gerdiproject.harvest.config.events.ParameterChangedEvent;
+import de.gerdiproject.harvest.config.parameters.BooleanParameter;
 import de.gerdiproject.harvest.config.parameters.IntegerParameter;
 import de.gerdiproject.harvest.config.parameters.StringParameter;
 import de.gerdiproject.harvest.config.parameters.constants.ParameterMappingFunctions;
@@ -28,11 +31,14 @@ import de.gerdiproject.harvest.ena.constants.EnaConstants;
 import de.gerdiproject.harvest.ena.constants.EnaParameterConstants;
 import de.gerdiproject.harvest.etls.extractors.EnaAccessionExtractor;
 import de.gerdiproject.harvest.etls.transformers.EnaAccessionTransformer;
+import de.gerdiproject.harvest.utils.AccessionCodec;
+import de.gerdiproject.harvest.utils.AccessionRange;
 import de.gerdiproject.json.datacite.DataCiteJson;
 
 /**
  * An ETL for harvesting ENA accessions. The parameter 'accfrom' sets the startIndex of the harvested
- * accessions (see {@linkplain EnaParameterConstants}).<br>
+ * accessions (see {@linkplain EnaParameterConstants}). Alternatively, the parameter 'accRanges'
+ * defines a list of prefixes and accession ranges, which can be harvested in parallel.<br>
  *
  * E.g. https://www.ebi.ac.uk/ena/data/view/BC000001&display=xml&header=true
  *
@@ -41,7 +47,16 @@ import de.gerdiproject.json.datacite.DataCiteJson;
 public class EnaAccessionETL extends StaticIteratorETL<Element, DataCiteJson>
 {
     private IntegerParameter batchSize;
+    private IntegerParameter prefetchDepth;
+    private BooleanParameter streamEntries;
+    private IntegerParameter gapSkipThreshold;
     private StringParameter accFromParam;
+    private StringParameter accRangesParam;
+    private IntegerParameter parallelPartitions;
+    private BooleanParameter coldStart;
+    private BooleanParameter skipUnchanged;
+    private BooleanParameter probeUpperBound;
+    private IntegerParameter httpCacheSize;
 
 
     /**
@@ -65,6 +80,27 @@ public class EnaAccessionETL extends StaticIteratorETL<Element, DataCiteJson>
                                  EnaParameterConstants.BATCH_SIZE_DEFAULT_VALUE,
                                  ParameterMappingFunctions.createMapperForETL(ParameterMappingFunctions::mapToUnsignedInteger, this)));
 
+        this.prefetchDepth = Configuration.registerParameter(
+                                 new IntegerParameter(
+                                     EnaParameterConstants.PREFETCH_DEPTH_KEY,
+                                     getName(),
+                                     EnaParameterConstants.PREFETCH_DEPTH_DEFAULT_VALUE,
+                                     ParameterMappingFunctions.createMapperForETL(ParameterMappingFunctions::mapToUnsignedInteger, this)));
+
+        this.streamEntries = Configuration.registerParameter(
+                                 new BooleanParameter(
+                                     EnaParameterConstants.STREAM_ENTRIES_KEY,
+                                     getName(),
+                                     EnaParameterConstants.STREAM_ENTRIES_DEFAULT_VALUE,
+                                     ParameterMappingFunctions.createMapperForETL(ParameterMappingFunctions::mapToBoolean, this)));
+
+        this.gapSkipThreshold = Configuration.registerParameter(
+                                    new IntegerParameter(
+                                        EnaParameterConstants.GAP_SKIP_THRESHOLD_KEY,
+                                        getName(),
+                                        EnaParameterConstants.GAP_SKIP_THRESHOLD_DEFAULT_VALUE,
+                                        ParameterMappingFunctions.createMapperForETL(ParameterMappingFunctions::mapToUnsignedInteger, this)));
+
         final Function<String, String> accessionNumberChecker =
             ParameterMappingFunctions.createMapperForETL(EnaAccessionETL::mapStringToAccessionNumber, this);
 
@@ -74,6 +110,51 @@ public class EnaAccessionETL extends StaticIteratorETL<Element, DataCiteJson>
                                     getName(),
                                     EnaParameterConstants.FROM_DEFAULT_VALUE,
                                     accessionNumberChecker));
+
+        final Function<String, String> accessionRangesChecker =
+            ParameterMappingFunctions.createMapperForETL(EnaAccessionETL::mapStringToAccessionRanges, this);
+
+        this.accRangesParam = Configuration.registerParameter(
+                                  new StringParameter(
+                                      EnaParameterConstants.ACC_RANGES_KEY,
+                                      getName(),
+                                      EnaParameterConstants.ACC_RANGES_DEFAULT_VALUE,
+                                      accessionRangesChecker));
+
+        this.parallelPartitions = Configuration.registerParameter(
+                                      new IntegerParameter(
+                                          EnaParameterConstants.PARALLEL_PARTITIONS_KEY,
+                                          getName(),
+                                          EnaParameterConstants.PARALLEL_PARTITIONS_DEFAULT_VALUE,
+                                          ParameterMappingFunctions.createMapperForETL(ParameterMappingFunctions::mapToUnsignedInteger, this)));
+
+        this.coldStart = Configuration.registerParameter(
+                             new BooleanParameter(
+                                 EnaParameterConstants.COLD_START_KEY,
+                                 getName(),
+                                 EnaParameterConstants.COLD_START_DEFAULT_VALUE,
+                                 ParameterMappingFunctions.createMapperForETL(ParameterMappingFunctions::mapToBoolean, this)));
+
+        this.skipUnchanged = Configuration.registerParameter(
+                                 new BooleanParameter(
+                                     EnaParameterConstants.SKIP_UNCHANGED_KEY,
+                                     getName(),
+                                     EnaParameterConstants.SKIP_UNCHANGED_DEFAULT_VALUE,
+                                     ParameterMappingFunctions.createMapperForETL(ParameterMappingFunctions::mapToBoolean, this)));
+
+        this.probeUpperBound = Configuration.registerParameter(
+                                   new BooleanParameter(
+                                       EnaParameterConstants.PROBE_UPPER_BOUND_KEY,
+                                       getName(),
+                                       EnaParameterConstants.PROBE_UPPER_BOUND_DEFAULT_VALUE,
+                                       ParameterMappingFunctions.createMapperForETL(ParameterMappingFunctions::mapToBoolean, this)));
+
+        this.httpCacheSize = Configuration.registerParameter(
+                                 new IntegerParameter(
+                                     EnaParameterConstants.HTTP_CACHE_SIZE_KEY,
+                                     getName(),
+                                     EnaParameterConstants.HTTP_CACHE_SIZE_DEFAULT_VALUE,
+                                     ParameterMappingFunctions.createMapperForETL(ParameterMappingFunctions::mapToUnsignedInteger, this)));
     }
 
 
@@ -87,14 +168,110 @@ public class EnaAccessionETL extends StaticIteratorETL<Element, DataCiteJson>
      */
     private static String mapStringToAccessionNumber(final String accessionNumber) throws RuntimeException
     {
-        for (final String regex : EnaConstants.ACCESSION_NUMBER_FORMATS)
-            if (accessionNumber.matches(regex))
-                return accessionNumber;
+        if (AccessionCodec.isValidAccession(accessionNumber))
+            return accessionNumber;
 
         throw new IllegalArgumentException(String.format(EnaConstants.INVALID_ACCESSION_ERROR, accessionNumber));
     }
 
 
+    /**
+     * Helper function that validates a list of accession ranges.
+     *
+     * @param accessionRanges the value that is to be checked
+     *
+     * @throws RuntimeException if the value contains invalid accession ranges
+     * @return a valid list of accession ranges
+     */
+    private static String mapStringToAccessionRanges(final String accessionRanges) throws RuntimeException
+    {
+        if (!accessionRanges.isEmpty())
+            AccessionRange.parseList(accessionRanges);
+
+        return accessionRanges;
+    }
+
+
+    /**
+     * Returns the ranges of accession numbers that are to be harvested.
+     * If no ranges are specified, a single range is harvested, which starts
+     * at the accession number specified by 'accfrom'.
+     *
+     * @throws IllegalArgumentException if the ranges cannot be parsed
+     *
+     * @return the ranges of accession numbers that are to be harvested
+     */
+    public List<AccessionRange> getAccessionRanges()
+    {
+        final String accessionRanges = accRangesParam.getValue();
+
+        if (accessionRanges == null || accessionRanges.isEmpty())
+            return Arrays.asList(AccessionRange.parse(getStartingAccessionNumber()));
+        else
+            return AccessionRange.parseList(accessionRanges);
+    }
+
+
+    /**
+     * Returns the maximum number of accession ranges that are harvested at the same time.
+     *
+     * @return the maximum number of accession ranges that are harvested at the same time
+     */
+    public int getParallelPartitions()
+    {
+        return parallelPartitions.getValue();
+    }
+
+
+    /**
+     * Returns true if the checkpoint of a previous, interrupted harvest is to be
+     * discarded, causing all ranges to be harvested from the beginning.
+     *
+     * @return true if interrupted harvests are not to be resumed
+     */
+    public boolean isColdStart()
+    {
+        return coldStart.getValue();
+    }
+
+
+    /**
+     * Returns true if entries are to be dropped before they are transformed,
+     * if their version and last update date did not change since the previous harvest.
+     *
+     * @return true if only new and changed entries are to be transformed
+     */
+    public boolean isSkippingUnchanged()
+    {
+        return skipUnchanged.getValue();
+    }
+
+
+    /**
+     * Returns true if the highest populated accession number of each range is to be
+     * probed when the extractor is initialized. The probed number limits both
+     * the number of harvestable documents and the harvested range.
+     *
+     * @return true if the upper bounds of the accession ranges are to be probed
+     */
+    public boolean isProbingUpperBound()
+    {
+        return probeUpperBound.getValue();
+    }
+
+
+    /**
+     * Returns the number of megabytes that cached HTTP responses may occupy on disk.
+     * If the value is 0, no responses are cached.
+     *
+     * @return the maximum size of the HTTP response cache in megabytes
+     */
+    public int getHttpCacheSize()
+    {
+        return httpCacheSize.getValue();
+    }
+
+
     /**
      * Returns the first accession number of the range that is to be harvested.
      *
@@ -109,6 +286,8 @@ public class EnaAccessionETL extends StaticIteratorETL<Element, DataCiteJson>
     /**
      * Returns the number of accession responses that may be processed at the same time.
      * Increasing the value will increase the harvesting speed, but could cause Out-of-Memory-Exceptions.
+     * The batch size is reduced during the harvest if responses become too slow or fail,
+     * but it never exceeds this value.
      *
      * @return the number of accession responses that may be processed at the same time
      */
@@ -118,6 +297,46 @@ public class EnaAccessionETL extends StaticIteratorETL<Element, DataCiteJson>
     }
 
 
+    /**
+     * Returns the number of accession range requests that may be sent ahead of time
+     * while the previously retrieved entries are being processed.
+     * If the value is 0, each range is requested only after the previous one was processed.
+     *
+     * @return the number of range requests that may be in flight at the same time
+     */
+    public int getPrefetchDepth()
+    {
+        return prefetchDepth.getValue();
+    }
+
+
+    /**
+     * Returns true if the entries of each accession range are to be parsed one by one
+     * while the response is being downloaded, instead of parsing the whole response at once.
+     * This keeps the memory consumption independent of the batch size.
+     *
+     * @return true if the accession range responses are to be parsed as streams
+     */
+    public boolean isStreamingEntries()
+    {
+        return streamEntries.getValue();
+    }
+
+
+    /**
+     * Returns the number of consecutive empty batches after which the following
+     * accession numbers are probed with exponentially growing ranges, in order to
+     * skip large ranges without any entries. If the value is 0, which is the default,
+     * no ranges are skipped.
+     *
+     * @return the number of consecutive empty batches that trigger a probe
+     */
+    public int getGapSkipThreshold()
+    {
+        return gapSkipThreshold.getValue();
+    }
+
+
     /**
      * Adds a specified number to the number of harvested documents.
      * In this case, the number refers to null-entries.
@@ -142,9 +361,12 @@ public class EnaAccessionETL extends StaticIteratorETL<Element, DataCiteJson>
 
         final String paramKey = event.getParameter().getCompositeKey();
 
-        // if the accession number changed, re-init the extractor to recalculate the max
+        // if the accession number, ranges, or probing changed, re-init the extractor to recalculate the max
         // number of harvestable documents
-        if (this.extractor != null && paramKey.equals(accFromParam.getCompositeKey()))
+        if (this.extractor != null
+            && (paramKey.equals(accFromParam.getCompositeKey())
+                || paramKey.equals(accRangesParam.getCompositeKey())
+                || paramKey.equals(probeUpperBound.getCompositeKey())))
             this.extractor.init(this);
     }
 }
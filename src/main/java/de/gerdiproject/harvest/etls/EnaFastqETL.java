@@ -15,7 +15,13 @@
  */
 package de.gerdiproject.harvest.etls;
 
+import de.gerdiproject.harvest.config.Configuration;
+import de.gerdiproject.harvest.config.events.ParameterChangedEvent;
+import de.gerdiproject.harvest.config.parameters.BooleanParameter;
+import de.gerdiproject.harvest.config.parameters.IntegerParameter;
+import de.gerdiproject.harvest.config.parameters.constants.ParameterMappingFunctions;
 import de.gerdiproject.harvest.ena.constants.EnaFastqConstants;
+import de.gerdiproject.harvest.ena.constants.EnaParameterConstants;
 import de.gerdiproject.harvest.etls.extractors.EnaFastqExtractor;
 import de.gerdiproject.harvest.etls.extractors.vos.EnaFastqVO;
 import de.gerdiproject.harvest.etls.transformers.EnaFastqTransformer;
@@ -28,11 +34,28 @@ import de.gerdiproject.json.datacite.DataCiteJson;
  *           https://www.ebi.ac.uk/ena/data/view/DRR000001&display=xml
  *           https://www.ebi.ac.uk/ena/data/view/SRR000001&display=xml<br>
  *
+ * The parameter 'httpCacheSize' enables caching of the FASTQ responses, and the
+ * parameter 'pageSize' enables retrieving many runs with a single request.
+ * The parameter 'absentIdTtl' enables skipping run IDs that were absent during
+ * previous harvests, for the specified number of hours. The parameter 'shardCount'
+ * splits the run IDs into shards that are harvested in parallel, and the parameter
+ * 'probeUpperBound' enumerates run IDs up to the highest existing run.
+ * The parameter 'incrementalHarvest' limits harvests to runs that were updated
+ * since the previous complete harvest, while disabling it re-harvests all runs.<br>
+ *
  * @author Komal Ahir, Jan Frömberg
  */
 
 public class EnaFastqETL extends StaticIteratorETL<EnaFastqVO, DataCiteJson>
 {
+    private IntegerParameter httpCacheSize;
+    private IntegerParameter pageSize;
+    private IntegerParameter absentIdTtl;
+    private IntegerParameter shardCount;
+    private BooleanParameter probeUpperBound;
+    private BooleanParameter incrementalHarvest;
+
+
     /**
      * Constructor
      * @param accessionPrefix FASTQ accession prefix
@@ -43,6 +66,163 @@ public class EnaFastqETL extends StaticIteratorETL<EnaFastqVO, DataCiteJson>
               new EnaFastqExtractor(accessionPrefix),
               new EnaFastqTransformer());
     }
-}
 
 
+    @Override
+    protected void registerParameters()
+    {
+        super.registerParameters();
+
+        this.httpCacheSize = Configuration.registerParameter(
+                                 new IntegerParameter(
+                                     EnaParameterConstants.HTTP_CACHE_SIZE_KEY,
+                                     getName(),
+                                     EnaParameterConstants.HTTP_CACHE_SIZE_DEFAULT_VALUE,
+                                     ParameterMappingFunctions.createMapperForETL(ParameterMappingFunctions::mapToUnsignedInteger, this)));
+
+        this.pageSize = Configuration.registerParameter(
+                            new IntegerParameter(
+                                EnaParameterConstants.PAGE_SIZE_KEY,
+                                getName(),
+                                EnaParameterConstants.PAGE_SIZE_DEFAULT_VALUE,
+                                ParameterMappingFunctions.createMapperForETL(ParameterMappingFunctions::mapToUnsignedInteger, this)));
+
+        this.absentIdTtl = Configuration.registerParameter(
+                               new IntegerParameter(
+                                   EnaParameterConstants.ABSENT_ID_TTL_KEY,
+                                   getName(),
+                                   EnaParameterConstants.ABSENT_ID_TTL_DEFAULT_VALUE,
+                                   ParameterMappingFunctions.createMapperForETL(ParameterMappingFunctions::mapToUnsignedInteger, this)));
+
+        this.shardCount = Configuration.registerParameter(
+                              new IntegerParameter(
+                                  EnaParameterConstants.SHARD_COUNT_KEY,
+                                  getName(),
+                                  EnaParameterConstants.SHARD_COUNT_DEFAULT_VALUE,
+                                  ParameterMappingFunctions.createMapperForETL(ParameterMappingFunctions::mapToUnsignedInteger, this)));
+
+        this.probeUpperBound = Configuration.registerParameter(
+                                   new BooleanParameter(
+                                       EnaParameterConstants.PROBE_UPPER_BOUND_KEY,
+                                       getName(),
+                                       EnaParameterConstants.PROBE_UPPER_BOUND_DEFAULT_VALUE,
+                                       ParameterMappingFunctions.createMapperForETL(ParameterMappingFunctions::mapToBoolean, this)));
+
+        this.incrementalHarvest = Configuration.registerParameter(
+                                      new BooleanParameter(
+                                          EnaParameterConstants.INCREMENTAL_HARVEST_KEY,
+                                          getName(),
+                                          EnaParameterConstants.INCREMENTAL_HARVEST_DEFAULT_VALUE,
+                                          ParameterMappingFunctions.createMapperForETL(ParameterMappingFunctions::mapToBoolean, this)));
+    }
+
+
+    /**
+     * Returns the number of megabytes that cached HTTP responses may occupy on disk.
+     * If the value is 0, no responses are cached.
+     *
+     * @return the maximum size of the HTTP response cache in megabytes
+     */
+    public int getHttpCacheSize()
+    {
+        return httpCacheSize.getValue();
+    }
+
+
+    /**
+     * Returns the number of run IDs of which the runs are retrieved with a single
+     * search request. If the value is 0, each run is retrieved with a separate request.
+     *
+     * @return the number of run IDs that are covered by a single request
+     */
+    public int getPageSize()
+    {
+        return pageSize.getValue();
+    }
+
+
+    /**
+     * Returns the number of hours during which run IDs that were absent in a
+     * previous harvest are skipped. If the value is 0, all run IDs are requested.
+     *
+     * @return the number of hours after which absent run IDs are requested again
+     */
+    public int getAbsentIdTtl()
+    {
+        return absentIdTtl.getValue();
+    }
+
+
+    /**
+     * Returns the number of shards into which the run IDs are split.
+     * The shards are harvested in parallel, by at most sixteen worker threads.
+     * If the value is 0 or 1, all run IDs are harvested sequentially.
+     *
+     * @return the number of shards into which the run IDs are split
+     */
+    public int getShardCount()
+    {
+        return shardCount.getValue();
+    }
+
+
+    /**
+     * Returns true if the highest existing run ID is to be probed when the
+     * extractor is initialized. Otherwise, all six-digit run IDs are harvested.
+     *
+     * @return true if the highest run ID is to be probed
+     */
+    public boolean isProbingUpperBound()
+    {
+        return probeUpperBound.getValue();
+    }
+
+
+    /**
+     * Returns true if only runs that were updated since the previous complete
+     * harvest are to be harvested. If there was no previous complete harvest,
+     * or if the value is false, all runs are harvested.
+     *
+     * @return true if runs are to be harvested incrementally
+     */
+    public boolean isHarvestingIncrementally()
+    {
+        return incrementalHarvest.getValue();
+    }
+
+
+    /**
+     * Adds a specified number to the number of harvested documents.
+     * In this case, the number refers to run IDs without runs.
+     *
+     * @param addedDocumentCount the number that is added to the
+     * number of harvested documents
+     */
+    public void increaseHarvestedDocuments(final int addedDocumentCount)
+    {
+        harvestedCount.addAndGet(addedDocumentCount);
+    }
+
+    //////////////////////////////
+    // Event Callback Functions //
+    //////////////////////////////
+
+    @Override
+    protected void onParameterChanged(final ParameterChangedEvent event)
+    {
+        super.onParameterChanged(event);
+
+        final String paramKey = event.getParameter().getCompositeKey();
+
+        // all parameters of this ETL are read when the extractor is initialized,
+        // which also recalculates the max number of harvestable documents
+        if (this.extractor != null
+            && (paramKey.equals(httpCacheSize.getCompositeKey())
+                || paramKey.equals(pageSize.getCompositeKey())
+                || paramKey.equals(absentIdTtl.getCompositeKey())
+                || paramKey.equals(shardCount.getCompositeKey())
+                || paramKey.equals(probeUpperBound.getCompositeKey())
+                || paramKey.equals(incrementalHarvest.getCompositeKey())))
+            this.extractor.init(this);
+    }
+}
@@ -16,17 +16,28 @@
  */
 package de.gerdiproject.harvest.etls;
 
+import java.io.File;
+
 import de.gerdiproject.harvest.config.Configuration;
+import de.gerdiproject.harvest.config.parameters.BooleanParameter;
 import de.gerdiproject.harvest.config.parameters.IntegerParameter;
+import de.gerdiproject.harvest.config.parameters.StringParameter;
 import de.gerdiproject.harvest.config.parameters.constants.ParameterMappingFunctions;
 import de.gerdiproject.harvest.ena.constants.EnaParameterConstants;
+import de.gerdiproject.harvest.ena.constants.EnaTaxonConstants;
 import de.gerdiproject.harvest.etls.extractors.EnaTaxonExtractor;
 import de.gerdiproject.harvest.etls.extractors.vos.EnaTaxonVO;
 import de.gerdiproject.harvest.etls.transformers.EnaTaxonTransformer;
 import de.gerdiproject.json.datacite.DataCiteJson;
 
 /**
- * An ETL for harvesting ENA taxa. The parameter 'taxon' sets the taxon identifier of the taxon that is to be harvested.<br>
+ * An ETL for harvesting ENA taxa. The parameter 'taxon' sets the taxon identifier of the taxon that is to be harvested.
+ * The parameter 'resumeCrawl' continues an interrupted crawl of the taxonomy, without
+ * retrieving the taxa that were already harvested. The parameter 'prefetchDepth' sets the
+ * number of reference requests that are sent in parallel for each batch of taxa, and the
+ * parameter 'crawlWorkers' sets the number of taxon batches that are retrieved in parallel.
+ * Instead of crawling the taxonomy, the parameter 'taxonomyDump' reads all taxa from a local
+ * ENA taxonomy XML file.<br>
  *
  * E.g. https://www.ebi.ac.uk/ena/data/view/Taxon:9606<br>
  *
@@ -35,6 +46,11 @@ import de.gerdiproject.json.datacite.DataCiteJson;
 public class EnaTaxonETL extends StaticIteratorETL<EnaTaxonVO, DataCiteJson>
 {
     private IntegerParameter batchSize;
+    private IntegerParameter httpCacheSize;
+    private BooleanParameter resumeCrawl;
+    private IntegerParameter prefetchDepth;
+    private IntegerParameter crawlWorkers;
+    private StringParameter taxonomyDump;
 
     /**
      * Constructor.
@@ -54,12 +70,66 @@ public class EnaTaxonETL extends StaticIteratorETL<EnaTaxonVO, DataCiteJson>
                                                              getName(),
                                                              EnaParameterConstants.BATCH_SIZE_DEFAULT_VALUE,
                                                              ParameterMappingFunctions.createMapperForETL(ParameterMappingFunctions::mapToUnsignedInteger, this)));
+
+        this.httpCacheSize = Configuration.registerParameter(
+                                 new IntegerParameter(
+                                     EnaParameterConstants.HTTP_CACHE_SIZE_KEY,
+                                     getName(),
+                                     EnaParameterConstants.HTTP_CACHE_SIZE_DEFAULT_VALUE,
+                                     ParameterMappingFunctions.createMapperForETL(ParameterMappingFunctions::mapToUnsignedInteger, this)));
+
+        this.resumeCrawl = Configuration.registerParameter(
+                               new BooleanParameter(
+                                   EnaParameterConstants.RESUME_CRAWL_KEY,
+                                   getName(),
+                                   EnaParameterConstants.RESUME_CRAWL_DEFAULT_VALUE,
+                                   ParameterMappingFunctions.createMapperForETL(ParameterMappingFunctions::mapToBoolean, this)));
+
+        this.prefetchDepth = Configuration.registerParameter(
+                                 new IntegerParameter(
+                                     EnaParameterConstants.PREFETCH_DEPTH_KEY,
+                                     getName(),
+                                     EnaParameterConstants.PREFETCH_DEPTH_DEFAULT_VALUE,
+                                     ParameterMappingFunctions.createMapperForETL(ParameterMappingFunctions::mapToUnsignedInteger, this)));
+
+        this.crawlWorkers = Configuration.registerParameter(
+                                new IntegerParameter(
+                                    EnaParameterConstants.CRAWL_WORKERS_KEY,
+                                    getName(),
+                                    EnaParameterConstants.CRAWL_WORKERS_DEFAULT_VALUE,
+                                    ParameterMappingFunctions.createMapperForETL(ParameterMappingFunctions::mapToUnsignedInteger, this)));
+
+        this.taxonomyDump = Configuration.registerParameter(
+                                new StringParameter(
+                                    EnaParameterConstants.TAXONOMY_DUMP_KEY,
+                                    getName(),
+                                    EnaParameterConstants.TAXONOMY_DUMP_DEFAULT_VALUE,
+                                    ParameterMappingFunctions.createMapperForETL(EnaTaxonETL::mapStringToTaxonomyDump, this)));
+    }
+
+
+    /**
+     * Helper function that validates the path of a taxonomy dump.
+     *
+     * @param dumpPath the value that is to be checked
+     *
+     * @throws RuntimeException if the value is neither empty, nor a readable file
+     * @return a valid path of a taxonomy dump
+     */
+    private static String mapStringToTaxonomyDump(final String dumpPath) throws RuntimeException
+    {
+        if (!dumpPath.isEmpty() && !new File(dumpPath).canRead())
+            throw new IllegalArgumentException(String.format(EnaTaxonConstants.DUMP_ERROR, dumpPath));
+
+        return dumpPath;
     }
 
 
     /**
      * Returns the number of taxon responses that may be processed at the same time.
      * Increasing the value will increase the harvesting speed, but could cause Out-of-Memory-Exceptions.
+     * The batch size is reduced during the harvest if responses become too slow or fail,
+     * but it never exceeds this value.
      *
      * @return the number of taxon responses that may be processed at the same time
      */
@@ -67,4 +137,69 @@ public class EnaTaxonETL extends StaticIteratorETL<EnaTaxonVO, DataCiteJson>
     {
         return batchSize.getValue();
     }
+
+
+    /**
+     * Returns the number of megabytes that cached HTTP responses may occupy on disk.
+     * If the value is 0, no responses are cached.
+     *
+     * @return the maximum size of the HTTP response cache in megabytes
+     */
+    public int getHttpCacheSize()
+    {
+        return httpCacheSize.getValue();
+    }
+
+
+    /**
+     * Returns true if the queued and visited taxa are to be kept when a harvest
+     * is interrupted, so that the next harvest continues the crawl. Otherwise,
+     * each harvest crawls the taxonomy from its root.
+     *
+     * @return true if interrupted crawls are to be resumed
+     */
+    public boolean isResumingCrawl()
+    {
+        return resumeCrawl.getValue();
+    }
+
+
+    /**
+     * Returns the number of reference requests that may be in flight at the same time,
+     * while the taxa of a batch are being processed. If the value is 0, the references
+     * of each taxon are requested only when the taxon is processed.
+     *
+     * @return the number of parallel reference requests
+     */
+    public int getPrefetchDepth()
+    {
+        return prefetchDepth.getValue();
+    }
+
+
+    /**
+     * Returns the number of workers that retrieve batches of taxa in parallel.
+     * Taxa that are found by one worker can be retrieved by all others.
+     * If the value is 0 or 1, the taxonomy is crawled one batch at a time.
+     *
+     * @return the number of parallel crawl workers, of which at most sixteen are used
+     */
+    public int getCrawlWorkerCount()
+    {
+        return crawlWorkers.getValue();
+    }
+
+
+    /**
+     * Returns the path of a local ENA taxonomy XML file, from which all taxa are read
+     * instead of crawling the taxonomy. Files that end with '.gz' are decompressed while
+     * they are read. The references of the taxa are still retrieved via HTTP.
+     *
+     * @return the path of the taxonomy dump, or null if the taxonomy is to be crawled
+     */
+    public String getTaxonomyDumpPath()
+    {
+        final String dumpPath = taxonomyDump.getValue();
+        return dumpPath == null || dumpPath.isEmpty() ? null : dumpPath;
+    }
 }
@@ -16,29 +16,97 @@
  */
 package de.gerdiproject.harvest.etls.extractors;
 
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
 
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import de.gerdiproject.harvest.application.MainContextUtils;
 import de.gerdiproject.harvest.ena.constants.EnaConstants;
 import de.gerdiproject.harvest.ena.constants.EnaUrlConstants;
 import de.gerdiproject.harvest.etls.AbstractETL;
 import de.gerdiproject.harvest.etls.EnaAccessionETL;
+import de.gerdiproject.harvest.utils.AccessionCheckpoint;
+import de.gerdiproject.harvest.utils.AccessionRange;
+import de.gerdiproject.harvest.utils.AccessionVersionIndex;
+import de.gerdiproject.harvest.utils.AdaptiveBatchSizer;
+import de.gerdiproject.harvest.utils.CachingHttpRequester;
+import de.gerdiproject.harvest.utils.CountingInputStream;
+import de.gerdiproject.harvest.utils.HtmlUtils;
+import de.gerdiproject.harvest.utils.PortalFingerprinter;
+import de.gerdiproject.harvest.utils.StreamingHttpRequester;
+import de.gerdiproject.harvest.utils.XmlElementIterator;
 import de.gerdiproject.harvest.utils.data.HttpRequester;
 
 
 /**
- * This extractor retrieves a specified range of entries from ENA,
+ * This extractor retrieves specified ranges of entries from ENA,
  * using accession keys in specified batches, in order to prevent OOM exceptions.
+ * Multiple ranges can be harvested in parallel.
+ * Optionally, a number of batches can be requested in advance, while
+ * previously retrieved entries are still being processed, and the entries
+ * of a batch can be parsed one by one while the batch is being downloaded.
+ * The configured batch size is adapted to the response times and sizes of
+ * previous batches, and long ranges without entries are skipped by probing
+ * ahead with exponentially growing ranges.<br>
+ * The first accession number of each range that has not been harvested completely
+ * is stored in a checkpoint file, from which interrupted harvests are resumed.
+ * Optionally, entries whose version and last update date did not change since
+ * the previous harvest are dropped before they are transformed, and the
+ * highest populated accession number of each range is probed before harvesting.
+ * Range responses can be cached on disk and revalidated with conditional requests.
  *
  * @author Robin Weiss
  */
 public class EnaAccessionExtractor extends AbstractIteratorExtractor<Element>
 {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EnaAccessionExtractor.class);
+
     protected final HttpRequester httpRequester = new HttpRequester();
+    protected final StreamingHttpRequester streamingHttpRequester = new StreamingHttpRequester();
+    protected final AccessionCheckpoint checkpoint = new AccessionCheckpoint(
+        new File(
+            MainContextUtils.getCacheDirectory(EnaAccessionExtractor.class),
+            EnaConstants.CHECKPOINT_FILE));
+    protected final PortalFingerprinter fingerprinter = new PortalFingerprinter();
+    protected final CachingHttpRequester cachingHttpRequester = new CachingHttpRequester(
+        new File(
+            MainContextUtils.getCacheDirectory(EnaAccessionExtractor.class),
+            EnaConstants.HTTP_CACHE_FOLDER));
+    protected final AccessionVersionIndex versionIndex = new AccessionVersionIndex(
+        new File(
+            MainContextUtils.getCacheDirectory(EnaAccessionExtractor.class),
+            EnaConstants.VERSION_INDEX_FILE));
     protected EnaAccessionETL dedicatedEtl;
+    protected List<AccessionRange> accessionRanges;
+    protected final Map<String, Integer> upperBounds = new HashMap<>();
+    private final Set<EnaIterator> openIterators = ConcurrentHashMap.newKeySet();
+    private ExecutorService prefetchExecutor;
+    private ExecutorService partitionExecutor;
 
 
     @Override
@@ -46,120 +114,1189 @@ public class EnaAccessionExtractor extends AbstractIteratorExtractor<Element>
     {
         super.init(etl);
         this.dedicatedEtl = (EnaAccessionETL)etl;
+        this.cachingHttpRequester.setCharset(etl.getCharset());
+        this.cachingHttpRequester.setMaxCacheSize(dedicatedEtl.getHttpCacheSize() * EnaConstants.BYTES_PER_MEGABYTE);
+
+        try {
+            this.accessionRanges = dedicatedEtl.getAccessionRanges();
+        } catch (final IllegalArgumentException e) {
+            throw new ExtractorException(e);
+        }
+
+        upperBounds.clear();
+
+        if (dedicatedEtl.isProbingUpperBound()) {
+            for (final AccessionRange range : accessionRanges)
+                upperBounds.put(range.toString(), probeUpperBound(range));
+        }
     }
 
 
     @Override
     public int size()
     {
-        // remove the letter prefixes and calculate the max value
+        long size = 0;
+
+        for (final AccessionRange range : accessionRanges)
+            size += 1 + getUpperBound(range) - range.getFromNumber();
+
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+
+    /**
+     * Returns the last accession number of a range that is to be harvested.
+     *
+     * @param range a range of accession numbers
+     *
+     * @return the probed upper bound of the range, or the last number of the range
+     *          if it was not probed
+     */
+    private int getUpperBound(final AccessionRange range)
+    {
+        return upperBounds.getOrDefault(range.toString(), range.getToNumber());
+    }
+
+
+    /**
+     * Searches the highest populated accession number of a range, by bisecting the range
+     * and checking if small windows of accession numbers contain entries.
+     * As accession numbers are assigned in ascending order, the populated windows are
+     * expected to precede the empty ones. Gaps that are wider than a window
+     * may cause the search to end before the highest populated number.
+     *
+     * @param range the range that is to be probed
+     *
+     * @return the last accession number that is to be harvested
+     */
+    private int probeUpperBound(final AccessionRange range)
+    {
+        final int windowSize = Math.max(1, dedicatedEtl.getBatchSize());
+        final int toNumber = range.getToNumber();
+
         try {
-            return Integer.parseInt(dedicatedEtl
-                                    .getStartingAccessionNumber()
-                                    .replaceAll(EnaConstants.LETTER_PREFIX_REGEX, "")
-                                    .replaceAll(EnaConstants.NUMBER_REGEX, "9"))
-                   + 1;
-        } catch (final NumberFormatException e) {
-            // if we cannot parse the accession numbers, we don't know the size
-            return -1;
+            // check if the range is populated up to its last number
+            if (containsEntries(range, Math.max(range.getFromNumber(), toNumber - windowSize + 1), toNumber))
+                return toNumber;
+
+            // the window at lowerNumber has entries, the window at upperNumber does not
+            int lowerNumber = range.getFromNumber() - 1;
+            int upperNumber = toNumber - windowSize + 1;
+
+            while (upperNumber - lowerNumber > windowSize) {
+                final int middleNumber = lowerNumber + (upperNumber - lowerNumber) / 2;
+
+                if (containsEntries(range, middleNumber, middleNumber + windowSize - 1))
+                    lowerNumber = middleNumber;
+                else
+                    upperNumber = middleNumber;
+            }
+
+            final int upperBound = Math.min(toNumber, upperNumber + windowSize - 1);
+            LOGGER.info(String.format(EnaConstants.UPPER_BOUND_PROBED, dedicatedEtl.getName(), range, range.getAccession(upperBound)));
+            return upperBound;
+
+        } catch (final IOException | UncheckedIOException e) {
+            LOGGER.warn(String.format(EnaConstants.UPPER_BOUND_PROBE_FAILED, dedicatedEtl.getName(), range, e.getMessage()));
+            return toNumber;
+        }
+    }
+
+
+    /**
+     * Checks if a range of accession numbers contains at least one entry,
+     * by reading the range response only until the first entry is found.
+     *
+     * @param range the range to which the accession numbers belong
+     * @param fromNumber the first accession number that is checked
+     * @param toNumber the last accession number that is checked
+     *
+     * @throws IOException if the range could not be requested
+     *
+     * @return true if at least one entry exists within the range
+     */
+    private boolean containsEntries(final AccessionRange range, final int fromNumber, final int toNumber) throws IOException
+    {
+        try
+            (XmlElementIterator entries = new XmlElementIterator(
+                                              streamingHttpRequester.getInputStreamFromUrl(getRangeUrl(range, fromNumber, toNumber)),
+                                              EnaConstants.ENTRY)) {
+            return entries.hasNext();
         }
     }
 
 
+    /**
+     * Assembles the URL of a range request.
+     *
+     * @param range the range to which the accession numbers belong
+     * @param fromNumber the first accession number of the request
+     * @param toNumber the last accession number of the request
+     *
+     * @return the URL of the range request
+     */
+    protected String getRangeUrl(final AccessionRange range, final int fromNumber, final int toNumber)
+    {
+        final StringBuilder urlBuilder = new StringBuilder(EnaUrlConstants.RANGE_ACCESSION_URL_CAPACITY);
+        urlBuilder.append(EnaUrlConstants.RANGE_ACCESSION_URL_PREFIX);
+        range.appendAccession(fromNumber, urlBuilder).append(EnaConstants.ACCESSION_RANGE_SEPARATOR);
+        range.appendAccession(toNumber, urlBuilder).append(EnaUrlConstants.RANGE_ACCESSION_URL_SUFFIX);
+        return urlBuilder.toString();
+    }
+
+
     @Override
     public String getUniqueVersionString()
     {
-        // it's not feasible to calculate the hash, because there is no overall version
-        return null;
+        // an interrupted harvest must be resumed, even if nothing changed
+        try {
+            checkpoint.load();
+
+            if (!checkpoint.isEmpty())
+                return null;
+        } catch (final IOException e) {
+            return null;
+        }
+
+        final StringBuilder versionBuilder = new StringBuilder();
+
+        for (final AccessionRange range : accessionRanges) {
+            final String fingerprint = fingerprinter.getFingerprint(
+                                           EnaConstants.SEQUENCE_RESULT,
+                                           String.format(EnaConstants.ACCESSION_PREFIX_QUERY, range.getPrefix()));
+
+            if (fingerprint == null)
+                return null;
+
+            versionBuilder.append(range).append('=').append(fingerprint).append(EnaConstants.VERSION_STRING_SEPARATOR);
+        }
+
+        return versionBuilder.toString();
     }
 
 
     @Override
     protected Iterator<Element> extractAll() throws ExtractorException
     {
-        return new EnaIterator(dedicatedEtl.getBatchSize());
+        final int prefetchDepth = dedicatedEtl.getPrefetchDepth();
+        final int partitionCount = Math.min(accessionRanges.size(), Math.max(1, dedicatedEtl.getParallelPartitions()));
+
+        shutdownExecutors();
+        loadCheckpoint();
+
+        if (prefetchDepth > 0)
+            this.prefetchExecutor = Executors.newFixedThreadPool(prefetchDepth * partitionCount);
+
+        final Iterator<Element> entries;
+
+        if (accessionRanges.size() == 1) {
+            final AccessionRange range = accessionRanges.get(0);
+            entries = new EnaIterator(range, false, (final int nextNumber) -> saveCheckpoint(range, nextNumber));
+        } else {
+            this.partitionExecutor = Executors.newFixedThreadPool(partitionCount);
+            entries = new PartitionedIterator(accessionRanges, partitionCount * dedicatedEtl.getBatchSize());
+        }
+
+        if (!dedicatedEtl.isSkippingUnchanged())
+            return entries;
+
+        loadVersionIndex();
+        return new ChangedEntryIterator(entries);
+    }
+
+
+    /**
+     * Reads the accession versions of previous harvests from the index file.
+     */
+    private void loadVersionIndex()
+    {
+        try {
+            versionIndex.load();
+            LOGGER.info(String.format(EnaConstants.VERSION_INDEX_LOADED, dedicatedEtl.getName(), versionIndex.size()));
+        } catch (final IOException e) {
+            LOGGER.warn(String.format(EnaConstants.VERSION_INDEX_ERROR, dedicatedEtl.getName(), e.getMessage()));
+        }
+    }
+
+
+    /**
+     * Writes the accession versions to the index file, if they were modified.
+     */
+    private void saveVersionIndex()
+    {
+        try {
+            versionIndex.save();
+        } catch (final IOException e) {
+            LOGGER.warn(String.format(EnaConstants.VERSION_INDEX_ERROR, dedicatedEtl.getName(), e.getMessage()));
+        }
+    }
+
+
+    /**
+     * Reads the cursors of a previous harvest from the checkpoint file,
+     * or deletes the file if a cold start is required.
+     */
+    private void loadCheckpoint()
+    {
+        try {
+            if (dedicatedEtl.isColdStart())
+                checkpoint.delete();
+            else
+                checkpoint.load();
+        } catch (final IOException e) {
+            LOGGER.warn(String.format(EnaConstants.CHECKPOINT_ERROR, dedicatedEtl.getName(), e.getMessage()));
+        }
+    }
+
+
+    /**
+     * Stores the first accession number of a range that has not been harvested yet.
+     * If all ranges have been harvested completely, the checkpoint is deleted, so
+     * the next harvest starts from the beginning.
+     *
+     * @param range the range of which the cursor is stored
+     * @param nextNumber the first accession number of the range that has not been harvested yet
+     */
+    private void saveCheckpoint(final AccessionRange range, final int nextNumber)
+    {
+        // all returned entries were processed, so their versions can be stored
+        if (dedicatedEtl.isSkippingUnchanged())
+            versionIndex.commit();
+
+        try {
+            checkpoint.save(range, nextNumber);
+
+            boolean isComplete = true;
+
+            for (final AccessionRange r : accessionRanges)
+                isComplete &= checkpoint.getCursor(r) > r.getToNumber();
+
+            if (isComplete)
+                checkpoint.delete();
+
+        } catch (final IOException e) {
+            // a missing checkpoint must not abort the harvest
+            LOGGER.warn(String.format(EnaConstants.CHECKPOINT_ERROR, dedicatedEtl.getName(), e.getMessage()));
+        }
+    }
+
+
+    /**
+     * Stops all partitions and range requests that are still running in the background,
+     * and closes all responses that were not read completely.
+     */
+    private void shutdownExecutors()
+    {
+        if (partitionExecutor != null) {
+            partitionExecutor.shutdownNow();
+            partitionExecutor = null;
+        }
+
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdownNow();
+            prefetchExecutor = null;
+        }
+
+        for (final EnaIterator rangeIterator : openIterators)
+            rangeIterator.close();
+    }
+
+
+    /**
+     * This iterator harvests multiple ranges of accession numbers in parallel
+     * and returns their entries in the order in which they are retrieved.
+     * Each range is harvested by a worker thread that passes its entries
+     * to a bounded queue, from which this iterator reads. Range boundaries are
+     * passed through the same queue, so checkpoints are only saved after all
+     * preceding entries of the range were returned by this iterator.
+     * Failures are not queued, but stored separately, so they cannot be lost
+     * when the queue is full. Every worker queues the end of its partition, even if it failed.
+     *
+     * @author Robin Weiss
+     */
+    private class PartitionedIterator implements Iterator<Element>
+    {
+        private final BlockingQueue<PartitionItem> queue;
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        private int runningPartitionCount;
+        private Element nextEntry;
+
+
+        /**
+         * Constructor that starts harvesting all partitions.
+         *
+         * @param ranges the ranges of accession numbers that are to be harvested
+         * @param queueCapacity the maximum number of entries that are retrieved, but not processed
+         */
+        public PartitionedIterator(final List<AccessionRange> ranges, final int queueCapacity)
+        {
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+            this.runningPartitionCount = ranges.size();
+
+            for (final AccessionRange range : ranges)
+                partitionExecutor.execute(() -> harvestPartition(range));
+        }
+
+
+        @Override
+        public boolean hasNext()
+        {
+            try {
+                while (nextEntry == null && runningPartitionCount > 0) {
+                    throwFailure();
+                    final PartitionItem item = queue.take();
+
+                    if (item.getEntry() != null)
+                        nextEntry = item.getEntry();
+                    else if (item.getRange() != null)
+                        saveCheckpoint(item.getRange(), item.getNextNumber());
+                    else
+                        runningPartitionCount--;
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ExtractorException(e);
+            }
+
+            // the end of a failed partition may be the last item
+            if (nextEntry == null)
+                throwFailure();
+
+            return nextEntry != null;
+        }
+
+
+        @Override
+        public Element next()
+        {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            final Element entry = nextEntry;
+            nextEntry = null;
+            return entry;
+        }
+
+
+        /**
+         * Throws the first failure of a partition, if there was one.
+         *
+         * @throws ExtractorException if a partition failed
+         */
+        private void throwFailure()
+        {
+            final RuntimeException partitionFailure = failure.get();
+
+            if (partitionFailure != null)
+                throw new ExtractorException(partitionFailure);
+        }
+
+
+        /**
+         * Harvests all entries of a range and passes them to the queue.
+         * This method is executed by a worker thread.
+         *
+         * @param range the range of accession numbers that is to be harvested
+         */
+        private void harvestPartition(final AccessionRange range)
+        {
+            try {
+                LOGGER.info(String.format(EnaConstants.PARTITION_STARTED, dedicatedEtl.getName(), range));
+                final EnaIterator partitionIterator =
+                    new EnaIterator(range, true, (final int nextNumber) -> putItem(new PartitionItem(range, nextNumber)));
+
+                while (partitionIterator.hasNext())
+                    queue.put(new PartitionItem(partitionIterator.next()));
+
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (final RuntimeException e) { // NOPMD all failures must be passed to the consumer
+                failure.compareAndSet(null, e);
+            } finally {
+                endPartition();
+            }
+        }
+
+
+        /**
+         * Passes the end of a partition to the queue, so the consumer stops waiting for it.
+         * If the worker was interrupted, the harvest is being aborted and the consumer may
+         * no longer take items, so the end is only passed if the queue has free space.
+         */
+        private void endPartition()
+        {
+            final PartitionItem endItem = new PartitionItem();
+
+            if (!Thread.currentThread().isInterrupted()) {
+                try {
+                    queue.put(endItem);
+                    return;
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            queue.offer(endItem);
+        }
+
+
+        /**
+         * Passes an item to the queue, waiting for free space if necessary.
+         *
+         * @param item the item that is to be passed to the consumer
+         *
+         * @throws ExtractorException if the worker thread was interrupted
+         */
+        private void putItem(final PartitionItem item)
+        {
+            try {
+                queue.put(item);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ExtractorException(e);
+            }
+        }
+    }
+
+
+    /**
+     * This iterator drops all entries whose version and last update date did not change
+     * since the previous harvest, and counts them as harvested. The version of a returned
+     * entry is staged when the next entry is requested, because the returned entry was
+     * processed by then. Staged versions are committed with each checkpoint, and the
+     * version index is written to disk when all entries were retrieved.
+     *
+     * @author Robin Weiss
+     */
+    private class ChangedEntryIterator implements Iterator<Element>
+    {
+        private final Iterator<Element> entries;
+        private Element nextEntry;
+        private Element returnedEntry;
+
+
+        /**
+         * Constructor.
+         *
+         * @param entries the iterator of all retrieved entries
+         */
+        public ChangedEntryIterator(final Iterator<Element> entries)
+        {
+            this.entries = entries;
+        }
+
+
+        @Override
+        public boolean hasNext()
+        {
+            if (returnedEntry != null) {
+                versionIndex.update(
+                    HtmlUtils.getAttribute(returnedEntry, EnaConstants.ACCESSION),
+                    HtmlUtils.getAttribute(returnedEntry, EnaConstants.VERSION),
+                    HtmlUtils.getAttribute(returnedEntry, EnaConstants.LAST_UPDATED));
+                returnedEntry = null;
+            }
+
+            while (nextEntry == null && entries.hasNext()) {
+                final Element entry = entries.next();
+                final boolean hasChanged = versionIndex.hasChanged(
+                                               HtmlUtils.getAttribute(entry, EnaConstants.ACCESSION),
+                                               HtmlUtils.getAttribute(entry, EnaConstants.VERSION),
+                                               HtmlUtils.getAttribute(entry, EnaConstants.LAST_UPDATED));
+
+                if (hasChanged)
+                    nextEntry = entry;
+                else
+                    dedicatedEtl.increaseHarvestedDocuments(1);
+            }
+
+            if (nextEntry == null) {
+                saveVersionIndex();
+                return false;
+            }
+
+            return true;
+        }
+
+
+        @Override
+        public Element next()
+        {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            returnedEntry = nextEntry;
+            nextEntry = null;
+            return returnedEntry;
+        }
+    }
+
+
+    /**
+     * This class represents an item that is passed from a partition worker to
+     * the consumer. An item is either a harvested entry, a range boundary up to which
+     * all entries were passed, or the end of the partition.
+     *
+     * @author Robin Weiss
+     */
+    private static class PartitionItem
+    {
+        private final Element entry;
+        private final AccessionRange range;
+        private final int nextNumber;
+
+
+        /**
+         * Constructor for the end of a partition.
+         */
+        public PartitionItem()
+        {
+            this(null, null, 0);
+        }
+
+
+        /**
+         * Constructor for harvested entries.
+         *
+         * @param entry a harvested entry
+         */
+        public PartitionItem(final Element entry)
+        {
+            this(entry, null, 0);
+        }
+
+
+        /**
+         * Constructor for range boundaries.
+         *
+         * @param range the range of the partition
+         * @param nextNumber the first accession number of the range that was not passed yet
+         */
+        public PartitionItem(final AccessionRange range, final int nextNumber)
+        {
+            this(null, range, nextNumber);
+        }
+
+
+        /**
+         * Constructor that sets all fields.
+         *
+         * @param entry a harvested entry, or null
+         * @param range the range of a boundary, or null
+         * @param nextNumber the first accession number of the range that was not passed yet
+         */
+        private PartitionItem(final Element entry, final AccessionRange range, final int nextNumber)
+        {
+            this.entry = entry;
+            this.range = range;
+            this.nextNumber = nextNumber;
+        }
+
+
+        /**
+         * Returns the harvested entry.
+         *
+         * @return the harvested entry, or null if this item is no entry
+         */
+        public Element getEntry()
+        {
+            return entry;
+        }
+
+
+        /**
+         * Returns the range of a boundary.
+         *
+         * @return the range of a boundary, or null if this item is no boundary
+         */
+        public AccessionRange getRange()
+        {
+            return range;
+        }
+
+
+        /**
+         * Returns the first accession number of the range that was not passed yet.
+         *
+         * @return the first accession number of the range that was not passed yet
+         */
+        public int getNextNumber()
+        {
+            return nextNumber;
+        }
     }
 
 
     /**
      * This iterator iterates through the range of accession numbers
-     * while downloading the entries in batches.
+     * while downloading the entries in batches. If a prefetch depth is set,
+     * the following batches are requested in the background and are
+     * returned in the order of their accession numbers.<br>
+     * After a number of consecutive empty batches, the following accession numbers
+     * are probed with exponentially growing ranges. As soon as a probed range contains
+     * entries, it is bisected until the first populated batch is found.
+     * Only ranges that are confirmed to be empty are skipped.<br>
+     * If a checkpoint of the range exists, the iteration resumes at its cursor.
+     * Whenever all entries before an accession number were returned, this number
+     * is reported as the new boundary of the range.<br>
+     * Streamed responses remain open until their entries were read, so the iterator
+     * keeps track of them and closes them if the harvest is aborted.
      *
      * @author Robin Weiss
      */
-    private class EnaIterator implements Iterator<Element>
+    private class EnaIterator implements Iterator<Element>, Closeable
     {
-        private final int batchSize;
+        private final AccessionRange range;
+        private final boolean isReportingProgress;
+        private final IntConsumer boundaryListener;
+        private final AdaptiveBatchSizer batchSizer;
+        private final int maxPendingBatches;
+        private final boolean isStreaming;
+        private final int gapSkipThreshold;
         private final int maxNumber;
-        private final String accessionNumberPattern;
+        private final Deque<CompletableFuture<AccessionBatch>> pendingBatches;
+        private final Set<AccessionBatch> openBatches;
 
-        private Iterator<Element> currentBatch;
-        private int currentNumber;
+        private volatile boolean isClosed;
+        private AccessionBatch currentBatch;
+        private int nextNumber;
+        private int emptyBatchCount;
+        private long processedCount;
+        private int reportedPercentage;
+        private int boundaryNumber;
 
 
         /**
          * Constructor.
-         * @param batchSize the maximum number of entries that may be extracted at any given time
+         * @param range the range of accession numbers that is to be harvested
+         * @param isReportingProgress if true, the progress of the range is logged
+         * @param boundaryListener a function that receives the first accession number
+         *          of which the entry was not returned yet
          */
-        public EnaIterator(final int batchSize)
+        public EnaIterator(final AccessionRange range, final boolean isReportingProgress, final IntConsumer boundaryListener)
         {
-            final String firstAccessionNumber = dedicatedEtl.getStartingAccessionNumber();
-            final String accessionPrefix = firstAccessionNumber.replaceAll(EnaConstants.NUMBER_REGEX, "");
-            this.currentNumber = Integer.parseInt(firstAccessionNumber.substring(accessionPrefix.length()));
-            this.maxNumber = Integer.parseInt(firstAccessionNumber.substring(accessionPrefix.length()).replaceAll(EnaConstants.NUMBER_REGEX, "9"));
-            this.accessionNumberPattern = String.format(
-                                              EnaConstants.ACCESSION_FORMAT_BASE,
-                                              accessionPrefix,
-                                              firstAccessionNumber.length() - accessionPrefix.length());
+            this.range = range;
+            this.isReportingProgress = isReportingProgress;
+            this.boundaryListener = boundaryListener;
+            this.nextNumber = checkpoint.getCursor(range);
+            this.maxNumber = getUpperBound(range);
+            this.boundaryNumber = nextNumber;
+
+            final String batchName = isReportingProgress
+                                     ? String.format(EnaConstants.PARTITION_NAME, dedicatedEtl.getName(), range)
+                                     : dedicatedEtl.getName();
+            this.batchSizer = new AdaptiveBatchSizer(batchName, dedicatedEtl.getBatchSize());
+            this.maxPendingBatches = Math.max(1, dedicatedEtl.getPrefetchDepth());
+            this.isStreaming = dedicatedEtl.isStreamingEntries();
+            this.gapSkipThreshold = dedicatedEtl.getGapSkipThreshold();
+            this.pendingBatches = new ConcurrentLinkedDeque<>();
+            this.openBatches = ConcurrentHashMap.newKeySet();
+            this.currentBatch = new AccessionBatch(nextNumber, nextNumber - 1, Collections.emptyIterator(), 0, null);
+            openIterators.add(this);
+
+            // count the accession numbers that were harvested before the checkpoint
+            final int resumedCount = nextNumber - range.getFromNumber();
 
-            this.batchSize = batchSize;
+            if (resumedCount > 0) {
+                LOGGER.info(String.format(EnaConstants.CHECKPOINT_RESUMED, dedicatedEtl.getName(), range, range.getAccession(nextNumber)));
+                dedicatedEtl.increaseHarvestedDocuments(resumedCount);
+                addProcessedCount(resumedCount);
+            }
         }
 
 
         @Override
         public boolean hasNext()
         {
-            return currentBatch.hasNext() || currentNumber < maxNumber;
+            try {
+                // batches may be completely empty, thus this needs to be a while-loop
+                while (!currentBatch.hasNext()) {
+                    finishCurrentBatch();
+
+                    if (nextNumber > maxNumber && pendingBatches.isEmpty()) {
+                        reportBoundary(range.getToNumber() + 1);
+                        close();
+                        return false;
+                    }
+
+                    this.currentBatch = retrieveNextBatch();
+
+                    // all entries before the new batch were returned or skipped
+                    reportBoundary(currentBatch.getFromNumber());
+                }
+
+                return true;
+            } catch (final UncheckedIOException e) {
+                throw new ExtractorException(e.getCause());
+            }
         }
 
 
         @Override
         public Element next()
         {
-            // batches may be completely empty, thus this needs to be a while-loop
-            while (currentBatch == null || !currentBatch.hasNext() && currentNumber < maxNumber)
-                retrieveNextBatch();
+            if (!hasNext())
+                throw new NoSuchElementException();
 
             return currentBatch.next();
         }
 
 
         /**
-         * Retrieves the next batch of entries out of the specified
+         * Cancels all batches that are still being retrieved, and closes the responses
+         * of all retrieved batches of which the entries were not read completely.
+         * This method may be called by any thread.
+         */
+        @Override
+        public void close()
+        {
+            // batches that are retrieved after this point close themselves
+            isClosed = true;
+            openIterators.remove(this);
+
+            for (final CompletableFuture<AccessionBatch> pendingBatch : pendingBatches)
+                pendingBatch.cancel(true);
+
+            for (final AccessionBatch openBatch : openBatches)
+                closeBatch(openBatch);
+        }
+
+
+        /**
+         * Closes the response of a batch, ignoring any exceptions that may occur.
+         *
+         * @param batch the batch of which the response is to be closed
+         */
+        private void closeBatch(final AccessionBatch batch)
+        {
+            openBatches.remove(batch);
+
+            try {
+                batch.close();
+            } catch (final IOException ignored) { // NOPMD the response is discarded anyway
+            }
+        }
+
+
+        /**
+         * Adds the accession numbers of the current batch that had no entries
+         * to the number of harvested documents, and adapts the batch size
+         * to the response of the batch.
+         */
+        private void finishCurrentBatch()
+        {
+            final int missingEntryCount = currentBatch.getMissingEntryCount();
+
+            if (missingEntryCount > 0)
+                dedicatedEtl.increaseHarvestedDocuments(missingEntryCount);
+
+            if (currentBatch.getRequestedCount() > 0) {
+                if (missingEntryCount == currentBatch.getRequestedCount())
+                    emptyBatchCount++;
+                else
+                    emptyBatchCount = 0;
+
+                batchSizer.onBatchRetrieved(
+                    currentBatch.getRequestedCount(),
+                    currentBatch.getRequestedCount() - missingEntryCount,
+                    currentBatch.getLatency(),
+                    currentBatch.getPayloadBytes());
+
+                addProcessedCount(currentBatch.getRequestedCount());
+            }
+
+            currentBatch.clearMissingEntryCount();
+
+            // the response of an exhausted batch is closed already
+            openBatches.remove(currentBatch);
+        }
+
+
+        /**
+         * Passes a new boundary to the boundary listener, if it moved forward.
+         *
+         * @param newBoundaryNumber the first accession number of which the entry was not returned yet
+         */
+        private void reportBoundary(final int newBoundaryNumber)
+        {
+            if (newBoundaryNumber > boundaryNumber) {
+                boundaryNumber = newBoundaryNumber;
+                boundaryListener.accept(newBoundaryNumber);
+            }
+        }
+
+
+        /**
+         * Adds a number of processed accession numbers to the progress of the range
+         * and logs every tenth percent of progress, if the progress is to be reported.
+         *
+         * @param count the number of accession numbers that were processed
+         */
+        private void addProcessedCount(final int count)
+        {
+            processedCount += count;
+
+            if (isReportingProgress) {
+                final int percentage = (int)(100 * processedCount / (1 + maxNumber - range.getFromNumber()));
+
+                if (percentage >= reportedPercentage + EnaConstants.PARTITION_PROGRESS_STEP) {
+                    reportedPercentage = percentage - percentage % EnaConstants.PARTITION_PROGRESS_STEP;
+                    LOGGER.info(String.format(EnaConstants.PARTITION_PROGRESS, dedicatedEtl.getName(), range, reportedPercentage));
+                }
+            }
+        }
+
+
+        /**
+         * Requests as many batches as the prefetch depth allows and waits
+         * for the oldest pending batch to be retrieved. If the retrieval failed,
+         * the range of the batch is split in two halves that are requested again.
+         *
+         * @return the next batch, or an empty batch if skipping a gap reached the end of the range
+         */
+        private AccessionBatch retrieveNextBatch()
+        {
+            requestBatches();
+
+            // the remaining accession numbers may have been skipped without requesting a batch
+            if (pendingBatches.isEmpty())
+                return new AccessionBatch(nextNumber, nextNumber - 1, Collections.emptyIterator(), 0, null);
+
+            final AccessionBatch nextBatch = pendingBatches.poll().join();
+            final ExtractorException failure = nextBatch.getFailure();
+
+            if (failure == null)
+                return nextBatch;
+
+            // a single accession number cannot be split any further
+            if (nextBatch.getRequestedCount() == 1)
+                throw failure;
+
+            batchSizer.onBatchFailed();
+
+            final int fromNumber = nextBatch.getFromNumber();
+            final int toNumber = nextBatch.getToNumber();
+            final int middleNumber = fromNumber + (toNumber - fromNumber) / 2;
+            final CompletableFuture<AccessionBatch> firstHalf = requestBatch(fromNumber, middleNumber);
+            final CompletableFuture<AccessionBatch> secondHalf = requestBatch(middleNumber + 1, toNumber);
+            pendingBatches.addFirst(secondHalf);
+            pendingBatches.addFirst(firstHalf);
+
+            return retrieveNextBatch();
+        }
+
+
+        /**
+         * Queues range requests until the prefetch depth is reached or
+         * the last accession number was requested.
+         */
+        private void requestBatches()
+        {
+            if (gapSkipThreshold > 0 && emptyBatchCount >= gapSkipThreshold)
+                skipGap();
+
+            while (pendingBatches.size() < maxPendingBatches && nextNumber <= maxNumber) {
+                final int fromNumber = nextNumber;
+                final int toNumber = Math.min(maxNumber, fromNumber + batchSizer.getBatchSize() - 1);
+                this.nextNumber = toNumber + 1;
+
+                pendingBatches.add(requestBatch(fromNumber, toNumber));
+            }
+        }
+
+
+        /**
+         * Probes the accession numbers that were not requested yet with exponentially
+         * growing ranges, until a range with entries is found. This range is then bisected
+         * until the first batch that contains entries is found. All skipped accession numbers
+         * are counted as harvested.
+         */
+        private void skipGap()
+        {
+            final int batchSize = batchSizer.getBatchSize();
+            final int gapStart = nextNumber;
+            long probeSize = 2L * batchSize;
+            emptyBatchCount = 0;
+
+            try {
+                while (nextNumber <= maxNumber) {
+                    final int probeEnd = (int) Math.min(maxNumber, nextNumber + probeSize - 1);
+
+                    if (containsEntries(range, nextNumber, probeEnd)) {
+                        int lowerNumber = nextNumber;
+                        int upperNumber = probeEnd;
+
+                        // the range from lowerNumber to upperNumber always contains entries
+                        while (1 + upperNumber - lowerNumber > batchSize) {
+                            final int middleNumber = lowerNumber + (upperNumber - lowerNumber) / 2;
+
+                            if (containsEntries(range, lowerNumber, middleNumber))
+                                upperNumber = middleNumber;
+                            else
+                                lowerNumber = middleNumber + 1;
+                        }
+
+                        nextNumber = lowerNumber;
+                        break;
+                    }
+
+                    nextNumber = probeEnd + 1;
+                    probeSize *= 2;
+                }
+            } catch (final IOException | UncheckedIOException e) {
+                // nextNumber only moves past ranges that are confirmed to be empty
+                LOGGER.warn(String.format(EnaConstants.GAP_PROBE_FAILED, range.getAccession(nextNumber), e.getMessage()));
+            }
+
+            if (nextNumber > gapStart) {
+                dedicatedEtl.increaseHarvestedDocuments(nextNumber - gapStart);
+                addProcessedCount(nextNumber - gapStart);
+            }
+        }
+
+
+        /**
+         * Requests a range of accession numbers. Without a prefetch
+         * executor, the request is sent synchronously.
+         *
+         * @param fromNumber the first accession number of the range
+         * @param toNumber the last accession number of the range
+         *
+         * @return a future batch of all entries that exist within the range
+         */
+        private CompletableFuture<AccessionBatch> requestBatch(final int fromNumber, final int toNumber)
+        {
+            if (prefetchExecutor == null)
+                return CompletableFuture.completedFuture(retrieveBatch(fromNumber, toNumber));
+            else
+                return CompletableFuture.supplyAsync(() -> retrieveBatch(fromNumber, toNumber), prefetchExecutor);
+        }
+
+
+        /**
+         * Retrieves a batch of entries out of the specified
          * range of accession numbers.
+         *
+         * @param fromNumber the first accession number of the range
+         * @param toNumber the last accession number of the range
+         *
+         * @return a batch of all entries that exist within the range,
+         *          or a failed batch if the entries could not be retrieved
+         */
+        private AccessionBatch retrieveBatch(final int fromNumber, final int toNumber)
+        {
+            final String url = getRangeUrl(range, fromNumber, toNumber);
+
+            final long startTime = System.currentTimeMillis();
+
+            try {
+                if (isStreaming) {
+                    final CountingInputStream responseStream =
+                        new CountingInputStream(cachingHttpRequester.getInputStreamFromUrl(url));
+                    final long latency = System.currentTimeMillis() - startTime;
+                    final Iterator<Element> entries = new XmlElementIterator(responseStream, EnaConstants.ENTRY);
+                    final AccessionBatch batch = new AccessionBatch(fromNumber, toNumber, entries, latency, responseStream);
+
+                    // either this check or close() sees the open batch
+                    openBatches.add(batch);
+
+                    if (isClosed)
+                        closeBatch(batch);
+
+                    return batch;
+                } else {
+                    final Document doc = cachingHttpRequester.isEnabled()
+                                         ? cachingHttpRequester.getHtmlFromUrl(url)
+                                         : httpRequester.getHtmlFromUrl(url);
+                    final long latency = System.currentTimeMillis() - startTime;
+
+                    if (doc == null)
+                        throw new ExtractorException(String.format(EnaConstants.URL_ERROR, url));
+
+                    // retrieve all entries with fitting accession numbers
+                    final Elements entries = doc.select(EnaConstants.ENTRY);
+                    return new AccessionBatch(fromNumber, toNumber, entries.iterator(), latency, null);
+                }
+            } catch (final IOException e) {
+                return new AccessionBatch(fromNumber, toNumber, new ExtractorException(String.format(EnaConstants.URL_ERROR, url), e));
+            } catch (final ExtractorException e) {
+                return new AccessionBatch(fromNumber, toNumber, e);
+            }
+        }
+    }
+
+
+    /**
+     * This class represents a range of accession numbers and an
+     * iterator over the entries that exist within the range.
+     *
+     * @author Robin Weiss
+     */
+    private static class AccessionBatch implements Iterator<Element>, Closeable
+    {
+        private final int fromNumber;
+        private final int toNumber;
+        private final Iterator<Element> entries;
+        private final long latency;
+        private final CountingInputStream responseStream;
+        private final ExtractorException failure;
+        private int missingEntryCount;
+
+
+        /**
+         * Constructor for successfully retrieved batches.
+         *
+         * @param fromNumber the first accession number of the range
+         * @param toNumber the last accession number of the range
+         * @param entries an iterator over the entries that exist within the range
+         * @param latency the number of milliseconds it took to receive the response
+         * @param responseStream the stream from which the entries are parsed,
+         *          or null if the response was parsed completely
+         */
+        public AccessionBatch(final int fromNumber, final int toNumber, final Iterator<Element> entries, final long latency, final CountingInputStream responseStream)
+        {
+            this.fromNumber = fromNumber;
+            this.toNumber = toNumber;
+            this.entries = entries;
+            this.latency = latency;
+            this.responseStream = responseStream;
+            this.failure = null;
+            this.missingEntryCount = getRequestedCount();
+        }
+
+
+        /**
+         * Constructor for batches that could not be retrieved.
+         *
+         * @param fromNumber the first accession number of the range
+         * @param toNumber the last accession number of the range
+         * @param failure the cause of the failed retrieval
+         */
+        public AccessionBatch(final int fromNumber, final int toNumber, final ExtractorException failure)
+        {
+            this.fromNumber = fromNumber;
+            this.toNumber = toNumber;
+            this.entries = Collections.emptyIterator();
+            this.latency = 0;
+            this.responseStream = null;
+            this.failure = failure;
+            this.missingEntryCount = 0;
+        }
+
+
+        @Override
+        public boolean hasNext()
+        {
+            return entries.hasNext();
+        }
+
+
+        @Override
+        public Element next()
+        {
+            missingEntryCount--;
+            return entries.next();
+        }
+
+
+        /**
+         * Closes the response from which the entries are parsed, if it is streamed.
+         *
+         * @throws IOException if the response could not be closed
+         */
+        @Override
+        public void close() throws IOException
+        {
+            if (responseStream != null)
+                responseStream.close();
+        }
+
+
+        /**
+         * Returns the first accession number of the range.
+         *
+         * @return the first accession number of the range
+         */
+        public int getFromNumber()
+        {
+            return fromNumber;
+        }
+
+
+        /**
+         * Returns the last accession number of the range.
+         *
+         * @return the last accession number of the range
+         */
+        public int getToNumber()
+        {
+            return toNumber;
+        }
+
+
+        /**
+         * Returns the number of accession numbers within the range.
+         *
+         * @return the number of accession numbers within the range
+         */
+        public int getRequestedCount()
+        {
+            return 1 + toNumber - fromNumber;
+        }
+
+
+        /**
+         * Returns the number of milliseconds it took to receive the response.
+         *
+         * @return the number of milliseconds it took to receive the response
          */
-        private void retrieveNextBatch()
+        public long getLatency()
         {
-            final int nextNumber = Math.min(maxNumber, currentNumber + batchSize - 1);
-            final String url = String.format(
-                                   EnaUrlConstants.RANGE_ACCESSION_URL,
-                                   String.format(accessionNumberPattern, currentNumber),
-                                   String.format(accessionNumberPattern, nextNumber));
-            final Document doc = httpRequester.getHtmlFromUrl(url);
+            return latency;
+        }
 
-            if (doc == null)
-                throw new ExtractorException(String.format(EnaConstants.URL_ERROR, url));
 
-            // retrieve all entries with fitting accession numbers
-            final Elements entries = doc.select(EnaConstants.ENTRY);
+        /**
+         * Returns the number of bytes that were read from the response.
+         *
+         * @return the number of bytes that were read from the response,
+         *          or -1 if the size is unknown
+         */
+        public long getPayloadBytes()
+        {
+            return responseStream == null ? -1 : responseStream.getByteCount();
+        }
 
-            // some accession numbers don't exist, so the entries may be less
-            final int missingEntryCount = (1 + nextNumber - currentNumber) - entries.size();
-            dedicatedEtl.increaseHarvestedDocuments(missingEntryCount);
 
-            // set batch and next number
-            this.currentBatch = entries.iterator();
-            this.currentNumber += batchSize;
+        /**
+         * Returns the exception that caused the retrieval of the batch to fail.
+         *
+         * @return the cause of a failed retrieval, or null if the batch was retrieved
+         */
+        public ExtractorException getFailure()
+        {
+            return failure;
+        }
+
+
+        /**
+         * Returns the number of accession numbers within the range
+         * that had no entry, assuming that the iterator is exhausted.
+         *
+         * @return the number of accession numbers that had no entry
+         */
+        public int getMissingEntryCount()
+        {
+            return missingEntryCount;
+        }
+
+
+        /**
+         * Marks the missing entries of this batch as counted.
+         */
+        public void clearMissingEntryCount()
+        {
+            missingEntryCount = 0;
         }
     }
 
@@ -167,6 +1304,17 @@ public class EnaAccessionExtractor extends AbstractIteratorExtractor<Element>
     @Override
     public void clear()
     {
-        // nothing to clean up
+        shutdownExecutors();
+
+        // keep the versions of all entries up to the last checkpoint before an abort
+        if (dedicatedEtl != null && dedicatedEtl.isSkippingUnchanged())
+            saveVersionIndex();
+
+        if (cachingHttpRequester.isEnabled())
+            LOGGER.info(String.format(
+                            EnaConstants.HTTP_CACHE_STATISTICS,
+                            dedicatedEtl.getName(),
+                            cachingHttpRequester.getHitCount(),
+                            cachingHttpRequester.getMissCount()));
     }
 }
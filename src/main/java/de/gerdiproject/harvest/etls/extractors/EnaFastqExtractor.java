@@ -15,16 +15,56 @@
  */
 package de.gerdiproject.harvest.etls.extractors;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 
+import de.gerdiproject.harvest.application.MainContextUtils;
+import de.gerdiproject.harvest.ena.constants.EnaConstants;
 import de.gerdiproject.harvest.ena.constants.EnaFastqConstants;
 import de.gerdiproject.harvest.etls.AbstractETL;
+import de.gerdiproject.harvest.etls.EnaFastqETL;
+import de.gerdiproject.harvest.etls.extractors.vos.EnaFastqTsvMapper;
 import de.gerdiproject.harvest.etls.extractors.vos.EnaFastqVO;
+import de.gerdiproject.harvest.etls.extractors.vos.EnaFastqVOAdapter;
+import de.gerdiproject.harvest.utils.AbsentIdSet;
+import de.gerdiproject.harvest.utils.AccessionCodec;
+import de.gerdiproject.harvest.utils.BoundedInterner;
+import de.gerdiproject.harvest.utils.CachingHttpRequester;
+import de.gerdiproject.harvest.utils.PortalFingerprinter;
+import de.gerdiproject.harvest.utils.StreamingHttpRequester;
+import de.gerdiproject.harvest.utils.TsvReader;
 import de.gerdiproject.harvest.utils.data.HttpRequester;
 import de.gerdiproject.json.GsonUtils;
 
@@ -36,9 +76,32 @@ import de.gerdiproject.json.GsonUtils;
  */
 public class EnaFastqExtractor extends AbstractIteratorExtractor<EnaFastqVO>
 {
-    protected final Gson gson = GsonUtils.createGerdiDocumentGsonBuilder().create();
+    private static final Logger LOGGER = LoggerFactory.getLogger(EnaFastqExtractor.class);
+
+    // shared by all FASTQ extractors, because their runs have the same platforms, sources, and organisms
+    private static final BoundedInterner<String> FIELD_VALUES = new BoundedInterner<>(EnaConstants.DICTIONARY_SIZE);
+
+    protected final Gson gson = GsonUtils.createGerdiDocumentGsonBuilder()
+                                     .registerTypeAdapter(EnaFastqVO.class, new EnaFastqVOAdapter(FIELD_VALUES))
+                                     .create();
     protected final HttpRequester httpRequester = new HttpRequester(gson, StandardCharsets.UTF_8);
+    protected final PortalFingerprinter fingerprinter = new PortalFingerprinter();
+    protected final StreamingHttpRequester streamingHttpRequester = new StreamingHttpRequester();
+    protected final CachingHttpRequester cachingHttpRequester;
+    protected final AbsentIdSet absentIds;
+    protected final Path highWaterMarkPath;
     protected final String accessionPrefix;
+    protected final long runAccessionCode;
+    protected int pageSize;
+    protected boolean isSkippingAbsentIds;
+    protected boolean isHarvestingIncrementally;
+    protected int shardCount;
+    protected int maxId = EnaFastqConstants.FASTQ_DOCUMENT_COUNT;
+    protected String highWaterMark;
+    protected int updatedRunCount;
+    protected EnaFastqETL dedicatedEtl;
+    private final AtomicInteger failedRequestCount = new AtomicInteger();
+    private ExecutorService shardExecutor;
 
 
     /**
@@ -49,6 +112,19 @@ public class EnaFastqExtractor extends AbstractIteratorExtractor<EnaFastqVO>
     {
         super();
         this.accessionPrefix = accessionPrefix.toUpperCase(Locale.ENGLISH);
+        this.runAccessionCode = AccessionCodec.encode(this.accessionPrefix, 0, EnaFastqConstants.FASTQ_ID_WIDTH);
+        this.cachingHttpRequester = new CachingHttpRequester(
+            new File(
+                MainContextUtils.getCacheDirectory(EnaFastqExtractor.class),
+                EnaConstants.HTTP_CACHE_FOLDER + this.accessionPrefix),
+            gson);
+        this.absentIds = new AbsentIdSet(
+            new File(
+                MainContextUtils.getCacheDirectory(EnaFastqExtractor.class),
+                String.format(EnaFastqConstants.ABSENT_IDS_FILE, this.accessionPrefix)));
+        this.highWaterMarkPath = new File(
+            MainContextUtils.getCacheDirectory(EnaFastqExtractor.class),
+            String.format(EnaFastqConstants.HIGH_WATER_MARK_FILE, this.accessionPrefix)).toPath();
     }
 
 
@@ -56,36 +132,639 @@ public class EnaFastqExtractor extends AbstractIteratorExtractor<EnaFastqVO>
     public void init(final AbstractETL<?, ?> etl)
     {
         super.init(etl);
+        this.dedicatedEtl = (EnaFastqETL)etl;
         this.httpRequester.setCharset(etl.getCharset());
+        this.cachingHttpRequester.setCharset(etl.getCharset());
+        this.cachingHttpRequester.setMaxCacheSize(dedicatedEtl.getHttpCacheSize() * EnaConstants.BYTES_PER_MEGABYTE);
+        this.pageSize = dedicatedEtl.getPageSize();
+        this.shardCount = Math.max(1, dedicatedEtl.getShardCount());
+
+        final int absentIdTtl = dedicatedEtl.getAbsentIdTtl();
+        this.isSkippingAbsentIds = absentIdTtl > 0;
+
+        if (isSkippingAbsentIds)
+            loadAbsentIds(absentIdTtl * EnaFastqConstants.MILLISECONDS_PER_HOUR);
+
+        this.maxId = dedicatedEtl.isProbingUpperBound()
+                     ? probeUpperBound()
+                     : EnaFastqConstants.FASTQ_DOCUMENT_COUNT;
+
+        this.isHarvestingIncrementally = dedicatedEtl.isHarvestingIncrementally();
+        this.highWaterMark = isHarvestingIncrementally
+                             ? loadHighWaterMark()
+                             : null;
+        this.updatedRunCount = highWaterMark == null
+                               ? -1
+                               : countUpdatedRuns();
     }
 
 
     @Override
     public String getUniqueVersionString()
     {
-        // it's not feasible to calculate the hash, because there is no overall version hence null
-        return null;
+        // the number of runs and their newest update date change with every new or updated run
+        return fingerprinter.getFingerprint(
+                   EnaFastqConstants.READ_RUN_RESULT,
+                   String.format(EnaFastqConstants.RUN_PREFIX_QUERY, accessionPrefix));
     }
 
 
     @Override
     public int size()
     {
-        return EnaFastqConstants.FASTQ_DOCUMENT_COUNT;
+        return highWaterMark == null ? maxId : updatedRunCount;
     }
 
 
     @Override
     protected Iterator<EnaFastqVO> extractAll() throws ExtractorException
     {
-        return new EnaFastqIterator();
+        shutdownExecutor();
+
+        // runs that are updated during the harvest may be missed, so the next harvest starts on the same day
+        final String harvestStartDate = LocalDate.now(ZoneOffset.UTC).toString();
+        final Iterator<EnaFastqVO> runs;
+        failedRequestCount.set(0);
+
+        if (highWaterMark != null)
+            runs = new UpdatedRunIterator(highWaterMark);
+
+        else if (shardCount == 1)
+            runs = new EnaFastqIterator(1, maxId, false);
+
+        else {
+            this.shardExecutor = Executors.newFixedThreadPool(Math.min(shardCount, EnaFastqConstants.MAX_SHARD_WORKERS));
+            runs = new ShardedIterator();
+        }
+
+        return isHarvestingIncrementally
+               ? new HighWaterMarkIterator(runs, harvestStartDate)
+               : runs;
     }
 
 
     @Override
     public void clear()
     {
-        // nothing to clean up
+        shutdownExecutor();
+
+        if (isSkippingAbsentIds)
+            saveAbsentIds();
+
+        if (cachingHttpRequester.isEnabled())
+            LOGGER.info(String.format(
+                            EnaConstants.HTTP_CACHE_STATISTICS,
+                            accessionPrefix,
+                            cachingHttpRequester.getHitCount(),
+                            cachingHttpRequester.getMissCount()));
+
+        LOGGER.info(String.format(
+                        EnaConstants.DICTIONARY_STATISTICS,
+                        EnaConstants.FASTQ_FIELD_VALUES_NAME,
+                        FIELD_VALUES.getHitCount(),
+                        FIELD_VALUES.getHitCount() + FIELD_VALUES.getMissCount(),
+                        FIELD_VALUES.size()));
+    }
+
+
+    /**
+     * Retrieves the most recently created runs and returns the highest of their IDs.
+     * Run IDs are assigned in ascending order, so the highest ID is among the newest runs.
+     * If the runs cannot be retrieved, the default upper bound is returned.
+     *
+     * @return the highest run ID
+     */
+    private int probeUpperBound()
+    {
+        final String url = String.format(
+                               EnaFastqConstants.NEWEST_RUNS_URL,
+                               StreamingHttpRequester.encodeUrlParameter(String.format(EnaFastqConstants.RUN_PREFIX_QUERY, accessionPrefix)),
+                               EnaFastqConstants.NEWEST_RUNS_LIMIT);
+        int highestId = 0;
+
+        try
+            (BufferedReader reader = new BufferedReader(
+                                         new InputStreamReader(streamingHttpRequester.getInputStreamFromUrl(url), StandardCharsets.UTF_8))) {
+            String line;
+
+            // the first line is the header, which is not a valid run accession
+            while ((line = reader.readLine()) != null) {
+                final Integer runId = parseRunId(line.trim());
+
+                if (runId != null && runId > highestId)
+                    highestId = runId;
+            }
+        } catch (final IOException e) {
+            LOGGER.warn(String.format(
+                            EnaFastqConstants.UPPER_BOUND_PROBE_FAILED,
+                            accessionPrefix,
+                            accessionPrefix,
+                            EnaFastqConstants.FASTQ_DOCUMENT_COUNT,
+                            e.getMessage()));
+            return EnaFastqConstants.FASTQ_DOCUMENT_COUNT;
+        }
+
+        if (highestId == 0) {
+            LOGGER.warn(String.format(
+                            EnaFastqConstants.UPPER_BOUND_PROBE_FAILED,
+                            accessionPrefix,
+                            accessionPrefix,
+                            EnaFastqConstants.FASTQ_DOCUMENT_COUNT,
+                            EnaFastqConstants.NO_RUNS_FOUND));
+            return EnaFastqConstants.FASTQ_DOCUMENT_COUNT;
+        }
+
+        LOGGER.info(String.format(EnaFastqConstants.UPPER_BOUND_PROBED, accessionPrefix, accessionPrefix, highestId));
+        return highestId;
+    }
+
+
+    /**
+     * Parses the ID of a run from its accession.
+     *
+     * @param runAccession the accession of a run
+     *
+     * @return the ID of the run, or null if the accession is invalid or has a different prefix
+     */
+    private Integer parseRunId(final String runAccession)
+    {
+        if (runAccession == null || !runAccession.startsWith(accessionPrefix))
+            return null;
+
+        try {
+            return Integer.valueOf(runAccession.substring(accessionPrefix.length()));
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+    }
+
+
+    /**
+     * Returns the highest ID that has the same number of digits as a specified ID.
+     * Run accessions have at least six digits, and are only comparable by the
+     * portal API if they have the same number of digits.
+     *
+     * @param id a run ID
+     *
+     * @return the highest run ID with the same number of digits
+     */
+    private static int getHighestIdOfSameWidth(final int id)
+    {
+        long widthLimit = EnaFastqConstants.MIN_ID_WIDTH_LIMIT;
+
+        while (widthLimit <= id)
+            widthLimit *= 10;
+
+        return (int) Math.min(Integer.MAX_VALUE, widthLimit - 1);
+    }
+
+
+    /**
+     * Reads the date on which the last complete harvest started.
+     *
+     * @return the date of the last complete harvest in ISO format,
+     *          or null if all runs are to be harvested
+     */
+    private String loadHighWaterMark()
+    {
+        try {
+            if (!Files.exists(highWaterMarkPath)) {
+                LOGGER.info(String.format(EnaFastqConstants.HIGH_WATER_MARK_MISSING, accessionPrefix));
+                return null;
+            }
+
+            final String date = new String(Files.readAllBytes(highWaterMarkPath), StandardCharsets.UTF_8).trim();
+            LocalDate.parse(date);
+
+            LOGGER.info(String.format(EnaFastqConstants.HIGH_WATER_MARK_LOADED, accessionPrefix, date));
+            return date;
+        } catch (final IOException | DateTimeParseException e) {
+            LOGGER.warn(String.format(EnaFastqConstants.HIGH_WATER_MARK_ERROR, accessionPrefix, e.getMessage()));
+            return null;
+        }
+    }
+
+
+    /**
+     * Stores the date on which the last complete harvest started.
+     * The file is replaced atomically, so an interrupted write cannot corrupt it.
+     *
+     * @param date the date in ISO format
+     */
+    private void saveHighWaterMark(final String date)
+    {
+        try {
+            final Path parentPath = highWaterMarkPath.toAbsolutePath().getParent();
+
+            if (parentPath != null)
+                Files.createDirectories(parentPath);
+
+            final Path tempPath = highWaterMarkPath.resolveSibling(highWaterMarkPath.getFileName() + EnaConstants.TEMP_FILE_SUFFIX);
+            Files.write(tempPath, Collections.singletonList(date), StandardCharsets.UTF_8);
+            Files.move(tempPath, highWaterMarkPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            LOGGER.warn(String.format(EnaFastqConstants.HIGH_WATER_MARK_ERROR, accessionPrefix, e.getMessage()));
+        }
+    }
+
+
+    /**
+     * Retrieves the number of runs that were updated since the last complete harvest.
+     *
+     * @return the number of updated runs, or -1 if it could not be retrieved
+     */
+    private int countUpdatedRuns()
+    {
+        final String count = fingerprinter.getCount(
+                                 EnaFastqConstants.READ_RUN_RESULT,
+                                 String.format(EnaFastqConstants.UPDATED_RUNS_QUERY, accessionPrefix, highWaterMark));
+        try {
+            return count == null ? -1 : Integer.parseInt(count);
+        } catch (final NumberFormatException e) {
+            return -1;
+        }
+    }
+
+
+    /**
+     * Retrieves tab-separated runs and passes them one by one to a consumer,
+     * without creating {@linkplain String}s for columns that are not part of the runs.
+     *
+     * @param url the URL of the runs
+     * @param runConsumer a consumer of the retrieved runs
+     *
+     * @throws IOException if the runs could not be retrieved
+     *
+     * @return the number of retrieved runs
+     */
+    private int readRuns(final String url, final Consumer<EnaFastqVO> runConsumer) throws IOException
+    {
+        int runCount = 0;
+
+        try
+            (TsvReader reader = new TsvReader(
+                                    new InputStreamReader(cachingHttpRequester.getInputStreamFromUrl(url), StandardCharsets.UTF_8))) {
+            final EnaFastqTsvMapper runMapper = new EnaFastqTsvMapper(reader, FIELD_VALUES);
+            EnaFastqVO run;
+
+            while ((run = runMapper.read()) != null) {
+                runConsumer.accept(run);
+                runCount++;
+            }
+        }
+
+        return runCount;
+    }
+
+
+    /**
+     * Stops all shard workers.
+     */
+    private void shutdownExecutor()
+    {
+        if (shardExecutor != null) {
+            shardExecutor.shutdownNow();
+            shardExecutor = null;
+        }
+    }
+
+
+    /**
+     * Loads the run IDs that were absent during previous harvests.
+     * If they cannot be loaded, all run IDs are requested.
+     *
+     * @param timeToLive the number of milliseconds after which absent run IDs expire
+     */
+    private void loadAbsentIds(final long timeToLive)
+    {
+        try {
+            absentIds.load(timeToLive);
+            LOGGER.info(String.format(EnaFastqConstants.ABSENT_IDS_LOADED, accessionPrefix, absentIds.size()));
+        } catch (final IOException e) {
+            LOGGER.warn(String.format(EnaFastqConstants.ABSENT_IDS_ERROR, accessionPrefix, e.getMessage()));
+        }
+    }
+
+
+    /**
+     * Saves the run IDs that are known to be absent, so they can
+     * be skipped by the next harvest.
+     */
+    private void saveAbsentIds()
+    {
+        try {
+            absentIds.save();
+        } catch (final IOException e) {
+            LOGGER.warn(String.format(EnaFastqConstants.ABSENT_IDS_ERROR, accessionPrefix, e.getMessage()));
+        }
+    }
+
+
+    /**
+     * This iterator stores the date on which the harvest started, as soon as
+     * all runs were retrieved. The next incremental harvest only retrieves
+     * runs that were updated since that date. If any run could not be retrieved,
+     * the date of the previous harvest is kept, so the next harvest requests
+     * the missed runs again.
+     *
+     * @author Robin Weiss
+     */
+    private class HighWaterMarkIterator implements Iterator<EnaFastqVO>
+    {
+        private final Iterator<EnaFastqVO> runs;
+        private final String harvestStartDate;
+        private boolean isComplete;
+
+
+        /**
+         * Constructor.
+         *
+         * @param runs the iterator of all retrieved runs
+         * @param harvestStartDate the date on which the harvest started, in ISO format
+         */
+        public HighWaterMarkIterator(final Iterator<EnaFastqVO> runs, final String harvestStartDate)
+        {
+            this.runs = runs;
+            this.harvestStartDate = harvestStartDate;
+        }
+
+
+        @Override
+        public boolean hasNext()
+        {
+            final boolean hasNext = runs.hasNext();
+
+            if (!hasNext && !isComplete) {
+                isComplete = true;
+                final int failedCount = failedRequestCount.get();
+
+                if (failedCount == 0)
+                    saveHighWaterMark(harvestStartDate);
+                else
+                    LOGGER.warn(String.format(EnaFastqConstants.HIGH_WATER_MARK_KEPT, accessionPrefix, failedCount));
+            }
+
+            return hasNext;
+        }
+
+
+        @Override
+        public EnaFastqVO next()
+        {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            return runs.next();
+        }
+    }
+
+
+    /**
+     * This iterator retrieves all runs that were updated since a specified date,
+     * in pages of the ENA Portal API search.
+     *
+     * @author Robin Weiss
+     */
+    private class UpdatedRunIterator implements Iterator<EnaFastqVO>
+    {
+        private final Deque<EnaFastqVO> page = new ArrayDeque<>();
+        private final String updatedSince;
+        private final String query;
+        private final int limit;
+        private int offset;
+        private boolean isExhausted;
+
+
+        /**
+         * Constructor.
+         *
+         * @param updatedSince the date in ISO format, since which the runs were updated
+         */
+        public UpdatedRunIterator(final String updatedSince)
+        {
+            this.updatedSince = updatedSince;
+            this.query = StreamingHttpRequester.encodeUrlParameter(
+                             String.format(EnaFastqConstants.UPDATED_RUNS_QUERY, accessionPrefix, updatedSince));
+            this.limit = pageSize > 0 ? pageSize : EnaFastqConstants.UPDATED_RUNS_PAGE_SIZE;
+        }
+
+
+        @Override
+        public boolean hasNext()
+        {
+            while (page.isEmpty() && !isExhausted)
+                retrievePage();
+
+            return !page.isEmpty();
+        }
+
+
+        @Override
+        public EnaFastqVO next()
+        {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            return page.poll();
+        }
+
+
+        /**
+         * Retrieves the next page of updated runs.
+         *
+         * @throws ExtractorException if the runs could not be retrieved
+         */
+        private void retrievePage()
+        {
+            final String url = String.format(EnaFastqConstants.FASTQ_PAGE_URL, query, offset, limit);
+
+            try {
+                final int runCount = readRuns(url, (final EnaFastqVO run) -> {
+                    if (run != null)
+                        page.add(run);
+                });
+
+                offset += runCount;
+                isExhausted = runCount < limit;
+            } catch (final IOException e) {
+                throw new ExtractorException(
+                    String.format(EnaFastqConstants.UPDATED_RUNS_ERROR, accessionPrefix, updatedSince, e.getMessage()),
+                    e);
+            }
+        }
+    }
+
+
+    /**
+     * This iterator splits the run IDs into contiguous shards and harvests
+     * them in parallel. Each shard is harvested by a worker thread that passes
+     * its runs to a bounded queue, from which this iterator reads.
+     * The runs are returned in the order in which they are retrieved.
+     * Failures are not queued, but stored separately, so they cannot be lost
+     * when the queue is full. Every worker queues the end of its shard, even if it failed.
+     *
+     * @author Robin Weiss
+     */
+    private class ShardedIterator implements Iterator<EnaFastqVO>
+    {
+        private final BlockingQueue<ShardItem> queue;
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        private int runningShardCount;
+        private EnaFastqVO nextRun;
+
+
+        /**
+         * Constructor that starts harvesting all shards.
+         */
+        public ShardedIterator()
+        {
+            this.queue = new ArrayBlockingQueue<>(EnaFastqConstants.SHARD_QUEUE_CAPACITY);
+            this.runningShardCount = shardCount;
+
+            for (int i = 0; i < shardCount; i++) {
+                final int fromId = 1 + (int)((long) maxId * i / shardCount);
+                final int toId = (int)((long) maxId * (i + 1) / shardCount);
+                shardExecutor.execute(() -> harvestShard(fromId, toId));
+            }
+        }
+
+
+        @Override
+        public boolean hasNext()
+        {
+            try {
+                while (nextRun == null && runningShardCount > 0) {
+                    throwFailure();
+                    final ShardItem item = queue.take();
+
+                    if (item.getRun() != null)
+                        nextRun = item.getRun();
+                    else
+                        runningShardCount--;
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ExtractorException(e);
+            }
+
+            // the end of a failed shard may be the last item
+            if (nextRun == null)
+                throwFailure();
+
+            return nextRun != null;
+        }
+
+
+        @Override
+        public EnaFastqVO next()
+        {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            final EnaFastqVO run = nextRun;
+            nextRun = null;
+            return run;
+        }
+
+
+        /**
+         * Throws the first failure of a shard, if there was one.
+         *
+         * @throws ExtractorException if a shard failed
+         */
+        private void throwFailure()
+        {
+            final RuntimeException shardFailure = failure.get();
+
+            if (shardFailure != null)
+                throw new ExtractorException(shardFailure);
+        }
+
+
+        /**
+         * Harvests all runs of a shard and passes them to the queue.
+         * This method is executed by a worker thread.
+         *
+         * @param fromId the first run ID of the shard
+         * @param toId the last run ID of the shard
+         */
+        private void harvestShard(final int fromId, final int toId)
+        {
+            try {
+                LOGGER.info(String.format(
+                                EnaFastqConstants.SHARD_STARTED,
+                                accessionPrefix,
+                                String.format(EnaFastqConstants.SHARD_NAME, accessionPrefix, fromId, toId)));
+
+                final EnaFastqIterator shardIterator = new EnaFastqIterator(fromId, toId, true);
+
+                while (shardIterator.hasNext())
+                    queue.put(new ShardItem(shardIterator.next()));
+
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (final RuntimeException e) { // NOPMD all failures must be passed to the consumer
+                failure.compareAndSet(null, e);
+            } finally {
+                endShard();
+            }
+        }
+
+
+        /**
+         * Passes the end of a shard to the queue, so the consumer stops waiting for it.
+         * If the worker was interrupted, the harvest is being aborted and the consumer may
+         * no longer take items, so the end is only passed if the queue has free space.
+         */
+        private void endShard()
+        {
+            final ShardItem endItem = new ShardItem(null);
+
+            if (!Thread.currentThread().isInterrupted()) {
+                try {
+                    queue.put(endItem);
+                    return;
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            queue.offer(endItem);
+        }
+    }
+
+
+    /**
+     * This class represents an item that is passed from a shard worker to
+     * the consumer. An item is either a harvested run, or the end of the shard.
+     *
+     * @author Robin Weiss
+     */
+    private static class ShardItem
+    {
+        private final EnaFastqVO run;
+
+
+        /**
+         * Constructor.
+         *
+         * @param run a harvested run, or null if the shard ended
+         */
+        public ShardItem(final EnaFastqVO run)
+        {
+            this.run = run;
+        }
+
+
+        /**
+         * Returns the harvested run.
+         *
+         * @return the harvested run, or null if this item is no run
+         */
+        public EnaFastqVO getRun()
+        {
+            return run;
+        }
     }
 
 
@@ -93,30 +772,250 @@ public class EnaFastqExtractor extends AbstractIteratorExtractor<EnaFastqVO>
      * This class represents an {@linkplain Iterator} that iterates through
      * {@linkplain EnaFastqVO}s used for harvesting Ena Fastq datasets by
      * trying out all IDs in a range of 000000 to 999999.
+     * If a page size is set, the runs of consecutive IDs are retrieved in
+     * pages via the ENA Portal API search, instead of one request per ID.
+     * IDs without runs are not returned, but are added to the number of harvested
+     * documents, and if enabled, they are remembered and skipped during subsequent
+     * harvests. IDs of which the request failed are not remembered. Each iterator covers a range of IDs,
+     * and can log its progress in steps of ten percent.
      *
      * @author Komal Ahir
      * @author Robin Weiss
      */
     private class EnaFastqIterator implements Iterator<EnaFastqVO>
     {
-        private int id = 1;
+        private final Map<Integer, EnaFastqVO> page = new HashMap<>();
+        private final StringBuilder urlBuilder = new StringBuilder();
+        private final int fromId;
+        private final int toId;
+        private final boolean isReportingProgress;
+        private int id;
+        private int pageEndId;
+        private int reportedPercentage;
+        private EnaFastqVO nextRun;
+
+
+        /**
+         * Constructor.
+         *
+         * @param fromId the first run ID that is harvested
+         * @param toId the last run ID that is harvested
+         * @param isReportingProgress if true, the progress of the iteration is logged
+         */
+        public EnaFastqIterator(final int fromId, final int toId, final boolean isReportingProgress)
+        {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.isReportingProgress = isReportingProgress;
+            this.id = fromId;
+            this.pageEndId = fromId - 1;
+        }
 
 
         @Override
         public boolean hasNext()
         {
-            return id <= size();
+            while (nextRun == null && id <= toId) {
+                final int previousId = id;
+                nextRun = retrieveRun();
+
+                // absent IDs may be skipped beyond the end of the range
+                final int idsWithoutRun = Math.min(id, toId + 1) - previousId - (nextRun == null ? 0 : 1);
+
+                if (idsWithoutRun > 0)
+                    dedicatedEtl.increaseHarvestedDocuments(idsWithoutRun);
+
+                if (isReportingProgress)
+                    reportProgress();
+            }
+
+            return nextRun != null;
         }
 
 
         @Override
         public EnaFastqVO next()
         {
-            final String url = String.format(EnaFastqConstants.FASTQ_JSON_URL, accessionPrefix, id);
-            final List<EnaFastqVO> voList = httpRequester.getObjectFromUrl(url, EnaFastqConstants.JSON_TYPE);
-            id++;
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            final EnaFastqVO run = nextRun;
+            nextRun = null;
+            return run;
+        }
+
+
+        /**
+         * Retrieves the run of the current ID and advances to the next ID.
+         *
+         * @return the run of the current ID, or null if no such run exists
+         */
+        private EnaFastqVO retrieveRun()
+        {
+            if (isSkippingAbsentIds) {
+                // jump over all IDs that are known to be absent at once
+                id = absentIds.nextUnknownId(id);
+
+                if (id > toId)
+                    return null;
+            }
+
+            EnaFastqVO run;
+            boolean isAbsent;
+
+            if (pageSize > 0) {
+                run = nextFromPage();
+                isAbsent = run == null;
+
+            } else if (isSkippingAbsentIds || isHarvestingIncrementally) {
+                // only successful responses without a run prove that the ID is absent,
+                // and failed requests must not let the high-water mark advance
+                final String url = getRunUrl(id);
+                id++;
+
+                try {
+                    run = requestRun(url);
+                    isAbsent = run == null;
+                } catch (final IOException e) {
+                    LOGGER.warn(String.format(EnaFastqConstants.RUN_REQUEST_FAILED, accessionPrefix, url, e.getMessage()));
+                    failedRequestCount.incrementAndGet();
+                    run = null;
+                    isAbsent = false;
+                }
+
+            } else {
+                final String url = getRunUrl(id);
+                final List<EnaFastqVO> voList = cachingHttpRequester.isEnabled()
+                                                ? cachingHttpRequester.getObjectFromUrl(url, EnaFastqConstants.JSON_TYPE)
+                                                : httpRequester.getObjectFromUrl(url, EnaFastqConstants.JSON_TYPE);
+                run = voList == null || voList.isEmpty() ? null : voList.get(0);
+                isAbsent = false;
+                id++;
+            }
+
+            if (isAbsent && isSkippingAbsentIds) {
+                absentIds.add(id - 1);
+
+                if ((id - 1) % EnaFastqConstants.ABSENT_IDS_SAVE_INTERVAL == 0)
+                    saveAbsentIds();
+            }
+
+            return run;
+        }
+
+
+        /**
+         * Requests a single run, failing on all unsuccessful responses, so that
+         * missing runs can be told apart from failed requests.
+         *
+         * @param url the URL of the run
+         *
+         * @throws IOException if the request failed, or the response could not be parsed
+         *
+         * @return the run, or null if the response contains no run
+         */
+        private EnaFastqVO requestRun(final String url) throws IOException
+        {
+            try
+                (Reader responseReader = new InputStreamReader(cachingHttpRequester.getInputStreamFromUrl(url), StandardCharsets.UTF_8)) {
+                final List<EnaFastqVO> voList = gson.fromJson(responseReader, EnaFastqConstants.JSON_TYPE);
+                return voList == null || voList.isEmpty() ? null : voList.get(0);
+            } catch (final JsonParseException e) {
+                throw new IOException(e);
+            }
+        }
+
+
+        /**
+         * Assembles the URL of a single run, reusing the same buffer for all URLs.
+         *
+         * @param runId the ID of the run
+         *
+         * @return the URL of the run
+         */
+        private String getRunUrl(final int runId)
+        {
+            urlBuilder.setLength(0);
+            urlBuilder.append(EnaFastqConstants.FASTQ_JSON_URL_PREFIX);
+            AccessionCodec.appendTo(AccessionCodec.withNumber(runAccessionCode, runId), urlBuilder);
+            return urlBuilder.append(EnaFastqConstants.FASTQ_JSON_URL_SUFFIX).toString();
+        }
+
+
+        /**
+         * Logs every tenth percent of the iterated run IDs.
+         */
+        private void reportProgress()
+        {
+            final int percentage = (int)(100L * (id - fromId) / (1 + toId - fromId));
+
+            if (percentage >= reportedPercentage + EnaFastqConstants.SHARD_PROGRESS_STEP) {
+                reportedPercentage = percentage - percentage % EnaFastqConstants.SHARD_PROGRESS_STEP;
+                LOGGER.info(String.format(
+                                EnaFastqConstants.SHARD_PROGRESS,
+                                accessionPrefix,
+                                String.format(EnaFastqConstants.SHARD_NAME, accessionPrefix, fromId, toId),
+                                reportedPercentage));
+            }
+        }
+
+
+        /**
+         * Returns the run of the current ID from the current page, retrieving
+         * the next page if the current ID is not covered by the current page.
+         *
+         * @return the run of the current ID, or null if no such run exists
+         */
+        private EnaFastqVO nextFromPage()
+        {
+            if (id > pageEndId) {
+                // pages must not span accessions with different numbers of digits
+                pageEndId = Math.min(Math.min(toId, id + pageSize - 1), getHighestIdOfSameWidth(id));
+                page.clear();
+                retrievePage(id, pageEndId);
+            }
+
+            return page.remove(id++);
+        }
+
+
+        /**
+         * Retrieves all runs within a range of IDs and stores them in the page,
+         * mapping the tab-separated response one line at a time. If the range contains more
+         * runs than the page size, the remaining runs are retrieved with offsets.
+         *
+         * @param firstId the first ID of the range
+         * @param lastId the last ID of the range
+         *
+         * @throws ExtractorException if the runs could not be retrieved
+         */
+        private void retrievePage(final int firstId, final int lastId)
+        {
+            final String query = StreamingHttpRequester.encodeUrlParameter(
+                                     String.format(EnaFastqConstants.FASTQ_RANGE_QUERY, accessionPrefix, firstId, lastId));
+            int offset = 0;
+
+            try {
+                while (true) {
+                    final String url = String.format(EnaFastqConstants.FASTQ_PAGE_URL, query, offset, pageSize);
+                    final int runCount = readRuns(url, (final EnaFastqVO run) -> {
+                        final Integer runId = parseRunId(run == null ? null : run.getRunAccession());
+
+                        // longer accessions with the same leading digits are within the queried range, too
+                        if (runId != null && runId >= firstId && runId <= lastId)
+                            page.put(runId, run);
+                    });
+
+                    if (runCount < pageSize)
+                        break;
 
-            return voList == null || voList.isEmpty() ? null : voList.get(0);
+                    offset += runCount;
+                }
+            } catch (final IOException e) {
+                throw new ExtractorException(
+                    String.format(EnaFastqConstants.FASTQ_PAGE_ERROR, accessionPrefix, firstId, accessionPrefix, lastId, e.getMessage()),
+                    e);
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -18,11 +18,35 @@ package de.gerdiproject.harvest.etls.extractors;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
 
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
 
 import de.gerdiproject.harvest.application.MainContextUtils;
 import de.gerdiproject.harvest.ena.constants.EnaConstants;
@@ -30,27 +54,64 @@ import de.gerdiproject.harvest.ena.constants.EnaTaxonConstants;
 import de.gerdiproject.harvest.etls.AbstractETL;
 import de.gerdiproject.harvest.etls.EnaTaxonETL;
 import de.gerdiproject.harvest.etls.extractors.vos.EnaReferenceVO;
+import de.gerdiproject.harvest.etls.extractors.vos.EnaReferenceVOAdapter;
 import de.gerdiproject.harvest.etls.extractors.vos.EnaTaxonVO;
-import de.gerdiproject.harvest.utils.DiskCollection;
+import de.gerdiproject.harvest.utils.AdaptiveBatchSizer;
+import de.gerdiproject.harvest.utils.CachingHttpRequester;
+import de.gerdiproject.harvest.utils.DiskQueue;
+import de.gerdiproject.harvest.utils.IntBitmap;
+import de.gerdiproject.harvest.utils.PortalFingerprinter;
+import de.gerdiproject.harvest.utils.TaxonomyDumpReader;
 import de.gerdiproject.harvest.utils.data.HttpRequester;
+import de.gerdiproject.json.GsonUtils;
 
 
 /**
  * This extractor extracts all taxon metadata from ENA. Taxa are stored
  * in a tree structure, which is traversed non-deterministically by this
- * extractor.
+ * extractor. The number of taxa that are requested at once is adapted
+ * to the response times of previous requests. Each taxon is queued at most
+ * once, because all queued taxon IDs are remembered in a compressed bitmap.
+ * The references of a batch of taxa can be requested in parallel, as soon
+ * as the batch was retrieved, and multiple batches can be crawled in parallel.
+ * Alternatively, all taxa can be read from a local taxonomy dump.
  *
  * @author Robin Weiss
  */
 public class EnaTaxonExtractor extends AbstractIteratorExtractor<EnaTaxonVO>
 {
-    protected final DiskCollection taxonIDs = new DiskCollection(
+    private static final Logger LOGGER = LoggerFactory.getLogger(EnaTaxonExtractor.class);
+
+    protected final DiskQueue taxonIDs = new DiskQueue(
         new File(
             MainContextUtils.getCacheDirectory(EnaTaxonExtractor.class),
             EnaTaxonConstants.QUEUE_FOLDER));
-    protected final HttpRequester httpRequester = new HttpRequester();
+    protected final IntBitmap visitedTaxonIds = new IntBitmap(
+        new File(
+            MainContextUtils.getCacheDirectory(EnaTaxonExtractor.class),
+            EnaTaxonConstants.VISITED_FILE));
+    protected final Gson gson = GsonUtils.createGerdiDocumentGsonBuilder()
+                                     .registerTypeAdapter(EnaReferenceVO.class, new EnaReferenceVOAdapter())
+                                     .create();
+    protected final HttpRequester httpRequester = new HttpRequester(gson, StandardCharsets.UTF_8);
+    protected final PortalFingerprinter fingerprinter = new PortalFingerprinter();
+    protected final CachingHttpRequester cachingHttpRequester = new CachingHttpRequester(
+        new File(
+            MainContextUtils.getCacheDirectory(EnaTaxonExtractor.class),
+            EnaConstants.HTTP_CACHE_FOLDER),
+        gson);
+
+    // taxa that were removed from the queue, but were not returned by the iterator yet
+    protected final Set<String> pendingTaxonIds = ConcurrentHashMap.newKeySet();
 
     protected int batchSize;
+    protected boolean isResumingCrawl;
+    protected int prefetchDepth;
+    protected int crawlWorkerCount;
+    protected String taxonomyDumpPath;
+    private TaxonomyDumpReader dumpReader;
+    private ExecutorService referenceExecutor;
+    private ExecutorService crawlExecutor;
 
 
     @Override
@@ -58,14 +119,26 @@ public class EnaTaxonExtractor extends AbstractIteratorExtractor<EnaTaxonVO>
     {
         super.init(etl);
         this.httpRequester.setCharset(etl.getCharset());
-
-        try {
-            this.taxonIDs.clear();
-        } catch (IOException e) {
-            throw new ExtractorException(e);
-        }
+        this.cachingHttpRequester.setCharset(etl.getCharset());
+        this.cachingHttpRequester.setMaxCacheSize(((EnaTaxonETL)etl).getHttpCacheSize() * EnaConstants.BYTES_PER_MEGABYTE);
 
         this.batchSize = ((EnaTaxonETL)etl).getBatchSize();
+        this.isResumingCrawl = ((EnaTaxonETL)etl).isResumingCrawl();
+        this.prefetchDepth = ((EnaTaxonETL)etl).getPrefetchDepth();
+        this.crawlWorkerCount = Math.min(
+                                    Math.max(1, ((EnaTaxonETL)etl).getCrawlWorkerCount()),
+                                    EnaTaxonConstants.MAX_CRAWL_WORKERS);
+        this.taxonomyDumpPath = ((EnaTaxonETL)etl).getTaxonomyDumpPath();
+        this.pendingTaxonIds.clear();
+
+        if (!isResumingCrawl || !loadCrawlState()) {
+            try {
+                this.taxonIDs.clear();
+                this.visitedTaxonIds.clear();
+            } catch (final IOException e) {
+                throw new ExtractorException(e);
+            }
+        }
     }
 
 
@@ -79,26 +152,371 @@ public class EnaTaxonExtractor extends AbstractIteratorExtractor<EnaTaxonVO>
     @Override
     public String getUniqueVersionString()
     {
-        // it's not feasible to calculate the hash, because there is no overall version
-        return null;
+        // an interrupted crawl must be resumed, even if nothing changed
+        try {
+            if (!taxonIDs.isEmpty())
+                return null;
+        } catch (final IOException e) {
+            return null;
+        }
+
+        // the number of taxa and their newest update date change with every added, removed, or updated taxon
+        return fingerprinter.getFingerprint(EnaTaxonConstants.TAXON_RESULT, EnaTaxonConstants.TAXON_TREE_QUERY);
     }
 
 
     @Override
     protected Iterator<EnaTaxonVO> extractAll() throws ExtractorException
     {
-        return new EnaTaxonIterator();
+        shutdownExecutors();
+
+        if (prefetchDepth > 0)
+            this.referenceExecutor = Executors.newFixedThreadPool(prefetchDepth);
+
+        if (taxonomyDumpPath != null)
+            return new TaxonomyDumpIterator();
+
+        try {
+            enqueue(EnaTaxonConstants.TAXON_ROOT_ID);
+        } catch (final IOException e) {
+            throw new ExtractorException(e);
+        }
+
+        if (crawlWorkerCount == 1)
+            return new EnaTaxonIterator();
+
+        this.crawlExecutor = Executors.newFixedThreadPool(crawlWorkerCount);
+        return new ParallelCrawlIterator();
     }
 
 
     @Override
     public void clear()
     {
+        final boolean areWorkersStopped = shutdownExecutors();
+        closeDumpReader();
+
+        try {
+            // an interrupted crawl leaves taxa in the queue, or taxa that were retrieved but not returned
+            if (isResumingCrawl && (!taxonIDs.isEmpty() || !pendingTaxonIds.isEmpty())) {
+                // workers that are still running could change the queue while it is saved
+                if (areWorkersStopped) {
+                    for (final String taxonId : pendingTaxonIds)
+                        taxonIDs.add(taxonId);
+
+                    saveCrawlState();
+                    taxonIDs.close();
+                } else
+                    LOGGER.warn(String.format(
+                                    EnaTaxonConstants.CRAWL_SHUTDOWN_TIMEOUT_ERROR,
+                                    EnaTaxonExtractor.class.getSimpleName(),
+                                    EnaTaxonConstants.CRAWL_SHUTDOWN_TIMEOUT));
+            } else {
+                this.taxonIDs.clear();
+                this.visitedTaxonIds.clear();
+            }
+        } catch (final IOException e) {
+            LOGGER.warn(String.format(EnaTaxonConstants.CRAWL_STATE_ERROR, EnaTaxonExtractor.class.getSimpleName(), e.getMessage()));
+        }
+
+        pendingTaxonIds.clear();
+
+        if (cachingHttpRequester.isEnabled())
+            LOGGER.info(String.format(
+                            EnaConstants.HTTP_CACHE_STATISTICS,
+                            EnaTaxonExtractor.class.getSimpleName(),
+                            cachingHttpRequester.getHitCount(),
+                            cachingHttpRequester.getMissCount()));
+    }
+
+
+    /**
+     * Stops all crawl workers and reference requests. Crawl workers may be waiting
+     * for HTTP responses, which cannot be interrupted, so this method waits until
+     * they are finished. Reference requests are stopped afterwards, because the
+     * crawl workers may wait for them, too.
+     *
+     * @return true if all crawl workers were stopped
+     */
+    private boolean shutdownExecutors()
+    {
+        boolean areWorkersStopped = true;
+
+        if (crawlExecutor != null) {
+            crawlExecutor.shutdownNow();
+
+            try {
+                areWorkersStopped = crawlExecutor.awaitTermination(EnaTaxonConstants.CRAWL_SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                areWorkersStopped = false;
+            }
+
+            crawlExecutor = null;
+        }
+
+        if (referenceExecutor != null) {
+            referenceExecutor.shutdownNow();
+            referenceExecutor = null;
+        }
+
+        return areWorkersStopped;
+    }
+
+
+    /**
+     * Closes the taxonomy dump, if it is being read.
+     */
+    private void closeDumpReader()
+    {
+        if (dumpReader != null) {
+            try {
+                dumpReader.close();
+            } catch (final IOException e) {
+                LOGGER.warn(String.format(EnaTaxonConstants.DUMP_ERROR, taxonomyDumpPath));
+            }
+
+            dumpReader = null;
+        }
+    }
+
+
+    /**
+     * Adds a taxon ID to the queue, unless it was queued before.
+     *
+     * @param taxonId the ID of the taxon that is to be harvested
+     *
+     * @throws IOException if the taxon ID could not be queued
+     */
+    private void enqueue(final String taxonId) throws IOException
+    {
+        if (visitedTaxonIds.add(Integer.parseInt(taxonId)))
+            taxonIDs.add(taxonId);
+    }
+
+
+    /**
+     * Removes up to a specified number of taxon IDs from the queue.
+     *
+     * @param maxCount the maximum number of taxon IDs to be removed
+     *
+     * @return a list of taxon IDs that were removed from the queue
+     */
+    private List<String> pollTaxonIds(final int maxCount)
+    {
+        final List<String> batchIds = new ArrayList<>(maxCount);
+
         try {
-            this.taxonIDs.clear();
-        } catch (IOException ignored) {
-            // do nothing
+            String taxonId;
+
+            while (batchIds.size() < maxCount && (taxonId = taxonIDs.get()) != null)
+                batchIds.add(taxonId);
+
+        } catch (final IOException e) {
+            throw new ExtractorException(e);
         }
+
+        pendingTaxonIds.addAll(batchIds);
+        return batchIds;
+    }
+
+
+    /**
+     * Retrieves the XML of a batch of taxa, and queues the children of all retrieved taxa,
+     * so they can be crawled before the taxa are processed. If the request fails, the taxa
+     * are queued again, so they can be requested in smaller batches.
+     *
+     * @param batchIds the IDs of the taxa that are to be retrieved
+     * @param batchSizer the batch sizer that is notified about the response time
+     *
+     * @throws ExtractorException if a single taxon could not be retrieved
+     *
+     * @return the XML elements of the retrieved taxa, or null if the request failed
+     */
+    private Elements retrieveTaxa(final List<String> batchIds, final AdaptiveBatchSizer batchSizer)
+    {
+        final String xmlUrl = String.format(EnaTaxonConstants.XML_URL, String.join(",", batchIds));
+
+        final long startTime = System.currentTimeMillis();
+        final Document taxaXml = cachingHttpRequester.isEnabled()
+                                 ? cachingHttpRequester.getHtmlFromUrl(xmlUrl)
+                                 : httpRequester.getHtmlFromUrl(xmlUrl);
+        final long latency = System.currentTimeMillis() - startTime;
+
+        final Element taxonSet = taxaXml == null
+                                 ? null
+                                 : taxaXml.selectFirst(EnaTaxonConstants.SET_ELEMENT);
+
+        try {
+            if (taxonSet != null) {
+                final Elements taxa = taxonSet.children();
+                batchSizer.onBatchRetrieved(batchIds.size(), taxa.size(), latency, -1);
+
+                // only the taxa that were part of the response remain pending
+                pendingTaxonIds.removeAll(batchIds);
+
+                for (final Element taxon : taxa) {
+                    pendingTaxonIds.add(taxon.attr(EnaTaxonConstants.TAXON_ID_ATTRIBUTE));
+                    final Element children = taxon.selectFirst(EnaTaxonConstants.CHILDREN_ELEMENT);
+
+                    if (children != null) {
+                        for (final Element child : children.children())
+                            enqueue(child.attr(EnaTaxonConstants.TAXON_ID_ATTRIBUTE));
+                    }
+                }
+
+                return taxa;
+            }
+
+            // re-queue the taxa, so they can be retrieved in smaller batches
+            for (final String taxonId : batchIds)
+                taxonIDs.add(taxonId);
+
+            pendingTaxonIds.removeAll(batchIds);
+
+        } catch (final IOException e) {
+            throw new ExtractorException(e);
+        }
+
+        if (batchIds.size() == 1)
+            throw new ExtractorException(String.format(EnaConstants.URL_ERROR, xmlUrl));
+
+        batchSizer.onBatchFailed();
+        return null;
+    }
+
+
+    /**
+     * Requests the references of all taxa of a batch in parallel, if a prefetch depth is set.
+     * The futures are queued in the same order as the taxa.
+     *
+     * @param batch the XML elements of the retrieved taxa
+     *
+     * @return the pending reference requests, or an empty queue if there is no prefetch depth
+     */
+    private Deque<CompletableFuture<List<EnaReferenceVO>>> requestReferences(final Elements batch)
+    {
+        final Deque<CompletableFuture<List<EnaReferenceVO>>> pendingReferences = new ArrayDeque<>();
+
+        if (referenceExecutor != null) {
+            for (final Element taxonElement : batch) {
+                final String taxonId = taxonElement.attr(EnaTaxonConstants.TAXON_ID_ATTRIBUTE);
+                pendingReferences.add(CompletableFuture.supplyAsync(() -> getReferences(taxonId), referenceExecutor));
+            }
+        }
+
+        return pendingReferences;
+    }
+
+
+    /**
+     * Assembles a taxon out of its XML element and its references. The references
+     * are either taken from the pending requests, or requested now.
+     *
+     * @param taxonElement the XML element of the taxon
+     * @param pendingReferences the pending reference requests of the batch
+     *
+     * @return the taxon
+     */
+    private EnaTaxonVO createTaxon(final Element taxonElement, final Deque<CompletableFuture<List<EnaReferenceVO>>> pendingReferences)
+    {
+        final List<EnaReferenceVO> references = pendingReferences.isEmpty()
+                                                ? getReferences(taxonElement.attr(EnaTaxonConstants.TAXON_ID_ATTRIBUTE))
+                                                : awaitReferences(pendingReferences.poll());
+
+        return new EnaTaxonVO(taxonElement, references);
+    }
+
+
+    /**
+     * Retrieves the references and publications of a taxon.
+     *
+     * @param taxonId the ID of the taxon
+     *
+     * @return a list of references, or null if they could not be retrieved
+     */
+    private List<EnaReferenceVO> getReferences(final String taxonId)
+    {
+        final String refUrl = String.format(EnaTaxonConstants.REFERENCE_URL, taxonId);
+        return cachingHttpRequester.isEnabled()
+               ? cachingHttpRequester.getObjectFromUrl(refUrl, EnaConstants.REFERENCE_LIST_TYPE)
+               : httpRequester.getObjectFromUrl(refUrl, EnaConstants.REFERENCE_LIST_TYPE);
+    }
+
+
+    /**
+     * Waits for the references of a taxon to be retrieved.
+     *
+     * @param futureReferences the pending references request
+     *
+     * @return a list of references, or null if they could not be retrieved
+     */
+    private List<EnaReferenceVO> awaitReferences(final CompletableFuture<List<EnaReferenceVO>> futureReferences)
+    {
+        try {
+            return futureReferences.join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+
+            throw new ExtractorException(e.getCause());
+        }
+    }
+
+
+    /**
+     * Marks a taxon as returned by the iterator, so it is not queued again
+     * when an interrupted crawl is resumed.
+     *
+     * @param taxon the taxon that is returned
+     *
+     * @return the taxon
+     */
+    private EnaTaxonVO onTaxonReturned(final EnaTaxonVO taxon)
+    {
+        pendingTaxonIds.remove(taxon.getXml().attr(EnaTaxonConstants.TAXON_ID_ATTRIBUTE));
+        return taxon;
+    }
+
+
+    /**
+     * Restores the queued and visited taxa of an interrupted crawl.
+     *
+     * @return true if there is an interrupted crawl that can be resumed
+     */
+    private boolean loadCrawlState()
+    {
+        try {
+            if (taxonIDs.isEmpty())
+                return false;
+
+            visitedTaxonIds.load();
+            LOGGER.info(String.format(
+                            EnaTaxonConstants.CRAWL_RESUMED,
+                            EnaTaxonExtractor.class.getSimpleName(),
+                            taxonIDs.size(),
+                            visitedTaxonIds.size()));
+            return true;
+
+        } catch (final IOException e) {
+            LOGGER.warn(String.format(EnaTaxonConstants.CRAWL_STATE_ERROR, EnaTaxonExtractor.class.getSimpleName(), e.getMessage()));
+            return false;
+        }
+    }
+
+
+    /**
+     * Writes the queued and visited taxa to disk. The queue only stores its pointers
+     * at this checkpoint, so after a crash, both are restored to the same crawl state.
+     * The queue is written first, because visited taxa that are missing in the queue
+     * would never be harvested.
+     *
+     * @throws IOException if the queue or the visited taxa could not be written
+     */
+    private void saveCrawlState() throws IOException
+    {
+        taxonIDs.flush();
+        visitedTaxonIds.save();
     }
 
 
@@ -110,86 +528,438 @@ public class EnaTaxonExtractor extends AbstractIteratorExtractor<EnaTaxonVO>
      */
     private class EnaTaxonIterator implements Iterator<EnaTaxonVO>
     {
+        private final AdaptiveBatchSizer batchSizer;
+        private Deque<CompletableFuture<List<EnaReferenceVO>>> pendingReferences;
         private Iterator<Element> cachedDocuments;
+        private int batchCount;
 
 
         /**
-         * Constructor that adds the root element to the queue.
+         * Constructor.
          */
         public EnaTaxonIterator()
+        {
+            this.batchSizer = new AdaptiveBatchSizer(EnaTaxonETL.class.getSimpleName(), batchSize);
+        }
+
+
+        @Override
+        public boolean hasNext()
         {
             try {
-                taxonIDs.add(EnaTaxonConstants.TAXON_ROOT_ID);
-            } catch (IOException e) {
+                return !taxonIDs.isEmpty() || cachedDocuments.hasNext();
+            } catch (final IOException e) {
                 throw new ExtractorException(e);
             }
         }
 
 
+        @Override
+        public EnaTaxonVO next()
+        {
+            if (cachedDocuments == null || !cachedDocuments.hasNext()) {
+                final Elements batch = getNextBatch();
+                this.pendingReferences = requestReferences(batch);
+                this.cachedDocuments = batch.iterator();
+            }
+
+            return onTaxonReturned(createTaxon(cachedDocuments.next(), pendingReferences));
+        }
+
+
+        /**
+         * Retrieves the XML of the next batch of queued taxa. If the request
+         * fails, the taxa are requested in smaller batches.
+         *
+         * @return the XML elements of the retrieved taxa
+         */
+        private Elements getNextBatch()
+        {
+            // all previous batches are processed completely at this point
+            if (isResumingCrawl && ++batchCount % EnaTaxonConstants.VISITED_SAVE_INTERVAL == 0) {
+                try {
+                    saveCrawlState();
+                } catch (final IOException e) {
+                    LOGGER.warn(String.format(EnaTaxonConstants.CRAWL_STATE_ERROR, EnaTaxonExtractor.class.getSimpleName(), e.getMessage()));
+                }
+            }
+
+            while (true) {
+                final Elements taxa = retrieveTaxa(pollTaxonIds(batchSizer.getBatchSize()), batchSizer);
+
+                if (taxa != null)
+                    return taxa;
+            }
+        }
+    }
+
+
+    /**
+     * This iterator crawls the taxonomy with multiple workers, which retrieve batches
+     * of taxa from the same queue. The children of each retrieved batch are queued
+     * before the batch is processed, so idle workers can crawl them right away.
+     * The crawl ends when the queue is empty and no worker is retrieving a batch.
+     * Failures are not queued, but stored separately, so they cannot be lost
+     * when the queue is full. Every worker queues its end, even if it failed.
+     * When the crawl state is to be saved, the workers pause until all retrieved
+     * taxa were returned, so no taxon is pending while the state is saved.
+     *
+     * @author Robin Weiss
+     */
+    private class ParallelCrawlIterator implements Iterator<EnaTaxonVO>
+    {
+        private final AdaptiveBatchSizer batchSizer;
+        private final BlockingQueue<CrawlItem> queue;
+        private final Object frontierLock = new Object();
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        private final CrawlItem checkpointItem = new CrawlItem(null);
+        private int busyWorkerCount;
+        private int runningWorkerCount;
+        private int batchCount;
+        private boolean isCheckpointDue;
+        private boolean isCheckpointQueued;
+        private EnaTaxonVO nextTaxon;
+
+
+        /**
+         * Constructor that starts all crawl workers.
+         */
+        public ParallelCrawlIterator()
+        {
+            this.batchSizer = new AdaptiveBatchSizer(EnaTaxonETL.class.getSimpleName(), batchSize);
+            this.queue = new ArrayBlockingQueue<>(EnaTaxonConstants.CRAWL_QUEUE_CAPACITY);
+            this.runningWorkerCount = crawlWorkerCount;
+
+            for (int i = 0; i < crawlWorkerCount; i++)
+                crawlExecutor.execute(this::crawl);
+        }
+
+
         @Override
         public boolean hasNext()
         {
             try {
-                return !taxonIDs.isEmpty() || cachedDocuments.hasNext();
-            } catch (IOException e) {
+                while (nextTaxon == null && runningWorkerCount > 0) {
+                    throwFailure();
+                    final CrawlItem item = queue.take();
+
+                    if (item == checkpointItem)
+                        saveCheckpoint();
+
+                    else if (item.getTaxon() != null)
+                        nextTaxon = item.getTaxon();
+                    else
+                        runningWorkerCount--;
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
                 throw new ExtractorException(e);
             }
+
+            // the end of a failed worker may be the last item
+            if (nextTaxon == null)
+                throwFailure();
+
+            return nextTaxon != null;
         }
 
 
         @Override
         public EnaTaxonVO next()
         {
-            if (cachedDocuments == null || !cachedDocuments.hasNext())
-                this.cachedDocuments = getNextBatch();
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            final EnaTaxonVO taxon = nextTaxon;
+            nextTaxon = null;
+            return onTaxonReturned(taxon);
+        }
+
+
+        /**
+         * Saves the crawl state and lets the paused workers continue. At this point,
+         * no worker is retrieving a batch, and all retrieved taxa were returned.
+         */
+        private void saveCheckpoint()
+        {
+            try {
+                saveCrawlState();
+            } catch (final IOException e) {
+                LOGGER.warn(String.format(EnaTaxonConstants.CRAWL_STATE_ERROR, EnaTaxonExtractor.class.getSimpleName(), e.getMessage()));
+            }
+
+            synchronized (frontierLock) {
+                isCheckpointDue = false;
+                isCheckpointQueued = false;
+                frontierLock.notifyAll();
+            }
+        }
+
+
+        /**
+         * Throws the first failure of a crawl worker, if there was one.
+         *
+         * @throws ExtractorException if a crawl worker failed
+         */
+        private void throwFailure()
+        {
+            final RuntimeException workerFailure = failure.get();
+
+            if (workerFailure != null)
+                throw new ExtractorException(workerFailure);
+        }
+
+
+        /**
+         * Retrieves batches of taxa and passes them to the queue, until all taxa are crawled.
+         * This method is executed by a worker thread.
+         */
+        private void crawl()
+        {
+            try {
+                List<String> batchIds;
+
+                while ((batchIds = pollFrontier()) != null) {
+                    try {
+                        final Elements taxa = retrieveTaxa(batchIds, batchSizer);
+
+                        if (taxa != null) {
+                            // let waiting workers crawl the children of this batch
+                            synchronized (frontierLock) {
+                                frontierLock.notifyAll();
+                            }
+
+                            final Deque<CompletableFuture<List<EnaReferenceVO>>> pendingReferences = requestReferences(taxa);
+
+                            for (final Element taxonElement : taxa)
+                                queue.put(new CrawlItem(createTaxon(taxonElement, pendingReferences)));
+                        }
+                    } finally {
+                        synchronized (frontierLock) {
+                            busyWorkerCount--;
+                            frontierLock.notifyAll();
+                        }
+                    }
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (final RuntimeException e) { // NOPMD all failures must be passed to the consumer
+                failure.compareAndSet(null, e);
+            } finally {
+                endWorker();
+            }
+        }
 
-            final Element taxonElement = cachedDocuments.next();
-            final int currentTaxonId = Integer.parseInt(taxonElement.attr(EnaTaxonConstants.TAXON_ID_ATTRIBUTE)); // NOPMD we must remember the current ID
 
-            // enqueue all child taxa to be extracted later
-            final Element children = taxonElement.selectFirst(EnaTaxonConstants.CHILDREN_ELEMENT);
+        /**
+         * Passes the end of a crawl worker to the queue, so the consumer stops waiting for it.
+         * If the worker was interrupted, the harvest is being aborted and the consumer may
+         * no longer take items, so the end is only passed if the queue has free space.
+         */
+        private void endWorker()
+        {
+            final CrawlItem endItem = new CrawlItem(null);
 
-            if (children != null) {
+            if (!Thread.currentThread().isInterrupted()) {
                 try {
-                    for (final Element taxon : children.children())
-                        taxonIDs.add(taxon.attr(EnaTaxonConstants.TAXON_ID_ATTRIBUTE));
+                    queue.put(endItem);
+                    return;
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            queue.offer(endItem);
+        }
+
+
+        /**
+         * Removes the next batch of taxon IDs from the queue. If the queue is empty,
+         * this method waits until other workers have queued the children of their batches.
+         * If the crawl state is to be saved, this method waits until it was saved, and the
+         * last worker that finishes its batch lets the consumer know that it can be saved.
+         *
+         * @throws InterruptedException if the worker was interrupted while waiting
+         *
+         * @return the IDs of the next batch, or null if all taxa are crawled
+         */
+        private List<String> pollFrontier() throws InterruptedException
+        {
+            synchronized (frontierLock) {
+                while (true) {
+                    if (isCheckpointDue) {
+                        // the checkpoint is queued after the taxa of all finished batches
+                        if (busyWorkerCount == 0 && !isCheckpointQueued) {
+                            isCheckpointQueued = true;
+                            queue.put(checkpointItem);
+                        }
+
+                        frontierLock.wait();
+                        continue;
+                    }
+
+                    final List<String> batchIds = pollTaxonIds(batchSizer.getBatchSize());
+
+                    if (!batchIds.isEmpty()) {
+                        busyWorkerCount++;
+
+                        if (isResumingCrawl && ++batchCount % EnaTaxonConstants.VISITED_SAVE_INTERVAL == 0)
+                            isCheckpointDue = true;
+
+                        return batchIds;
+                    }
+
+                    // no other worker can add more taxa
+                    if (busyWorkerCount == 0) {
+                        frontierLock.notifyAll();
+                        return null;
+                    }
 
-                } catch (IOException e) {
-                    throw new ExtractorException(e);
+                    frontierLock.wait();
                 }
             }
+        }
+    }
+
+
+    /**
+     * This iterator reads all taxa from a local taxonomy dump, instead of crawling
+     * the taxonomy. The taxa are read in batches, such that the references of each
+     * batch can be requested in parallel.
+     *
+     * @author Robin Weiss
+     */
+    private class TaxonomyDumpIterator implements Iterator<EnaTaxonVO>
+    {
+        private Deque<CompletableFuture<List<EnaReferenceVO>>> pendingReferences;
+        private Iterator<Element> cachedDocuments;
 
-            // get references/publications URL
-            final String refUrl = String.format(EnaTaxonConstants.REFERENCE_URL, currentTaxonId);
-            final List<EnaReferenceVO> references = httpRequester.getObjectFromUrl(refUrl, EnaConstants.REFERENCE_LIST_TYPE);
 
-            return new EnaTaxonVO(taxonElement, references);
+        /**
+         * Constructor that opens the taxonomy dump. Dumps that end with '.gz'
+         * are decompressed while they are read.
+         *
+         * @throws ExtractorException if the taxonomy dump could not be opened
+         */
+        public TaxonomyDumpIterator()
+        {
+            LOGGER.info(String.format(EnaTaxonConstants.DUMP_READ, EnaTaxonExtractor.class.getSimpleName(), taxonomyDumpPath));
+            closeDumpReader();
+
+            InputStream dumpStream = null;
+
+            try {
+                dumpStream = Files.newInputStream(Paths.get(taxonomyDumpPath));
+
+                if (taxonomyDumpPath.endsWith(EnaTaxonConstants.DUMP_GZIP_SUFFIX))
+                    dumpStream = new GZIPInputStream(dumpStream, EnaConstants.QUEUE_BUFFER_SIZE);
+
+                // the reader closes the stream from now on
+                dumpReader = new TaxonomyDumpReader(dumpStream, EnaTaxonConstants.TAXON_ELEMENT);
+            } catch (final IOException e) {
+                // the file may have been opened before the gzip header could not be read
+                if (dumpStream != null) {
+                    try {
+                        dumpStream.close();
+                    } catch (final IOException closeException) {
+                        e.addSuppressed(closeException);
+                    }
+                }
+
+                throw new ExtractorException(e);
+            }
+
+            this.pendingReferences = new ArrayDeque<>();
+            this.cachedDocuments = new Elements().iterator();
+        }
+
+
+        @Override
+        public boolean hasNext()
+        {
+            if (cachedDocuments.hasNext())
+                return true;
+
+            final Elements batch = readNextBatch();
+            this.pendingReferences = requestReferences(batch);
+            this.cachedDocuments = batch.iterator();
+
+            return cachedDocuments.hasNext();
+        }
+
+
+        @Override
+        public EnaTaxonVO next()
+        {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            return createTaxon(cachedDocuments.next(), pendingReferences);
         }
 
 
-        private Iterator<Element> getNextBatch()
+        /**
+         * Reads the next batch of taxa from the taxonomy dump.
+         *
+         * @return the XML elements of up to one batch of taxa
+         */
+        private Elements readNextBatch()
         {
-            final String xmlUrl;
+            final int maxBatchSize = Math.max(1, batchSize);
+            final Elements batch = new Elements(maxBatchSize);
+
+            if (dumpReader == null)
+                return batch;
 
-            // get cached taxon IDs
             try {
-                final StringBuilder queryBuilder = new StringBuilder();
-                int i = 0;
+                Element taxon;
 
-                while (i < batchSize && !taxonIDs.isEmpty()) {
-                    queryBuilder.append(taxonIDs.get()).append(',');
-                    i++;
-                }
+                while (batch.size() < maxBatchSize && (taxon = dumpReader.next()) != null)
+                    batch.add(taxon);
 
-                queryBuilder.deleteCharAt(queryBuilder.length() - 1);
-                xmlUrl = String.format(EnaTaxonConstants.XML_URL, queryBuilder.toString());
-            } catch (IOException e) {
+            } catch (final IOException e) {
                 throw new ExtractorException(e);
             }
 
-            final Document taxaXml =  httpRequester.getHtmlFromUrl(xmlUrl);
-            return taxaXml.selectFirst(EnaTaxonConstants.SET_ELEMENT).children().iterator();
+            // the end of the dump was reached
+            if (batch.size() < maxBatchSize)
+                closeDumpReader();
+
+            return batch;
+        }
+    }
+
+
+    /**
+     * This class represents an item that is passed from a crawl worker to
+     * the consumer. An item is either a taxon, or the end of a crawl worker.
+     *
+     * @author Robin Weiss
+     */
+    private static class CrawlItem
+    {
+        private final EnaTaxonVO taxon;
+
+
+        /**
+         * Constructor.
+         *
+         * @param taxon a harvested taxon, or null if the crawl worker ended
+         */
+        public CrawlItem(final EnaTaxonVO taxon)
+        {
+            this.taxon = taxon;
         }
 
+
+        /**
+         * Returns the harvested taxon.
+         *
+         * @return the harvested taxon, or null if this item is no taxon
+         */
+        public EnaTaxonVO getTaxon()
+        {
+            return taxon;
+        }
     }
 }
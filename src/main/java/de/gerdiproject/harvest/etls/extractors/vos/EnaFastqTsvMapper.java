@@ -0,0 +1,229 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.etls.extractors.vos;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import de.gerdiproject.harvest.ena.constants.EnaFastqConstants;
+import de.gerdiproject.harvest.utils.BoundedInterner;
+import de.gerdiproject.harvest.utils.TsvReader;
+
+/**
+ * This class maps the lines of tab-separated ENA Portal API responses to {@linkplain EnaFastqVO}s.
+ * The columns are mapped to the fields of the VO by the names in the header line.
+ * Columns that are not part of the VO are skipped without creating {@linkplain String}s,
+ * and fields with few distinct values are mapped to canonical {@linkplain String}s.
+ *
+ * @author Robin Weiss
+ */
+public class EnaFastqTsvMapper
+{
+    private final BoundedInterner<String> fieldValues;
+    private final TsvReader reader;
+    private List<BiConsumer<EnaFastqVO.EnaFastqVOBuilder, String>> columnSetters;
+    private boolean[] interningColumns;
+
+
+    /**
+     * Constructor.
+     *
+     * @param reader the reader of the tab-separated response
+     * @param fieldValues a dictionary of field values that repeat frequently
+     */
+    public EnaFastqTsvMapper(final TsvReader reader, final BoundedInterner<String> fieldValues)
+    {
+        this.reader = reader;
+        this.fieldValues = fieldValues;
+    }
+
+
+    /**
+     * Reads the next line of the response and maps it to a VO.
+     * The header line is read first, if it was not read yet.
+     *
+     * @throws IOException if the response could not be read
+     *
+     * @return the next VO, or null if there are no more lines
+     */
+    public EnaFastqVO read() throws IOException
+    {
+        if (columnSetters == null && !readHeader())
+            return null;
+
+        if (!reader.nextLine())
+            return null;
+
+        final EnaFastqVO.EnaFastqVOBuilder builder = EnaFastqVO.builder();
+        final int columnCount = Math.min(columnSetters.size(), reader.getFieldCount());
+
+        for (int i = 0; i < columnCount; i++) {
+            final BiConsumer<EnaFastqVO.EnaFastqVOBuilder, String> setter = columnSetters.get(i);
+
+            // columns that are not requested are skipped
+            if (setter != null) {
+                final String value = reader.getField(i);
+                setter.accept(builder, interningColumns[i] ? fieldValues.get(value, Function.identity()) : value);
+            }
+        }
+
+        return builder.build();
+    }
+
+
+    /**
+     * Reads the header line and assigns a field of the VO to each column.
+     *
+     * @throws IOException if the header could not be read
+     *
+     * @return true if the header was read, or false if the response is empty
+     */
+    private boolean readHeader() throws IOException
+    {
+        if (!reader.nextLine())
+            return false;
+
+        final int columnCount = reader.getFieldCount();
+        columnSetters = new ArrayList<>(columnCount);
+        interningColumns = new boolean[columnCount];
+
+        for (int i = 0; i < columnCount; i++) {
+            final String columnName = reader.getField(i);
+            columnSetters.add(getColumnSetter(columnName));
+            interningColumns[i] = isInterningColumn(columnName);
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Returns a function that assigns the value of a column or JSON field to the corresponding field of the VO.
+     *
+     * @param columnName the name of the column or JSON field
+     *
+     * @return a function that assigns the value of the column, or null if the column is not part of the VO
+     */
+    static BiConsumer<EnaFastqVO.EnaFastqVOBuilder, String> getColumnSetter(final String columnName)
+    {
+        switch (columnName) {
+            case EnaFastqConstants.STUDY_ACCESSION_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::studyAccession;
+
+            case EnaFastqConstants.SECONDARY_STUDY_ACCESSION_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::secondaryStudyAccession;
+
+            case EnaFastqConstants.SAMPLE_ACCESSION_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::sampleAccession;
+
+            case EnaFastqConstants.SECONDARY_SAMPLE_ACCESSION_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::secondarySampleAccession;
+
+            case EnaFastqConstants.EXPERIMENT_ACCESSION_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::experimentAccession;
+
+            case EnaFastqConstants.RUN_ACCESSION_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::runAccession;
+
+            case EnaFastqConstants.SUBMISSION_ACCESSION_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::submissionAccession;
+
+            case EnaFastqConstants.TAX_ID_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::taxId;
+
+            case EnaFastqConstants.SCIENTIFIC_NAME_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::scientificName;
+
+            case EnaFastqConstants.INSTRUMENT_PLATFORM_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::instrumentPlatform;
+
+            case EnaFastqConstants.LIBRARY_STRATEGY_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::libraryStrategy;
+
+            case EnaFastqConstants.LIBRARY_SOURCE_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::librarySource;
+
+            case EnaFastqConstants.FIRST_PUBLIC_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::firstPublic;
+
+            case EnaFastqConstants.LAST_UPDATED_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::lastUpdated;
+
+            case EnaFastqConstants.EXPERIMENT_TITLE_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::experimentTitle;
+
+            case EnaFastqConstants.STUDY_TITLE_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::studyTitle;
+
+            case EnaFastqConstants.EXPERIMENT_ALIAS_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::experimentAlias;
+
+            case EnaFastqConstants.RUN_ALIAS_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::runAlias;
+
+            case EnaFastqConstants.FASTQ_FTP_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::fastqFtp;
+
+            case EnaFastqConstants.SUBMITTED_FTP_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::submittedFtp;
+
+            case EnaFastqConstants.SRA_FTP_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::sraFtp;
+
+            case EnaFastqConstants.CRAM_INDEX_FTP_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::cramIndexFtp;
+
+            case EnaFastqConstants.SAMPLE_ALIAS_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::sampleAlias;
+
+            case EnaFastqConstants.SAMPLE_TITLE_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::sampleTitle;
+
+            case EnaFastqConstants.FIRST_CREATED_FIELD:
+                return EnaFastqVO.EnaFastqVOBuilder::firstCreated;
+
+            default:
+                return null;
+        }
+    }
+
+
+    /**
+     * Checks if the values of a column or JSON field are mapped to canonical {@linkplain String}s.
+     *
+     * @param columnName the name of the column or JSON field
+     *
+     * @return true if the column has few distinct values
+     */
+    static boolean isInterningColumn(final String columnName)
+    {
+        switch (columnName) {
+            case EnaFastqConstants.TAX_ID_FIELD:
+            case EnaFastqConstants.SCIENTIFIC_NAME_FIELD:
+            case EnaFastqConstants.INSTRUMENT_PLATFORM_FIELD:
+            case EnaFastqConstants.LIBRARY_STRATEGY_FIELD:
+            case EnaFastqConstants.LIBRARY_SOURCE_FIELD:
+                return true;
+
+            default:
+                return false;
+        }
+    }
+}
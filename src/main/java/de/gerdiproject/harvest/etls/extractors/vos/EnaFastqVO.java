@@ -17,169 +17,99 @@ package de.gerdiproject.harvest.etls.extractors.vos;
 
 import com.google.gson.annotations.SerializedName;
 
+import de.gerdiproject.harvest.ena.constants.EnaFastqConstants;
+import de.gerdiproject.harvest.etls.transformers.EnaFastqTransformer;
+
+import lombok.Builder;
 import lombok.Value;
 
 /**
  * This class is a value object that contains the response of
- * a FASTQ filereport request.<br>
+ * a FASTQ filereport request.
+ * Only the fields that are requested from the ENA Portal API
+ * and used by the {@linkplain EnaFastqTransformer} are stored,
+ * keeping runs that are buffered in batches small.<br>
  *
  * e.g. https://www.ebi.ac.uk/ena/portal/api/filereport?result=read_run&accession=ERR000001&offset=0&limit=1000&format=json
  *
  * @author Robin Weiss
  */
 @Value
+@Builder
 public class EnaFastqVO
 {
-    @SerializedName("study_accession")
+    @SerializedName(EnaFastqConstants.STUDY_ACCESSION_FIELD)
     private final String studyAccession;
 
-    @SerializedName("secondary_study_accession")
+    @SerializedName(EnaFastqConstants.SECONDARY_STUDY_ACCESSION_FIELD)
     private final String secondaryStudyAccession;
 
-    @SerializedName("sample_accession")
+    @SerializedName(EnaFastqConstants.SAMPLE_ACCESSION_FIELD)
     private final String sampleAccession;
 
-    @SerializedName("secondary_sample_accession")
+    @SerializedName(EnaFastqConstants.SECONDARY_SAMPLE_ACCESSION_FIELD)
     private final String secondarySampleAccession;
 
-    @SerializedName("experiment_accession")
+    @SerializedName(EnaFastqConstants.EXPERIMENT_ACCESSION_FIELD)
     private final String experimentAccession;
 
-    @SerializedName("run_accession")
+    @SerializedName(EnaFastqConstants.RUN_ACCESSION_FIELD)
     private final String runAccession;
 
-    @SerializedName("submission_accession")
+    @SerializedName(EnaFastqConstants.SUBMISSION_ACCESSION_FIELD)
     private final String submissionAccession;
 
-    @SerializedName("tax_id")
+    @SerializedName(EnaFastqConstants.TAX_ID_FIELD)
     private final String taxId;
 
-    @SerializedName("scientific_name")
+    @SerializedName(EnaFastqConstants.SCIENTIFIC_NAME_FIELD)
     private final String scientificName;
 
-    @SerializedName("instrument_platform")
+    @SerializedName(EnaFastqConstants.INSTRUMENT_PLATFORM_FIELD)
     private final String instrumentPlatform;
 
-    @SerializedName("instrument_model")
-    private final String instrumentModel;
-
-    @SerializedName("library_name")
-    private final String libraryName;
-
-    @SerializedName("nominal_length")
-    private final String nominalLength;
-
-    @SerializedName("library_layout")
-    private final String libraryLayout;
-
-    @SerializedName("library_strategy")
+    @SerializedName(EnaFastqConstants.LIBRARY_STRATEGY_FIELD)
     private final String libraryStrategy;
 
-    @SerializedName("library_source")
+    @SerializedName(EnaFastqConstants.LIBRARY_SOURCE_FIELD)
     private final String librarySource;
 
-    @SerializedName("library_selection")
-    private final String librarySelection;
-
-    @SerializedName("read_count")
-    private final String readCount;
-
-    @SerializedName("base_count")
-    private final String baseCount;
-
-    @SerializedName("center_name")
-    private final String centerName;
-
-    @SerializedName("first_public")
+    @SerializedName(EnaFastqConstants.FIRST_PUBLIC_FIELD)
     private final String firstPublic;
 
-    @SerializedName("last_updated")
+    @SerializedName(EnaFastqConstants.LAST_UPDATED_FIELD)
     private final String lastUpdated;
 
-    @SerializedName("experiment_title")
+    @SerializedName(EnaFastqConstants.EXPERIMENT_TITLE_FIELD)
     private final String experimentTitle;
 
-    @SerializedName("study_title")
+    @SerializedName(EnaFastqConstants.STUDY_TITLE_FIELD)
     private final String studyTitle;
 
-    @SerializedName("study_alias")
-    private final String studyAlias;
-
-    @SerializedName("experiment_alias")
+    @SerializedName(EnaFastqConstants.EXPERIMENT_ALIAS_FIELD)
     private final String experimentAlias;
 
-    @SerializedName("run_alias")
+    @SerializedName(EnaFastqConstants.RUN_ALIAS_FIELD)
     private final String runAlias;
 
-    @SerializedName("fastq_bytes")
-    private final String fastqNytes;
-
-    @SerializedName("fastq_md5")
-    private final String fastqMd5;
-
-    @SerializedName("fastq_ftp")
+    @SerializedName(EnaFastqConstants.FASTQ_FTP_FIELD)
     private final String fastqFtp;
 
-    @SerializedName("fastq_aspera")
-    private final String fastqAspera;
-
-    @SerializedName("fastq_galaxy")
-    private final String fastqGalaxy;
-
-    @SerializedName("submitted_bytes")
-    private final String submittedBytes;
-
-    @SerializedName("submitted_md5")
-    private final String submittedMd5;
-
-    @SerializedName("submitted_ftp")
+    @SerializedName(EnaFastqConstants.SUBMITTED_FTP_FIELD)
     private final String submittedFtp;
 
-    @SerializedName("submitted_aspera")
-    private final String submittedAspera;
-
-    @SerializedName("submitted_galaxy")
-    private final String submittedGalaxy;
-
-    @SerializedName("submitted_format")
-    private final String submittedFormat;
-
-    @SerializedName("sra_bytes")
-    private final String sraBytes;
-
-    @SerializedName("sra_md5")
-    private final String sraMd5;
-
-    @SerializedName("sra_ftp")
+    @SerializedName(EnaFastqConstants.SRA_FTP_FIELD)
     private final String sraFtp;
 
-    @SerializedName("sra_aspera")
-    private final String sraAspera;
-
-    @SerializedName("sra_galaxy")
-    private final String sraGalaxy;
-
-    @SerializedName("cram_index_ftp")
+    @SerializedName(EnaFastqConstants.CRAM_INDEX_FTP_FIELD)
     private final String cramIndexFtp;
 
-    @SerializedName("cram_index_aspera")
-    private final String cramIndexAspera;
-
-    @SerializedName("cram_index_galaxy")
-    private final String cramIndexGalaxy;
-
-    @SerializedName("sample_alias")
+    @SerializedName(EnaFastqConstants.SAMPLE_ALIAS_FIELD)
     private final String sampleAlias;
 
-    @SerializedName("broker_name")
-    private final String brokerName;
-
-    @SerializedName("sample_title")
+    @SerializedName(EnaFastqConstants.SAMPLE_TITLE_FIELD)
     private final String sampleTitle;
 
-    @SerializedName("nominal_sdev")
-    private final String nominalSdev;
-
-    @SerializedName("first_created")
+    @SerializedName(EnaFastqConstants.FIRST_CREATED_FIELD)
     private final String firstCreated;
 }
\ No newline at end of file
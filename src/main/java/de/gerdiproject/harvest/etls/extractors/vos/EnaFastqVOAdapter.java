@@ -0,0 +1,163 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.etls.extractors.vos;
+
+import java.io.IOException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import de.gerdiproject.harvest.ena.constants.EnaFastqConstants;
+import de.gerdiproject.harvest.utils.BoundedInterner;
+
+/**
+ * This adapter reads and writes {@linkplain EnaFastqVO}s without reflection.
+ * Only the fields that are requested from the ENA Portal API are read,
+ * while the values of all other fields are skipped without being parsed.
+ * Fields are assigned like the columns of the {@linkplain EnaFastqTsvMapper},
+ * so fields with few distinct values are mapped to canonical {@linkplain String}s.
+ *
+ * @author Robin Weiss
+ */
+public class EnaFastqVOAdapter extends TypeAdapter<EnaFastqVO>
+{
+    private final BoundedInterner<String> fieldValues;
+
+
+    /**
+     * Constructor.
+     *
+     * @param fieldValues a dictionary of field values that repeat frequently
+     */
+    public EnaFastqVOAdapter(final BoundedInterner<String> fieldValues)
+    {
+        super();
+        this.fieldValues = fieldValues;
+    }
+
+
+    @Override
+    public void write(final JsonWriter out, final EnaFastqVO vo) throws IOException
+    {
+        if (vo == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        writeField(out, EnaFastqConstants.STUDY_ACCESSION_FIELD, vo.getStudyAccession());
+        writeField(out, EnaFastqConstants.SECONDARY_STUDY_ACCESSION_FIELD, vo.getSecondaryStudyAccession());
+        writeField(out, EnaFastqConstants.SAMPLE_ACCESSION_FIELD, vo.getSampleAccession());
+        writeField(out, EnaFastqConstants.SECONDARY_SAMPLE_ACCESSION_FIELD, vo.getSecondarySampleAccession());
+        writeField(out, EnaFastqConstants.EXPERIMENT_ACCESSION_FIELD, vo.getExperimentAccession());
+        writeField(out, EnaFastqConstants.RUN_ACCESSION_FIELD, vo.getRunAccession());
+        writeField(out, EnaFastqConstants.SUBMISSION_ACCESSION_FIELD, vo.getSubmissionAccession());
+        writeField(out, EnaFastqConstants.TAX_ID_FIELD, vo.getTaxId());
+        writeField(out, EnaFastqConstants.SCIENTIFIC_NAME_FIELD, vo.getScientificName());
+        writeField(out, EnaFastqConstants.INSTRUMENT_PLATFORM_FIELD, vo.getInstrumentPlatform());
+        writeField(out, EnaFastqConstants.LIBRARY_STRATEGY_FIELD, vo.getLibraryStrategy());
+        writeField(out, EnaFastqConstants.LIBRARY_SOURCE_FIELD, vo.getLibrarySource());
+        writeField(out, EnaFastqConstants.FIRST_PUBLIC_FIELD, vo.getFirstPublic());
+        writeField(out, EnaFastqConstants.LAST_UPDATED_FIELD, vo.getLastUpdated());
+        writeField(out, EnaFastqConstants.EXPERIMENT_TITLE_FIELD, vo.getExperimentTitle());
+        writeField(out, EnaFastqConstants.STUDY_TITLE_FIELD, vo.getStudyTitle());
+        writeField(out, EnaFastqConstants.EXPERIMENT_ALIAS_FIELD, vo.getExperimentAlias());
+        writeField(out, EnaFastqConstants.RUN_ALIAS_FIELD, vo.getRunAlias());
+        writeField(out, EnaFastqConstants.FASTQ_FTP_FIELD, vo.getFastqFtp());
+        writeField(out, EnaFastqConstants.SUBMITTED_FTP_FIELD, vo.getSubmittedFtp());
+        writeField(out, EnaFastqConstants.SRA_FTP_FIELD, vo.getSraFtp());
+        writeField(out, EnaFastqConstants.CRAM_INDEX_FTP_FIELD, vo.getCramIndexFtp());
+        writeField(out, EnaFastqConstants.SAMPLE_ALIAS_FIELD, vo.getSampleAlias());
+        writeField(out, EnaFastqConstants.SAMPLE_TITLE_FIELD, vo.getSampleTitle());
+        writeField(out, EnaFastqConstants.FIRST_CREATED_FIELD, vo.getFirstCreated());
+        out.endObject();
+    }
+
+
+    @Override
+    public EnaFastqVO read(final JsonReader in) throws IOException
+    {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        final EnaFastqVO.EnaFastqVOBuilder builder = EnaFastqVO.builder();
+        in.beginObject();
+
+        while (in.hasNext()) {
+            final String name = in.nextName();
+            final BiConsumer<EnaFastqVO.EnaFastqVOBuilder, String> setter = EnaFastqTsvMapper.getColumnSetter(name);
+
+            // fields that are not requested are skipped
+            if (setter == null)
+                in.skipValue();
+            else {
+                final String value = nextString(in);
+                setter.accept(builder, EnaFastqTsvMapper.isInterningColumn(name) ? fieldValues.get(value, Function.identity()) : value);
+            }
+        }
+
+        in.endObject();
+        return builder.build();
+    }
+
+
+    /**
+     * Writes a field, unless its value is null.
+     *
+     * @param out the writer of the JSON object
+     * @param name the name of the field
+     * @param value the value of the field
+     *
+     * @throws IOException if the field could not be written
+     */
+    private static void writeField(final JsonWriter out, final String name, final String value) throws IOException
+    {
+        if (value != null)
+            out.name(name).value(value);
+    }
+
+
+    /**
+     * Reads the next value as a {@linkplain String}, accepting
+     * null values, strings, numbers, and booleans.
+     *
+     * @param in the reader of the JSON object
+     *
+     * @throws IOException if the value could not be read
+     *
+     * @return the next value, or null if the value is null
+     */
+    private static String nextString(final JsonReader in) throws IOException
+    {
+        final JsonToken token = in.peek();
+
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+
+        } else if (token == JsonToken.BOOLEAN)
+            return String.valueOf(in.nextBoolean());
+        else
+            return in.nextString();
+    }
+}
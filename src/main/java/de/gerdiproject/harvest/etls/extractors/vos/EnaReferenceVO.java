@@ -18,6 +18,7 @@ package de.gerdiproject.harvest.etls.extractors.vos;
 
 import com.google.gson.annotations.SerializedName;
 
+import lombok.Builder;
 import lombok.Value;
 
 /**
@@ -26,6 +27,7 @@ import lombok.Value;
  * @author Robin Weiss
  */
 @Value
+@Builder
 public class EnaReferenceVO
 {
     @SerializedName("Source")
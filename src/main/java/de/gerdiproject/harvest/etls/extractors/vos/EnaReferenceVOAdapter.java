@@ -0,0 +1,159 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.etls.extractors.vos;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * This adapter reads and writes {@linkplain EnaReferenceVO}s without reflection.
+ * Unknown fields are skipped without being parsed.
+ *
+ * @author Robin Weiss
+ */
+public class EnaReferenceVOAdapter extends TypeAdapter<EnaReferenceVO>
+{
+    @Override
+    public void write(final JsonWriter out, final EnaReferenceVO vo) throws IOException
+    {
+        if (vo == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        writeField(out, "Source", vo.getSource());
+        writeField(out, "Source Primary Accession", vo.getSourcePrimaryAccession());
+        writeField(out, "Source Secondary Accession", vo.getSourceSecondaryAccession());
+        writeField(out, "Source URL", vo.getSourceUrl());
+        writeField(out, "Target", vo.getTarget());
+        writeField(out, "Target Primary Accession", vo.getTargetPrimaryAccession());
+        writeField(out, "Target Secondary Accession", vo.getTargetSecondaryAccession());
+        writeField(out, "Target URL", vo.getTargetUrl());
+        writeField(out, "DOI", vo.getDoi());
+        writeField(out, "reference", vo.getReference());
+        out.endObject();
+    }
+
+
+    @Override
+    public EnaReferenceVO read(final JsonReader in) throws IOException
+    {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        final EnaReferenceVO.EnaReferenceVOBuilder builder = EnaReferenceVO.builder();
+        in.beginObject();
+
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "Source":
+                    builder.source(nextString(in));
+                    break;
+
+                case "Source Primary Accession":
+                    builder.sourcePrimaryAccession(nextString(in));
+                    break;
+
+                case "Source Secondary Accession":
+                    builder.sourceSecondaryAccession(nextString(in));
+                    break;
+
+                case "Source URL":
+                    builder.sourceUrl(nextString(in));
+                    break;
+
+                case "Target":
+                    builder.target(nextString(in));
+                    break;
+
+                case "Target Primary Accession":
+                    builder.targetPrimaryAccession(nextString(in));
+                    break;
+
+                case "Target Secondary Accession":
+                    builder.targetSecondaryAccession(nextString(in));
+                    break;
+
+                case "Target URL":
+                    builder.targetUrl(nextString(in));
+                    break;
+
+                case "DOI":
+                    builder.doi(nextString(in));
+                    break;
+
+                case "reference":
+                    builder.reference(nextString(in));
+                    break;
+
+                default:
+                    // unknown fields are skipped
+                    in.skipValue();
+            }
+        }
+
+        in.endObject();
+        return builder.build();
+    }
+
+    /**
+     * Writes a field, unless its value is null.
+     *
+     * @param out the writer of the JSON object
+     * @param name the name of the field
+     * @param value the value of the field
+     *
+     * @throws IOException if the field could not be written
+     */
+    private static void writeField(final JsonWriter out, final String name, final String value) throws IOException
+    {
+        if (value != null)
+            out.name(name).value(value);
+    }
+
+
+    /**
+     * Reads the next value as a {@linkplain String}, accepting
+     * null values, strings, numbers, and booleans.
+     *
+     * @param in the reader of the JSON object
+     *
+     * @throws IOException if the value could not be read
+     *
+     * @return the next value, or null if the value is null
+     */
+    private static String nextString(final JsonReader in) throws IOException
+    {
+        final JsonToken token = in.peek();
+
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+
+        } else if (token == JsonToken.BOOLEAN)
+            return String.valueOf(in.nextBoolean());
+        else
+            return in.nextString();
+    }
+}
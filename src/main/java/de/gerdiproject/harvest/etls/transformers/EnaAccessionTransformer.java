@@ -25,11 +25,14 @@ import java.util.LinkedList;
 import java.util.List;
 
 import org.jsoup.nodes.Element;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import de.gerdiproject.harvest.ena.constants.EnaConstants;
 import de.gerdiproject.harvest.ena.constants.EnaTaxonConstants;
 import de.gerdiproject.harvest.ena.constants.EnaUrlConstants;
 import de.gerdiproject.harvest.etls.AbstractETL;
+import de.gerdiproject.harvest.utils.BoundedInterner;
 import de.gerdiproject.harvest.utils.HtmlUtils;
 import de.gerdiproject.json.DateUtils;
 import de.gerdiproject.json.datacite.DataCiteJson;
@@ -55,6 +58,11 @@ import de.gerdiproject.json.datacite.extension.generic.enums.WebLinkType;
  */
 public class EnaAccessionTransformer extends AbstractIteratorTransformer<Element, DataCiteJson>
 {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EnaAccessionTransformer.class);
+
+    // shared by all accession transformers, because their entries have the same classes, divisions, and organisms
+    private static final BoundedInterner<Subject> SUBJECTS = new BoundedInterner<>(EnaConstants.DICTIONARY_SIZE);
+
 
     @Override
     public void init(final AbstractETL<?, ?> etl)
@@ -109,9 +117,9 @@ public class EnaAccessionTransformer extends AbstractIteratorTransformer<Element
         final List<Subject> subjects = new LinkedList<>();
 
         // get attribute subjects
-        subjects.add(new Subject(HtmlUtils.getAttribute(entry, EnaConstants.DATACLASS)));
-        subjects.add(new Subject(HtmlUtils.getAttribute(entry, EnaConstants.TAX_DIVISION)));
-        subjects.add(new Subject(HtmlUtils.getAttribute(entry, EnaConstants.MOLECULETYPE)));
+        subjects.add(SUBJECTS.get(HtmlUtils.getAttribute(entry, EnaConstants.DATACLASS), Subject::new));
+        subjects.add(SUBJECTS.get(HtmlUtils.getAttribute(entry, EnaConstants.TAX_DIVISION), Subject::new));
+        subjects.add(SUBJECTS.get(HtmlUtils.getAttribute(entry, EnaConstants.MOLECULETYPE), Subject::new));
 
         return subjects;
     }
@@ -261,14 +269,14 @@ public class EnaAccessionTransformer extends AbstractIteratorTransformer<Element
     private Subject parseCommonTaxonName(final Element element)
     {
         final String commonName = HtmlUtils.getAttribute(element, EnaConstants.TAX_COMMON_NAME);
-        return commonName == null ? null : new Subject(commonName);
+        return commonName == null ? null : SUBJECTS.get(commonName, Subject::new);
     }
 
 
     private Subject parseScientificTaxonName(final Element element)
     {
         final String scientificName = HtmlUtils.getAttribute(element, EnaConstants.TAX_SCIENTIFIC_NAME);
-        return scientificName == null ? null : new Subject(scientificName);
+        return scientificName == null ? null : SUBJECTS.get(scientificName, Subject::new);
     }
 
 
@@ -313,7 +321,12 @@ public class EnaAccessionTransformer extends AbstractIteratorTransformer<Element
     @Override
     public void clear()
     {
-        // nothing to clean up
+        LOGGER.info(String.format(
+                        EnaConstants.DICTIONARY_STATISTICS,
+                        EnaConstants.ACCESSION_SUBJECTS_NAME,
+                        SUBJECTS.getHitCount(),
+                        SUBJECTS.getHitCount() + SUBJECTS.getMissCount(),
+                        SUBJECTS.size()));
     }
 
 }
@@ -19,12 +19,16 @@ import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import de.gerdiproject.harvest.ena.constants.EnaConstants;
 import de.gerdiproject.harvest.ena.constants.EnaFastqConstants;
 import de.gerdiproject.harvest.ena.constants.EnaTaxonConstants;
 import de.gerdiproject.harvest.ena.constants.EnaUrlConstants;
 import de.gerdiproject.harvest.etls.AbstractETL;
 import de.gerdiproject.harvest.etls.extractors.vos.EnaFastqVO;
+import de.gerdiproject.harvest.utils.BoundedInterner;
 import de.gerdiproject.json.datacite.DataCiteJson;
 import de.gerdiproject.json.datacite.Date;
 import de.gerdiproject.json.datacite.Description;
@@ -40,6 +44,12 @@ import de.gerdiproject.json.datacite.extension.generic.enums.WebLinkType;
 
 public class EnaFastqTransformer extends AbstractIteratorTransformer<EnaFastqVO, DataCiteJson>
 {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EnaFastqTransformer.class);
+
+    // shared by all FASTQ transformers, because their runs have the same platforms, sources, and organisms
+    private static final BoundedInterner<Subject> SUBJECTS = new BoundedInterner<>(EnaConstants.DICTIONARY_SIZE);
+
+
     @Override
     public void init(final AbstractETL<?, ?> etl)
     {
@@ -111,18 +121,19 @@ public class EnaFastqTransformer extends AbstractIteratorTransformer<EnaFastqVO,
     {
         final List<Subject> subjectList = new LinkedList<>();
 
-        final String[] subjectStrings = {
-            vo.getLibrarySource(),
-            vo.getLibraryStrategy(),
-            vo.getExperimentAlias(),
-            vo.getRunAlias(),
-            vo.getInstrumentPlatform(),
-            vo.getScientificName()
+        // aliases are unique per run, so only the other subjects are shared between documents
+        final Subject[] subjects = {
+            getSharedSubject(vo.getLibrarySource()),
+            getSharedSubject(vo.getLibraryStrategy()),
+            getSubject(vo.getExperimentAlias()),
+            getSubject(vo.getRunAlias()),
+            getSharedSubject(vo.getInstrumentPlatform()),
+            getSharedSubject(vo.getScientificName())
         };
 
-        for (final String s : subjectStrings) {
-            if (s != null && !s.isEmpty())
-                subjectList.add(new Subject(s));
+        for (final Subject s : subjects) {
+            if (s != null)
+                subjectList.add(s);
         }
 
         subjectList.add(EnaFastqConstants.SUBJECT_FASTQ);
@@ -131,6 +142,22 @@ public class EnaFastqTransformer extends AbstractIteratorTransformer<EnaFastqVO,
     }
 
 
+    private Subject getSubject(final String value)
+    {
+        return value == null || value.isEmpty()
+               ? null
+               : new Subject(value);
+    }
+
+
+    private Subject getSharedSubject(final String value)
+    {
+        return value == null || value.isEmpty()
+               ? null
+               : SUBJECTS.get(value, Subject::new);
+    }
+
+
     private List<WebLink> getWebLinks(final EnaFastqVO vo)
     {
         final List<WebLink> webLinkList = new LinkedList<>();
@@ -247,6 +274,11 @@ public class EnaFastqTransformer extends AbstractIteratorTransformer<EnaFastqVO,
     @Override
     public void clear()
     {
-        // nothing to clean up
+        LOGGER.info(String.format(
+                        EnaConstants.DICTIONARY_STATISTICS,
+                        EnaConstants.FASTQ_SUBJECTS_NAME,
+                        SUBJECTS.getHitCount(),
+                        SUBJECTS.getHitCount() + SUBJECTS.getMissCount(),
+                        SUBJECTS.size()));
     }
 }
\ No newline at end of file
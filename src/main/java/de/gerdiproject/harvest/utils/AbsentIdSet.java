@@ -0,0 +1,188 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import de.gerdiproject.harvest.ena.constants.EnaConstants;
+
+
+/**
+ * This class stores numeric IDs that are known to be absent in a bitmap,
+ * requiring one bit per ID in memory and far less in the compressed file.
+ * The whole set expires after a configurable time, such that IDs which
+ * were absent once are eventually checked again.
+ *
+ * @author Robin Weiss
+ */
+public class AbsentIdSet
+{
+    private final Path setPath;
+    private final BitSet absentIds;
+    private long creationTime;
+    private boolean isModified;
+
+
+    /**
+     * Constructor.
+     *
+     * @param setFile the file in which the absent IDs are stored
+     */
+    public AbsentIdSet(final File setFile)
+    {
+        this.setPath = setFile.toPath();
+        this.absentIds = new BitSet();
+        this.creationTime = System.currentTimeMillis();
+    }
+
+
+    /**
+     * Replaces the absent IDs with the content of the file, unless the
+     * file does not exist or is older than the specified time to live.
+     *
+     * @param timeToLive the number of milliseconds after which stored IDs expire
+     *
+     * @throws IOException if the file exists, but could not be read
+     */
+    public synchronized void load(final long timeToLive) throws IOException
+    {
+        absentIds.clear();
+        creationTime = System.currentTimeMillis();
+        isModified = false;
+
+        if (!Files.exists(setPath))
+            return;
+
+        try
+            (DataInputStream input = new DataInputStream(
+                                         new BufferedInputStream(
+                                             new GZIPInputStream(Files.newInputStream(setPath))))) {
+            final long storedCreationTime = input.readLong();
+
+            // expired IDs are dropped, and overwritten with the next save
+            if (creationTime - storedCreationTime > timeToLive) {
+                isModified = true;
+                return;
+            }
+
+            final long[] words = new long[input.readInt()];
+
+            for (int i = 0; i < words.length; i++)
+                words[i] = input.readLong();
+
+            absentIds.or(BitSet.valueOf(words));
+            creationTime = storedCreationTime;
+        }
+    }
+
+
+    /**
+     * Writes the absent IDs to the file, if they were modified since they were loaded.
+     * The file is replaced atomically, so an interrupted write cannot corrupt it.
+     *
+     * @throws IOException if the file could not be written
+     */
+    public synchronized void save() throws IOException
+    {
+        if (!isModified)
+            return;
+
+        final Path parentPath = setPath.toAbsolutePath().getParent();
+
+        if (parentPath != null)
+            Files.createDirectories(parentPath);
+
+        final Path tempPath = setPath.resolveSibling(setPath.getFileName() + EnaConstants.TEMP_FILE_SUFFIX);
+
+        try
+            (DataOutputStream output = new DataOutputStream(
+                                           new BufferedOutputStream(
+                                               new GZIPOutputStream(Files.newOutputStream(tempPath))))) {
+            final long[] words = absentIds.toLongArray();
+            output.writeLong(creationTime);
+            output.writeInt(words.length);
+
+            for (final long word : words)
+                output.writeLong(word);
+        }
+
+        Files.move(tempPath, setPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        isModified = false;
+    }
+
+
+    /**
+     * Checks if an ID is known to be absent.
+     *
+     * @param id a non-negative ID
+     *
+     * @return true if the ID is known to be absent
+     */
+    public synchronized boolean contains(final int id)
+    {
+        return absentIds.get(id);
+    }
+
+
+    /**
+     * Marks an ID as absent.
+     *
+     * @param id a non-negative ID
+     */
+    public synchronized void add(final int id)
+    {
+        if (!absentIds.get(id)) {
+            absentIds.set(id);
+            isModified = true;
+        }
+    }
+
+
+    /**
+     * Returns the first ID that is not known to be absent, starting from a specified ID.
+     *
+     * @param fromId the first ID that is checked
+     *
+     * @return the first ID that is greater than or equal to fromId and not known to be absent
+     */
+    public synchronized int nextUnknownId(final int fromId)
+    {
+        return absentIds.nextClearBit(fromId);
+    }
+
+
+    /**
+     * Returns the number of IDs that are known to be absent.
+     *
+     * @return the number of absent IDs
+     */
+    public synchronized int size()
+    {
+        return absentIds.cardinality();
+    }
+}
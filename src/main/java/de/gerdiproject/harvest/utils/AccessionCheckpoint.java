@@ -0,0 +1,151 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+import de.gerdiproject.harvest.ena.constants.EnaConstants;
+
+
+/**
+ * This class stores the first accession number of each {@linkplain AccessionRange}
+ * that has not been harvested yet in a file, allowing interrupted harvests to be resumed.
+ * Cursors are stored per range, so changing the harvested ranges invalidates the
+ * cursors of the ranges that were removed or changed.
+ *
+ * @author Robin Weiss
+ */
+public class AccessionCheckpoint
+{
+    private final Path checkpointPath;
+    private final Properties cursors;
+
+
+    /**
+     * Constructor.
+     *
+     * @param checkpointFile the file in which the cursors are stored
+     */
+    public AccessionCheckpoint(final File checkpointFile)
+    {
+        this.checkpointPath = checkpointFile.toPath();
+        this.cursors = new Properties();
+    }
+
+
+    /**
+     * Reads all cursors from the checkpoint file, if it exists.
+     *
+     * @throws IOException if the file exists, but could not be read
+     */
+    public synchronized void load() throws IOException
+    {
+        cursors.clear();
+
+        if (Files.exists(checkpointPath)) {
+            try
+                (InputStream inputStream = Files.newInputStream(checkpointPath)) {
+                cursors.load(inputStream);
+            }
+        }
+    }
+
+
+    /**
+     * Returns the first accession number of a range that has not been harvested yet.
+     *
+     * @param range the range of which the cursor is retrieved
+     *
+     * @return the first accession number that has not been harvested yet,
+     *          or the first number of the range if there is no valid cursor
+     */
+    public synchronized int getCursor(final AccessionRange range)
+    {
+        final String cursor = cursors.getProperty(range.toString());
+
+        try {
+            if (cursor != null) {
+                final int nextNumber = Integer.parseInt(cursor);
+
+                if (nextNumber >= range.getFromNumber() && nextNumber <= range.getToNumber() + 1)
+                    return nextNumber;
+            }
+        } catch (final NumberFormatException ignored) { // NOPMD a malformed cursor means a cold start
+        }
+
+        return range.getFromNumber();
+    }
+
+
+    /**
+     * Checks if there are cursors of an interrupted harvest.
+     *
+     * @return true if no cursors are stored
+     */
+    public synchronized boolean isEmpty()
+    {
+        return cursors.isEmpty();
+    }
+
+
+    /**
+     * Changes the cursor of a range and writes all cursors to the checkpoint file.
+     * The file is replaced atomically, so an interrupted write cannot corrupt it.
+     *
+     * @param range the range of which the cursor is changed
+     * @param nextNumber the first accession number that has not been harvested yet
+     *
+     * @throws IOException if the checkpoint file could not be written
+     */
+    public synchronized void save(final AccessionRange range, final int nextNumber) throws IOException
+    {
+        cursors.setProperty(range.toString(), String.valueOf(nextNumber));
+
+        final Path parentPath = checkpointPath.toAbsolutePath().getParent();
+
+        if (parentPath != null)
+            Files.createDirectories(parentPath);
+
+        final Path tempPath = checkpointPath.resolveSibling(checkpointPath.getFileName() + EnaConstants.TEMP_FILE_SUFFIX);
+
+        try
+            (OutputStream outputStream = Files.newOutputStream(tempPath)) {
+            cursors.store(outputStream, null);
+        }
+
+        Files.move(tempPath, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+
+    /**
+     * Removes all cursors and deletes the checkpoint file.
+     *
+     * @throws IOException if the checkpoint file could not be deleted
+     */
+    public synchronized void delete() throws IOException
+    {
+        cursors.clear();
+        Files.deleteIfExists(checkpointPath);
+    }
+}
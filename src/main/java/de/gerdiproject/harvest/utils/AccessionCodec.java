@@ -0,0 +1,356 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import de.gerdiproject.harvest.ena.constants.EnaConstants;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+
+/**
+ * This class encodes accessions as primitive long values, which consist of
+ * a letter prefix of up to six characters, the minimum number of digits, and the number.
+ * Encoded accessions can be incremented, compared, and formatted without
+ * allocating intermediate objects.<br>
+ * Bits 0 to 29 contain the number, bits 30 to 33 the minimum number of digits,
+ * and bits 34 to 63 five bits per prefix character, starting with the first character.
+ * Prefixes that start with the letters P to Z occupy the sign bit, so encoded accessions
+ * must be compared via {@linkplain Long#compareUnsigned(long, long)}, which orders them
+ * by prefix, then by the minimum number of digits, and then by number.
+ *
+ * @author Robin Weiss
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class AccessionCodec
+{
+    /**
+     * The value that represents an accession that could not be encoded.
+     * It is ordered after all encoded accessions if compared as an unsigned value.
+     */
+    public static final long INVALID = -1L;
+
+    private static final int NUMBER_BITS = 30;
+    private static final int WIDTH_BITS = 4;
+    private static final int CHAR_BITS = 5;
+    private static final int MAX_PREFIX_LENGTH = 6;
+    private static final int PREFIX_SHIFT = NUMBER_BITS + WIDTH_BITS;
+
+    private static final long NUMBER_MASK = (1L << NUMBER_BITS) - 1L;
+    private static final long WIDTH_MASK = (1L << WIDTH_BITS) - 1L;
+    private static final long CHAR_MASK = (1L << CHAR_BITS) - 1L;
+
+    private static final int UNDERSCORE_CODE = 27;
+    private static final int[] POWERS_OF_TEN = {
+        1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000, 1000000000
+    };
+
+
+    /**
+     * Encodes an accession.
+     *
+     * @param prefix the letter prefix of the accession, consisting of up to six
+     *          upper case letters or underscores
+     * @param number the number of the accession
+     * @param width the minimum number of digits, up to which the number is zero-padded
+     *
+     * @throws IllegalArgumentException if the prefix, number, or width cannot be encoded
+     *
+     * @return the encoded accession
+     */
+    public static long encode(final CharSequence prefix, final int number, final int width) throws IllegalArgumentException
+    {
+        final int prefixLength = prefix.length();
+
+        if (prefixLength > MAX_PREFIX_LENGTH
+            || width < 0 || width > EnaConstants.MAX_ACCESSION_NUMBER_LENGTH
+            || number < 0 || number > NUMBER_MASK)
+            throw new IllegalArgumentException(String.format(EnaConstants.INVALID_ACCESSION_ERROR, prefix));
+
+        long code = 0L;
+
+        for (int i = 0; i < prefixLength; i++) {
+            final int charCode = encodeChar(prefix.charAt(i));
+
+            if (charCode == 0)
+                throw new IllegalArgumentException(String.format(EnaConstants.INVALID_ACCESSION_ERROR, prefix));
+
+            code |= (long) charCode << getCharShift(i);
+        }
+
+        return code | (long) width << NUMBER_BITS | number;
+    }
+
+
+    /**
+     * Encodes an accession that consists of a letter prefix and a number.
+     * The minimum number of digits is the number of digits of the accession.
+     *
+     * @param accession an accession, such as BC000001
+     *
+     * @return the encoded accession, or {@linkplain #INVALID} if it cannot be encoded
+     */
+    public static long parse(final CharSequence accession)
+    {
+        final int length = accession.length();
+        int prefixLength = 0;
+
+        while (prefixLength < length && !isDigit(accession.charAt(prefixLength)))
+            prefixLength++;
+
+        final int width = length - prefixLength;
+
+        if (prefixLength > MAX_PREFIX_LENGTH || width == 0 || width > EnaConstants.MAX_ACCESSION_NUMBER_LENGTH)
+            return INVALID;
+
+        long code = 0L;
+
+        for (int i = 0; i < prefixLength; i++) {
+            final int charCode = encodeChar(accession.charAt(i));
+
+            if (charCode == 0)
+                return INVALID;
+
+            code |= (long) charCode << getCharShift(i);
+        }
+
+        int number = 0;
+
+        for (int i = prefixLength; i < length; i++) {
+            final char c = accession.charAt(i);
+
+            if (!isDigit(c))
+                return INVALID;
+
+            number = number * 10 + c - '0';
+        }
+
+        return number > NUMBER_MASK
+               ? INVALID
+               : code | (long) width << NUMBER_BITS | number;
+    }
+
+
+    /**
+     * Returns the number of an encoded accession.
+     *
+     * @param code an encoded accession
+     *
+     * @return the number of the accession
+     */
+    public static int getNumber(final long code)
+    {
+        return (int)(code & NUMBER_MASK);
+    }
+
+
+    /**
+     * Returns the minimum number of digits of an encoded accession.
+     *
+     * @param code an encoded accession
+     *
+     * @return the minimum number of digits
+     */
+    public static int getWidth(final long code)
+    {
+        return (int)(code >>> NUMBER_BITS & WIDTH_MASK);
+    }
+
+
+    /**
+     * Returns the letter prefix of an encoded accession.
+     *
+     * @param code an encoded accession
+     *
+     * @return the letter prefix of the accession
+     */
+    public static String getPrefix(final long code)
+    {
+        final StringBuilder prefixBuilder = new StringBuilder(MAX_PREFIX_LENGTH);
+        appendPrefix(code, prefixBuilder);
+        return prefixBuilder.toString();
+    }
+
+
+    /**
+     * Replaces the number of an encoded accession.
+     *
+     * @param code an encoded accession
+     * @param number the new number
+     *
+     * @throws IllegalArgumentException if the number cannot be encoded
+     *
+     * @return the encoded accession with the new number
+     */
+    public static long withNumber(final long code, final int number) throws IllegalArgumentException
+    {
+        if (number < 0 || number > NUMBER_MASK)
+            throw new IllegalArgumentException(String.format(EnaConstants.INVALID_ACCESSION_ERROR, number));
+
+        return code & ~NUMBER_MASK | number;
+    }
+
+
+    /**
+     * Adds a value to the number of an encoded accession.
+     *
+     * @param code an encoded accession
+     * @param delta the value that is added to the number
+     *
+     * @throws IllegalArgumentException if the resulting number cannot be encoded
+     *
+     * @return the encoded accession with the changed number
+     */
+    public static long add(final long code, final int delta) throws IllegalArgumentException
+    {
+        return withNumber(code, getNumber(code) + delta);
+    }
+
+
+    /**
+     * Checks if two encoded accessions have the same prefix and minimum number of digits,
+     * which means that all accessions between them can be enumerated.
+     *
+     * @param code an encoded accession
+     * @param otherCode another encoded accession
+     *
+     * @return true if both accessions have the same prefix and minimum number of digits
+     */
+    public static boolean isSameSeries(final long code, final long otherCode)
+    {
+        return (code & ~NUMBER_MASK) == (otherCode & ~NUMBER_MASK);
+    }
+
+
+    /**
+     * Appends an encoded accession to a buffer, zero-padding the number
+     * up to the minimum number of digits.
+     *
+     * @param code an encoded accession
+     * @param buffer the buffer to which the accession is appended
+     *
+     * @return the buffer
+     */
+    public static StringBuilder appendTo(final long code, final StringBuilder buffer)
+    {
+        appendPrefix(code, buffer);
+
+        final int number = getNumber(code);
+        int digitCount = 1;
+
+        while (digitCount < POWERS_OF_TEN.length && number >= POWERS_OF_TEN[digitCount])
+            digitCount++;
+
+        for (int i = getWidth(code); i > digitCount; i--)
+            buffer.append('0');
+
+        for (int i = digitCount - 1; i >= 0; i--)
+            buffer.append((char)('0' + number / POWERS_OF_TEN[i] % 10));
+
+        return buffer;
+    }
+
+
+    /**
+     * Formats an encoded accession, zero-padding the number
+     * up to the minimum number of digits.
+     *
+     * @param code an encoded accession
+     *
+     * @return the accession
+     */
+    public static String toString(final long code)
+    {
+        return appendTo(code, new StringBuilder(MAX_PREFIX_LENGTH + EnaConstants.MAX_ACCESSION_NUMBER_LENGTH)).toString();
+    }
+
+
+    /**
+     * Checks if a string matches one of the known accession formats.
+     *
+     * @param accession the string that is to be checked
+     *
+     * @return true if the string is a valid accession
+     */
+    public static boolean isValidAccession(final String accession)
+    {
+        return EnaConstants.ACCESSION_NUMBER_PATTERN.matcher(accession).matches();
+    }
+
+
+    /**
+     * Appends the letter prefix of an encoded accession to a buffer.
+     *
+     * @param code an encoded accession
+     * @param buffer the buffer to which the prefix is appended
+     */
+    private static void appendPrefix(final long code, final StringBuilder buffer)
+    {
+        for (int i = 0; i < MAX_PREFIX_LENGTH; i++) {
+            final int charCode = (int)(code >>> getCharShift(i) & CHAR_MASK);
+
+            if (charCode == 0)
+                break;
+
+            buffer.append(charCode == UNDERSCORE_CODE ? '_' : (char)('A' + charCode - 1));
+        }
+    }
+
+
+    /**
+     * Returns the bit position of a prefix character.
+     *
+     * @param index the index of the character within the prefix
+     *
+     * @return the bit position of the lowest bit of the character
+     */
+    private static int getCharShift(final int index)
+    {
+        return PREFIX_SHIFT + CHAR_BITS * (MAX_PREFIX_LENGTH - 1 - index);
+    }
+
+
+    /**
+     * Encodes a prefix character.
+     *
+     * @param c a character of a prefix
+     *
+     * @return a value between 1 and 27, or 0 if the character cannot be part of a prefix
+     */
+    private static int encodeChar(final char c)
+    {
+        if (c >= 'A' && c <= 'Z')
+            return c - 'A' + 1;
+
+        if (c == '_')
+            return UNDERSCORE_CODE;
+
+        return 0;
+    }
+
+
+    /**
+     * Checks if a character is an ASCII digit.
+     *
+     * @param c the character that is checked
+     *
+     * @return true if the character is a digit from 0 to 9
+     */
+    private static boolean isDigit(final char c)
+    {
+        return c >= '0' && c <= '9';
+    }
+}
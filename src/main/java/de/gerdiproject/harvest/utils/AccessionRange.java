@@ -0,0 +1,267 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+
+import de.gerdiproject.harvest.ena.constants.EnaConstants;
+
+
+/**
+ * This class represents a range of accession numbers that share the same
+ * letter prefix and the same number of digits.
+ *
+ * @author Robin Weiss
+ */
+public class AccessionRange
+{
+    private final String prefix;
+    private final int fromNumber;
+    private final int toNumber;
+    private final long accessionCode;
+
+
+    /**
+     * Constructor.
+     *
+     * @param prefix the letter prefix of all accessions within the range
+     * @param fromNumber the first accession number of the range
+     * @param toNumber the last accession number of the range
+     * @param numberLength the number of digits of each accession number
+     *
+     * @throws IllegalArgumentException if the prefix or the numbers cannot be encoded
+     */
+    public AccessionRange(final String prefix, final int fromNumber, final int toNumber, final int numberLength)
+    {
+        this.prefix = prefix;
+        this.fromNumber = fromNumber;
+        this.toNumber = toNumber;
+        this.accessionCode = AccessionCodec.encode(prefix, fromNumber, numberLength);
+    }
+
+
+    /**
+     * Returns the letter prefix of all accessions within the range.
+     *
+     * @return the letter prefix of all accessions within the range
+     */
+    public String getPrefix()
+    {
+        return prefix;
+    }
+
+
+    /**
+     * Returns the first accession number of the range.
+     *
+     * @return the first accession number of the range
+     */
+    public int getFromNumber()
+    {
+        return fromNumber;
+    }
+
+
+    /**
+     * Returns the last accession number of the range.
+     *
+     * @return the last accession number of the range
+     */
+    public int getToNumber()
+    {
+        return toNumber;
+    }
+
+
+    /**
+     * Returns the accession of a specified number of this range.
+     *
+     * @param number the number part of the accession
+     *
+     * @return the accession, consisting of prefix and zero-padded number
+     */
+    public String getAccession(final int number)
+    {
+        return AccessionCodec.toString(AccessionCodec.withNumber(accessionCode, number));
+    }
+
+
+    /**
+     * Appends the accession of a specified number of this range to a buffer.
+     *
+     * @param number the number part of the accession
+     * @param buffer the buffer to which the accession is appended
+     *
+     * @return the buffer
+     */
+    public StringBuilder appendAccession(final int number, final StringBuilder buffer)
+    {
+        return AccessionCodec.appendTo(AccessionCodec.withNumber(accessionCode, number), buffer);
+    }
+
+
+    /**
+     * Returns the number of accession numbers within this range.
+     *
+     * @return the number of accession numbers within this range
+     */
+    public int size()
+    {
+        return 1 + toNumber - fromNumber;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return getAccession(fromNumber) + EnaConstants.ACCESSION_RANGE_SEPARATOR + getAccession(toNumber);
+    }
+
+
+    /**
+     * Parses an accession range. Valid formats are a single accession (e.g. BC000001),
+     * which spans all numbers of the same length that follow it, a pair of accessions
+     * (e.g. BC000001-BC050000), or a letter prefix (e.g. BC), which spans all numbers of the
+     * common length for prefixes of that size. Versions of accessions (e.g. BC000001.1)
+     * are ignored, because a range spans all versions of its accessions.
+     *
+     * @param rangeString the range that is to be parsed
+     *
+     * @throws IllegalArgumentException if the range is not valid
+     *
+     * @return the parsed range
+     */
+    public static AccessionRange parse(final String rangeString) throws IllegalArgumentException
+    {
+        final Matcher matcher = EnaConstants.ACCESSION_RANGE_PATTERN.matcher(rangeString.trim().toUpperCase(Locale.ENGLISH));
+
+        if (!matcher.matches())
+            throw new IllegalArgumentException(String.format(EnaConstants.INVALID_ACCESSION_RANGE_ERROR, rangeString));
+
+        final String prefix = matcher.group(1);
+        final String fromDigits = matcher.group(2);
+        final String toPrefix = matcher.group(3);
+        final String toDigits = matcher.group(4);
+
+        final int numberLength = fromDigits.isEmpty()
+                                 ? getDefaultNumberLength(prefix, rangeString)
+                                 : fromDigits.length();
+
+        if (numberLength > EnaConstants.MAX_ACCESSION_NUMBER_LENGTH)
+            throw new IllegalArgumentException(String.format(EnaConstants.INVALID_ACCESSION_RANGE_ERROR, rangeString));
+
+        final int fromNumber = fromDigits.isEmpty() ? 0 : Integer.parseInt(fromDigits);
+        final int toNumber;
+
+        if (toDigits == null)
+            toNumber = (int) Math.pow(10, numberLength) - 1;
+
+        else if (prefix.equals(toPrefix) && toDigits.length() == numberLength)
+            toNumber = Integer.parseInt(toDigits);
+
+        else
+            throw new IllegalArgumentException(String.format(EnaConstants.INVALID_ACCESSION_RANGE_ERROR, rangeString));
+
+        if (toNumber < fromNumber)
+            throw new IllegalArgumentException(String.format(EnaConstants.INVALID_ACCESSION_RANGE_ERROR, rangeString));
+
+        return new AccessionRange(prefix, fromNumber, toNumber, numberLength);
+    }
+
+
+    /**
+     * Parses a list of accession ranges that are separated by commas, semicolons, or whitespace.
+     * If the list starts with '@', the remainder is treated as the path to a file
+     * that contains the ranges. Lines of the file that start with '#' are ignored.
+     *
+     * @param rangeListString a list of ranges, or a path to a file of ranges
+     *
+     * @throws IllegalArgumentException if the file cannot be read or a range is not valid
+     *
+     * @return a list of parsed ranges
+     */
+    public static List<AccessionRange> parseList(final String rangeListString) throws IllegalArgumentException
+    {
+        final List<AccessionRange> ranges = new LinkedList<>();
+
+        for (final String rangeString : readRangeStrings(rangeListString)) {
+            if (!rangeString.isEmpty())
+                ranges.add(parse(rangeString));
+        }
+
+        return ranges;
+    }
+
+
+    /**
+     * Splits a list of accession ranges, reading them from a file if needed.
+     *
+     * @param rangeListString a list of ranges, or a path to a file of ranges
+     *
+     * @return an array of unparsed ranges
+     */
+    private static String[] readRangeStrings(final String rangeListString)
+    {
+        final String trimmedList = rangeListString.trim();
+
+        if (!trimmedList.startsWith(EnaConstants.ACCESSION_RANGE_FILE_PREFIX))
+            return trimmedList.split(EnaConstants.ACCESSION_RANGE_LIST_SEPARATOR);
+
+        final StringBuilder rangeBuilder = new StringBuilder();
+        final String filePath = trimmedList.substring(EnaConstants.ACCESSION_RANGE_FILE_PREFIX.length());
+
+        try {
+            for (final String line : Files.readAllLines(Paths.get(filePath), StandardCharsets.UTF_8)) {
+                if (!line.trim().startsWith(EnaConstants.ACCESSION_RANGE_FILE_COMMENT))
+                    rangeBuilder.append(line).append('\n');
+            }
+        } catch (final IOException e) {
+            throw new IllegalArgumentException(String.format(EnaConstants.ACCESSION_RANGE_FILE_ERROR, filePath), e);
+        }
+
+        return rangeBuilder.toString().trim().split(EnaConstants.ACCESSION_RANGE_LIST_SEPARATOR);
+    }
+
+
+    /**
+     * Returns the number of digits that commonly follow a letter prefix of a specified length.
+     *
+     * @param prefix the letter prefix of an accession
+     * @param rangeString the range that is being parsed, used for error messages
+     *
+     * @throws IllegalArgumentException if there is no common number of digits for the prefix
+     *
+     * @return the number of digits that commonly follow the prefix
+     */
+    private static int getDefaultNumberLength(final String prefix, final String rangeString) throws IllegalArgumentException
+    {
+        final int prefixLength = prefix.length();
+
+        if (prefixLength >= EnaConstants.DEFAULT_ACCESSION_NUMBER_LENGTHS.size()
+            || EnaConstants.DEFAULT_ACCESSION_NUMBER_LENGTHS.get(prefixLength) == 0)
+            throw new IllegalArgumentException(String.format(EnaConstants.INVALID_ACCESSION_RANGE_ERROR, rangeString));
+
+        return EnaConstants.DEFAULT_ACCESSION_NUMBER_LENGTHS.get(prefixLength);
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import de.gerdiproject.harvest.ena.constants.EnaConstants;
+
+
+/**
+ * This class maps accessions to a fingerprint of their version and last update date,
+ * in order to recognize entries that have not changed since a previous harvest.
+ * The accession numbers of each prefix are stored in primitive hash tables,
+ * requiring between 16 and 32 bytes per accession in memory, and at most
+ * 12 bytes per accession in the compressed index file.<br>
+ * New versions are staged first, and only become part of the index when they are
+ * committed, such that versions of entries that were not processed completely
+ * are never stored. This class is not thread-safe.
+ *
+ * @author Robin Weiss
+ */
+public class AccessionVersionIndex
+{
+    private final Path indexPath;
+    private final Map<String, NumberTable> prefixTables;
+    private final Map<String, NumberTable> stagedTables;
+    private boolean isModified;
+
+
+    /**
+     * Constructor.
+     *
+     * @param indexFile the file in which the index is stored
+     */
+    public AccessionVersionIndex(final File indexFile)
+    {
+        this.indexPath = indexFile.toPath();
+        this.prefixTables = new HashMap<>();
+        this.stagedTables = new HashMap<>();
+    }
+
+
+    /**
+     * Replaces the index with the content of the index file, if it exists.
+     * Staged versions are discarded.
+     *
+     * @throws IOException if the file exists, but could not be read
+     */
+    public void load() throws IOException
+    {
+        prefixTables.clear();
+        stagedTables.clear();
+        isModified = false;
+
+        if (!Files.exists(indexPath))
+            return;
+
+        try
+            (DataInputStream input = new DataInputStream(
+                                         new BufferedInputStream(
+                                             new GZIPInputStream(Files.newInputStream(indexPath))))) {
+            final int prefixCount = input.readInt();
+
+            for (int i = 0; i < prefixCount; i++) {
+                final String prefix = input.readUTF();
+                final int accessionCount = input.readInt();
+                final NumberTable table = new NumberTable(accessionCount);
+
+                for (int j = 0; j < accessionCount; j++)
+                    table.put(input.readInt(), input.readLong());
+
+                prefixTables.put(prefix, table);
+            }
+        }
+    }
+
+
+    /**
+     * Writes the index to the index file, if it was modified since it was loaded.
+     * Versions that are staged, but not committed, are not written.
+     * The file is replaced atomically, so an interrupted write cannot corrupt it.
+     *
+     * @throws IOException if the index file could not be written
+     */
+    public void save() throws IOException
+    {
+        if (!isModified)
+            return;
+
+        final Path parentPath = indexPath.toAbsolutePath().getParent();
+
+        if (parentPath != null)
+            Files.createDirectories(parentPath);
+
+        final Path tempPath = indexPath.resolveSibling(indexPath.getFileName() + EnaConstants.TEMP_FILE_SUFFIX);
+
+        try
+            (DataOutputStream output = new DataOutputStream(
+                                           new BufferedOutputStream(
+                                               new GZIPOutputStream(Files.newOutputStream(tempPath))))) {
+            output.writeInt(prefixTables.size());
+
+            for (final Map.Entry<String, NumberTable> prefixEntry : prefixTables.entrySet()) {
+                output.writeUTF(prefixEntry.getKey());
+                prefixEntry.getValue().write(output);
+            }
+        }
+
+        Files.move(tempPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        isModified = false;
+    }
+
+
+    /**
+     * Checks if the version and last update date of an accession differ
+     * from the committed values.
+     *
+     * @param accession the accession of an entry
+     * @param version the version of the entry
+     * @param lastUpdated the date of the last update of the entry
+     *
+     * @return true if the accession was not indexed before or has changed,
+     *          or if the accession cannot be indexed
+     */
+    public boolean hasChanged(final String accession, final String version, final String lastUpdated)
+    {
+        final Matcher matcher = matchAccession(accession);
+
+        if (matcher == null)
+            return true;
+
+        final NumberTable table = prefixTables.get(matcher.group(1));
+        return table == null || !table.contains(Integer.parseInt(matcher.group(2)), getFingerprint(version, lastUpdated));
+    }
+
+
+    /**
+     * Stages the version and last update date of an accession,
+     * until they are committed via {@linkplain #commit()}.
+     *
+     * @param accession the accession of an entry
+     * @param version the version of the entry
+     * @param lastUpdated the date of the last update of the entry
+     */
+    public void update(final String accession, final String version, final String lastUpdated)
+    {
+        final Matcher matcher = matchAccession(accession);
+
+        if (matcher != null)
+            stagedTables.computeIfAbsent(matcher.group(1), (final String p) -> new NumberTable(0))
+            .put(Integer.parseInt(matcher.group(2)), getFingerprint(version, lastUpdated));
+    }
+
+
+    /**
+     * Adds all staged versions to the index.
+     */
+    public void commit()
+    {
+        for (final Map.Entry<String, NumberTable> stagedEntry : stagedTables.entrySet()) {
+            final NumberTable table = prefixTables.computeIfAbsent(stagedEntry.getKey(), (final String p) -> new NumberTable(0));
+            isModified |= table.putAll(stagedEntry.getValue());
+        }
+
+        stagedTables.clear();
+    }
+
+
+    /**
+     * Splits an accession into its prefix and its number, if it can be indexed.
+     *
+     * @param accession the accession of an entry
+     *
+     * @return a matcher of which the first group is the prefix and the second
+     *          group is the number, or null if the accession cannot be indexed
+     */
+    private static Matcher matchAccession(final String accession)
+    {
+        if (accession == null)
+            return null;
+
+        final Matcher matcher = EnaConstants.INDEXED_ACCESSION_PATTERN.matcher(accession);
+
+        if (!matcher.matches() || matcher.group(2).length() > EnaConstants.MAX_ACCESSION_NUMBER_LENGTH)
+            return null;
+
+        return matcher;
+    }
+
+
+    /**
+     * Returns the number of indexed accessions.
+     *
+     * @return the number of indexed accessions
+     */
+    public long size()
+    {
+        long size = 0;
+
+        for (final NumberTable table : prefixTables.values())
+            size += table.size();
+
+        return size;
+    }
+
+
+    /**
+     * Combines the hash codes of the version and the last update date to a single value.
+     * The hash codes of {@linkplain String}s are specified, and thus stable across restarts.
+     *
+     * @param version the version of an entry
+     * @param lastUpdated the date of the last update of an entry
+     *
+     * @return a fingerprint of both values
+     */
+    private static long getFingerprint(final String version, final String lastUpdated)
+    {
+        return ((long) Objects.hashCode(version) << 32) | (Objects.hashCode(lastUpdated) & 0xFFFFFFFFL);
+    }
+
+
+    /**
+     * A hash table with open addressing that maps non-negative accession numbers
+     * to fingerprints, without boxing either of them.
+     *
+     * @author Robin Weiss
+     */
+    private static class NumberTable
+    {
+        private static final int EMPTY_KEY = -1;
+        private static final int MIN_CAPACITY = 16;
+
+        private int[] keys;
+        private long[] values;
+        private int size;
+
+
+        /**
+         * Constructor.
+         *
+         * @param expectedSize the number of accessions that are expected to be stored
+         */
+        public NumberTable(final int expectedSize)
+        {
+            int capacity = MIN_CAPACITY;
+
+            while (capacity * 3 < expectedSize * 4)
+                capacity *= 2;
+
+            allocate(capacity);
+        }
+
+
+        /**
+         * Stores the fingerprint of an accession number.
+         *
+         * @param number the accession number
+         * @param fingerprint the fingerprint of the accession
+         *
+         * @return true if the number was not stored before, or had a different fingerprint
+         */
+        public boolean put(final int number, final long fingerprint)
+        {
+            final int slot = findSlot(keys, number);
+
+            if (keys[slot] == number) {
+                final boolean hasChanged = values[slot] != fingerprint;
+                values[slot] = fingerprint;
+                return hasChanged;
+            }
+
+            keys[slot] = number;
+            values[slot] = fingerprint;
+            size++;
+
+            // keep the load factor below 0.75
+            if (size * 4 > keys.length * 3)
+                grow();
+
+            return true;
+        }
+
+
+        /**
+         * Checks if an accession number is stored with a specified fingerprint.
+         *
+         * @param number the accession number
+         * @param fingerprint the fingerprint of the accession
+         *
+         * @return true if the number is stored with the same fingerprint
+         */
+        public boolean contains(final int number, final long fingerprint)
+        {
+            final int slot = findSlot(keys, number);
+            return keys[slot] == number && values[slot] == fingerprint;
+        }
+
+
+        /**
+         * Stores all accession numbers and fingerprints of another table.
+         *
+         * @param other the table of which the numbers are stored
+         *
+         * @return true if any number was not stored before, or had a different fingerprint
+         */
+        public boolean putAll(final NumberTable other)
+        {
+            boolean hasChanged = false;
+
+            for (int i = 0; i < other.keys.length; i++) {
+                if (other.keys[i] != EMPTY_KEY)
+                    hasChanged |= put(other.keys[i], other.values[i]);
+            }
+
+            return hasChanged;
+        }
+
+
+        /**
+         * Returns the number of stored accession numbers.
+         *
+         * @return the number of stored accession numbers
+         */
+        public int size()
+        {
+            return size;
+        }
+
+
+        /**
+         * Writes the number of stored accessions, followed by all
+         * accession numbers and their fingerprints.
+         *
+         * @param output the stream to which the table is written
+         *
+         * @throws IOException if the table could not be written
+         */
+        public void write(final DataOutputStream output) throws IOException
+        {
+            output.writeInt(size);
+
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY_KEY) {
+                    output.writeInt(keys[i]);
+                    output.writeLong(values[i]);
+                }
+            }
+        }
+
+
+        /**
+         * Doubles the capacity of the table and re-inserts all numbers.
+         */
+        private void grow()
+        {
+            final int[] oldKeys = keys;
+            final long[] oldValues = values;
+            allocate(oldKeys.length * 2);
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY_KEY) {
+                    final int slot = findSlot(keys, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+
+        /**
+         * Creates empty arrays of a specified capacity.
+         *
+         * @param capacity a power of two
+         */
+        private void allocate(final int capacity)
+        {
+            this.keys = new int[capacity];
+            this.values = new long[capacity];
+            Arrays.fill(keys, EMPTY_KEY);
+        }
+
+
+        /**
+         * Returns the slot that contains a number, or the empty slot
+         * in which it would be inserted.
+         *
+         * @param table the keys of the hash table
+         * @param number the number that is looked up
+         *
+         * @return the index of the slot
+         */
+        private static int findSlot(final int[] table, final int number)
+        {
+            final int mask = table.length - 1;
+
+            // scramble the bits, because consecutive numbers would otherwise form long clusters
+            final int scrambled = number * 0x9E3779B9;
+            int slot = (scrambled ^ (scrambled >>> 16)) & mask;
+
+            while (table[slot] != EMPTY_KEY && table[slot] != number)
+                slot = (slot + 1) & mask;
+
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.gerdiproject.harvest.ena.constants.EnaConstants;
+
+
+/**
+ * This class calculates the number of elements that are to be requested
+ * in a single batch request, based on the outcome of previous requests.
+ * The batch size shrinks if responses are slow, large, or fail, and
+ * grows again if responses are fast or contain fewer entries than requested.
+ * The configured batch size is used as starting point and upper limit.<br>
+ * All methods are thread-safe, so batches can be requested concurrently.
+ *
+ * @author Robin Weiss
+ */
+public class AdaptiveBatchSizer
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveBatchSizer.class);
+
+    private final String name;
+    private final int maxBatchSize;
+    private int batchSize;
+
+
+    /**
+     * Constructor.
+     *
+     * @param name a name that identifies the batches in log messages
+     * @param maxBatchSize the initial and maximum batch size
+     */
+    public AdaptiveBatchSizer(final String name, final int maxBatchSize)
+    {
+        this.name = name;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.batchSize = this.maxBatchSize;
+    }
+
+
+    /**
+     * Returns the number of elements that are to be requested in the next batch.
+     *
+     * @return the current effective batch size
+     */
+    public synchronized int getBatchSize()
+    {
+        return batchSize;
+    }
+
+
+    /**
+     * Adapts the batch size to the outcome of a successful batch request.
+     *
+     * @param requestedCount the number of elements that were requested
+     * @param retrievedCount the number of elements that were retrieved
+     * @param latency the number of milliseconds it took to receive the response
+     * @param payloadBytes the size of the response in bytes, or a negative value if it is unknown
+     */
+    public synchronized void onBatchRetrieved(final int requestedCount, final int retrievedCount, final long latency, final long payloadBytes)
+    {
+        final boolean isTooSlow = latency > EnaConstants.BATCH_TARGET_LATENCY;
+        final boolean isTooLarge = payloadBytes > EnaConstants.BATCH_MAX_PAYLOAD_BYTES;
+
+        if (isTooSlow || isTooLarge) {
+            // shrink proportionally to the largest excess
+            double shrinkFactor = 1.0;
+
+            if (isTooSlow)
+                shrinkFactor = Math.min(shrinkFactor, (double) EnaConstants.BATCH_TARGET_LATENCY / latency);
+
+            if (isTooLarge)
+                shrinkFactor = Math.min(shrinkFactor, (double) EnaConstants.BATCH_MAX_PAYLOAD_BYTES / payloadBytes);
+
+            setBatchSize((int)(requestedCount * shrinkFactor));
+
+        } else if (retrievedCount < requestedCount / 2)
+            // sparse responses waste round-trips
+            setBatchSize(2 * batchSize);
+
+        else if (latency < EnaConstants.BATCH_TARGET_LATENCY / 2)
+            setBatchSize(batchSize + Math.max(1, batchSize / 4));
+    }
+
+
+    /**
+     * Halves the batch size after a batch request failed.
+     */
+    public synchronized void onBatchFailed()
+    {
+        setBatchSize(batchSize / 2);
+    }
+
+
+    /**
+     * Changes the batch size within the allowed bounds and logs the change.
+     *
+     * @param newBatchSize the new batch size
+     */
+    private void setBatchSize(final int newBatchSize)
+    {
+        final int boundedBatchSize = Math.max(1, Math.min(maxBatchSize, newBatchSize));
+
+        if (boundedBatchSize != batchSize) {
+            LOGGER.info(String.format(EnaConstants.BATCH_SIZE_CHANGED, name, batchSize, boundedBatchSize));
+            batchSize = boundedBatchSize;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+
+/**
+ * This class maps frequently repeating {@linkplain String}s to canonical
+ * instances, such that equal values share a single object on the heap.
+ * The dictionary is thread-safe and bounded: values are stored in a young and an old
+ * generation, and once the young generation is full, the old generation is evicted.
+ * Values that are looked up frequently are thereby kept, while rare values are dropped.
+ *
+ * @param <T> the type of the canonical instances
+ *
+ * @author Robin Weiss
+ */
+public class BoundedInterner<T>
+{
+    private final int generationSize;
+    private final LongAdder hitCount;
+    private final LongAdder missCount;
+    private volatile Map<String, T> youngGeneration;
+    private volatile Map<String, T> oldGeneration;
+
+
+    /**
+     * Constructor.
+     *
+     * @param maxSize the maximum number of values that are kept
+     */
+    public BoundedInterner(final int maxSize)
+    {
+        this.generationSize = Math.max(1, maxSize / 2);
+        this.hitCount = new LongAdder();
+        this.missCount = new LongAdder();
+        this.youngGeneration = new ConcurrentHashMap<>();
+        this.oldGeneration = new ConcurrentHashMap<>();
+    }
+
+
+    /**
+     * Returns the canonical instance of a value, creating it if the value
+     * is not part of the dictionary.
+     *
+     * @param value the value of which the canonical instance is retrieved
+     * @param factory a function that creates a new instance of a value
+     *
+     * @return the canonical instance of the value, or a new instance if the value is null
+     */
+    public T get(final String value, final Function<String, T> factory)
+    {
+        if (value == null)
+            return factory.apply(null);
+
+        final Map<String, T> young = youngGeneration;
+        final T youngInstance = young.get(value);
+
+        if (youngInstance != null) {
+            hitCount.increment();
+            return youngInstance;
+        }
+
+        // promote values of the old generation, so they survive the next eviction
+        T instance = oldGeneration.get(value);
+
+        if (instance == null) {
+            missCount.increment();
+            instance = factory.apply(value);
+        } else
+            hitCount.increment();
+
+        final T concurrentInstance = young.putIfAbsent(value, instance);
+
+        if (concurrentInstance != null)
+            return concurrentInstance;
+
+        if (young.size() >= generationSize)
+            evict(young);
+
+        return instance;
+    }
+
+
+    /**
+     * Returns the number of lookups that returned a previously created instance.
+     *
+     * @return the number of reused instances
+     */
+    public long getHitCount()
+    {
+        return hitCount.sum();
+    }
+
+
+    /**
+     * Returns the number of lookups that had to create a new instance.
+     *
+     * @return the number of created instances
+     */
+    public long getMissCount()
+    {
+        return missCount.sum();
+    }
+
+
+    /**
+     * Returns the number of values that are currently stored.
+     *
+     * @return the number of stored values
+     */
+    public int size()
+    {
+        return youngGeneration.size() + oldGeneration.size();
+    }
+
+
+    /**
+     * Evicts the old generation and turns the full young generation into the old one.
+     *
+     * @param fullGeneration the young generation that exceeded its size
+     */
+    private synchronized void evict(final Map<String, T> fullGeneration)
+    {
+        // another thread may have evicted the generation already
+        if (youngGeneration == fullGeneration) {
+            oldGeneration = fullGeneration;
+            youngGeneration = new ConcurrentHashMap<>();
+        }
+    }
+}
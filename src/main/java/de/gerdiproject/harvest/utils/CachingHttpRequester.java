@@ -0,0 +1,451 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.net.HttpURLConnection;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import de.gerdiproject.harvest.ena.constants.EnaConstants;
+
+
+/**
+ * This class sends HTTP GET requests and stores the response bodies of successful
+ * requests gzip-compressed in a cache folder, together with their ETag and Last-Modified
+ * headers. Subsequent requests of the same URL are sent as conditional requests,
+ * and if the server responds that the resource was not modified, the cached body is read.
+ * Responses without content are returned as empty bodies and are not cached.
+ * If the cache exceeds its maximum size, the least recently used responses are evicted.
+ * If the maximum size is 0, no responses are cached.
+ *
+ * @author Robin Weiss
+ */
+public class CachingHttpRequester extends StreamingHttpRequester
+{
+    private final Path cachePath;
+    private final Gson gson;
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+
+    private Charset charset;
+    private long maxCacheSize;
+    private long cacheSize;
+
+
+    /**
+     * Constructor for requesters that do not parse JSON responses.
+     *
+     * @param cacheFolder the folder in which the responses are cached
+     */
+    public CachingHttpRequester(final File cacheFolder)
+    {
+        this(cacheFolder, new Gson());
+    }
+
+
+    /**
+     * Constructor.
+     *
+     * @param cacheFolder the folder in which the responses are cached
+     * @param gson the Gson instance that is used for parsing JSON responses
+     */
+    public CachingHttpRequester(final File cacheFolder, final Gson gson)
+    {
+        super();
+        this.cachePath = cacheFolder.toPath();
+        this.gson = gson;
+        this.hitCount = new AtomicLong();
+        this.missCount = new AtomicLong();
+        this.charset = StandardCharsets.UTF_8;
+        this.cacheSize = -1;
+    }
+
+
+    /**
+     * Changes the charset that is used for parsing responses.
+     *
+     * @param charset the charset of the responses
+     */
+    public void setCharset(final Charset charset)
+    {
+        this.charset = charset;
+    }
+
+
+    /**
+     * Changes the maximum number of bytes the cached responses may occupy on disk.
+     *
+     * @param maxCacheSize the maximum size of the cache in bytes, or 0 to disable caching
+     */
+    public synchronized void setMaxCacheSize(final long maxCacheSize)
+    {
+        this.maxCacheSize = maxCacheSize;
+    }
+
+
+    /**
+     * Checks if responses are cached.
+     *
+     * @return true if the maximum cache size is greater than 0
+     */
+    public synchronized boolean isEnabled()
+    {
+        return maxCacheSize > 0;
+    }
+
+
+    /**
+     * Returns the number of requests that were answered from the cache.
+     *
+     * @return the number of requests that were answered from the cache
+     */
+    public long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+
+    /**
+     * Returns the number of requests of which the response body was downloaded.
+     *
+     * @return the number of requests of which the response body was downloaded
+     */
+    public long getMissCount()
+    {
+        return missCount.get();
+    }
+
+
+    /**
+     * Sends a GET request to a specified URL and parses the response as HTML or XML.
+     *
+     * @param url the URL that is to be requested
+     *
+     * @return the parsed response, or null if the request failed
+     */
+    public Document getHtmlFromUrl(final String url)
+    {
+        try
+            (InputStream responseStream = getInputStreamFromUrl(url)) {
+            return Jsoup.parse(responseStream, charset.name(), url);
+        } catch (final IOException e) {
+            return null;
+        }
+    }
+
+
+    /**
+     * Sends a GET request to a specified URL and parses the response as JSON.
+     *
+     * @param url the URL that is to be requested
+     * @param targetType the type of the parsed object
+     * @param <T> the type of the parsed object
+     *
+     * @return the parsed response, or null if the request failed
+     */
+    public <T> T getObjectFromUrl(final String url, final Type targetType)
+    {
+        try
+            (Reader responseReader = new InputStreamReader(getInputStreamFromUrl(url), charset)) {
+            return gson.fromJson(responseReader, targetType);
+        } catch (final IOException | JsonParseException e) {
+            return null;
+        }
+    }
+
+
+    @Override
+    public InputStream getInputStreamFromUrl(final String url) throws IOException
+    {
+        if (!isEnabled())
+            return super.getInputStreamFromUrl(url);
+
+        final String cacheKey = getCacheKey(url);
+        final Path bodyPath = cachePath.resolve(cacheKey + EnaConstants.HTTP_CACHE_BODY_SUFFIX);
+        final Path headerPath = cachePath.resolve(cacheKey + EnaConstants.HTTP_CACHE_HEADER_SUFFIX);
+        final Properties cachedHeaders = readHeaders(headerPath, bodyPath);
+
+        final HttpURLConnection connection = openConnection(url);
+
+        if (cachedHeaders.containsKey(EnaConstants.ETAG_HEADER))
+            connection.setRequestProperty(EnaConstants.IF_NONE_MATCH_HEADER, cachedHeaders.getProperty(EnaConstants.ETAG_HEADER));
+
+        if (cachedHeaders.containsKey(EnaConstants.LAST_MODIFIED_HEADER))
+            connection.setRequestProperty(EnaConstants.IF_MODIFIED_SINCE_HEADER, cachedHeaders.getProperty(EnaConstants.LAST_MODIFIED_HEADER));
+
+        final int responseCode = connection.getResponseCode();
+
+        if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && !cachedHeaders.isEmpty()) {
+            connection.disconnect();
+
+            try {
+                // mark the response as recently used
+                Files.setLastModifiedTime(bodyPath, FileTime.fromMillis(System.currentTimeMillis()));
+                final InputStream cachedStream = new GZIPInputStream(Files.newInputStream(bodyPath));
+                hitCount.incrementAndGet();
+                return cachedStream;
+
+            } catch (final IOException e) { // NOPMD the entry was evicted in the meantime
+                return super.getInputStreamFromUrl(url);
+            }
+        }
+
+        // responses without content are not cached, because they cannot be revalidated
+        if (responseCode == HttpURLConnection.HTTP_NO_CONTENT)
+            return getEmptyBody(connection);
+
+        if (responseCode != HttpURLConnection.HTTP_OK) {
+            connection.disconnect();
+            throw new IOException(String.format(EnaConstants.HTTP_STATUS_ERROR, responseCode, url));
+        }
+
+        missCount.incrementAndGet();
+
+        final Properties headers = new Properties();
+        final String eTag = connection.getHeaderField(EnaConstants.ETAG_HEADER);
+        final String lastModified = connection.getHeaderField(EnaConstants.LAST_MODIFIED_HEADER);
+
+        if (eTag != null)
+            headers.setProperty(EnaConstants.ETAG_HEADER, eTag);
+
+        if (lastModified != null)
+            headers.setProperty(EnaConstants.LAST_MODIFIED_HEADER, lastModified);
+
+        // responses without validators cannot be revalidated
+        if (headers.isEmpty())
+            return connection.getInputStream();
+
+        writeEntry(connection, headers, bodyPath, headerPath);
+        return new GZIPInputStream(Files.newInputStream(bodyPath));
+    }
+
+
+    /**
+     * Reads the cached headers of a response, if both the headers and the body exist.
+     *
+     * @param headerPath the file in which the headers are cached
+     * @param bodyPath the file in which the body is cached
+     *
+     * @return the cached headers, or empty headers if the response is not cached
+     */
+    private Properties readHeaders(final Path headerPath, final Path bodyPath)
+    {
+        final Properties headers = new Properties();
+
+        if (Files.exists(headerPath) && Files.exists(bodyPath)) {
+            try
+                (InputStream headerStream = Files.newInputStream(headerPath)) {
+                headers.load(headerStream);
+            } catch (final IOException e) {
+                headers.clear();
+            }
+        }
+
+        return headers;
+    }
+
+
+    /**
+     * Downloads the body of a response to the cache and stores its headers.
+     * Both files are written to temporary files first, so concurrent requests
+     * of the same URL never read incomplete bodies.
+     *
+     * @param connection the connection of which the response body is downloaded
+     * @param headers the headers that are required for revalidating the response
+     * @param bodyPath the file in which the body is cached
+     * @param headerPath the file in which the headers are cached
+     *
+     * @throws IOException if the response could not be downloaded or cached
+     */
+    private void writeEntry(final HttpURLConnection connection, final Properties headers, final Path bodyPath, final Path headerPath)
+    throws IOException
+    {
+        Files.createDirectories(cachePath);
+
+        final Path tempBodyPath = Files.createTempFile(cachePath, null, EnaConstants.TEMP_FILE_SUFFIX);
+        final Path tempHeaderPath = Files.createTempFile(cachePath, null, EnaConstants.TEMP_FILE_SUFFIX);
+
+        try {
+            try
+                (InputStream responseStream = connection.getInputStream();
+                 OutputStream bodyStream = new GZIPOutputStream(Files.newOutputStream(tempBodyPath))) {
+                final byte[] buffer = new byte[EnaConstants.HTTP_CACHE_BUFFER_SIZE];
+                int readBytes;
+
+                while ((readBytes = responseStream.read(buffer)) != -1)
+                    bodyStream.write(buffer, 0, readBytes);
+            }
+
+            try
+                (OutputStream headerStream = Files.newOutputStream(tempHeaderPath)) {
+                headers.store(headerStream, null);
+            }
+
+            final long oldEntrySize = Files.exists(bodyPath) ? Files.size(bodyPath) : 0;
+            final long newEntrySize = Files.size(tempBodyPath);
+
+            Files.move(tempBodyPath, bodyPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(tempHeaderPath, headerPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            addCacheSize(newEntrySize - oldEntrySize, bodyPath);
+        } finally {
+            Files.deleteIfExists(tempBodyPath);
+            Files.deleteIfExists(tempHeaderPath);
+        }
+    }
+
+
+    /**
+     * Adds a number of bytes to the size of the cache, and evicts the least
+     * recently used responses if the cache exceeds its maximum size.
+     *
+     * @param addedBytes the number of bytes that were added to the cache
+     * @param keptBodyPath the body of the response that was just added, which is not evicted
+     *
+     * @throws IOException if the cache folder could not be read
+     */
+    private synchronized void addCacheSize(final long addedBytes, final Path keptBodyPath) throws IOException
+    {
+        // determine the size of responses that were cached by previous harvests
+        if (cacheSize < 0) {
+            cacheSize = 0;
+
+            for (final Path bodyPath : listBodies())
+                cacheSize += Files.size(bodyPath);
+        } else
+            cacheSize += addedBytes;
+
+        if (cacheSize <= maxCacheSize)
+            return;
+
+        final List<Path> bodyPaths = listBodies();
+        bodyPaths.sort(Comparator.comparingLong(CachingHttpRequester::getLastModifiedTime));
+
+        // evict until the cache is at most 90% full, to avoid evicting with every request
+        final long targetSize = maxCacheSize - maxCacheSize / 10;
+
+        for (final Path bodyPath : bodyPaths) {
+            if (cacheSize <= targetSize)
+                break;
+
+            if (bodyPath.equals(keptBodyPath))
+                continue;
+
+            final long bodySize = Files.size(bodyPath);
+            final String bodyName = bodyPath.getFileName().toString();
+            final String cacheKey = bodyName.substring(0, bodyName.length() - EnaConstants.HTTP_CACHE_BODY_SUFFIX.length());
+
+            Files.deleteIfExists(bodyPath);
+            Files.deleteIfExists(cachePath.resolve(cacheKey + EnaConstants.HTTP_CACHE_HEADER_SUFFIX));
+            cacheSize -= bodySize;
+        }
+    }
+
+
+    /**
+     * Lists all cached response bodies.
+     *
+     * @throws IOException if the cache folder could not be read
+     *
+     * @return a list of all cached response bodies
+     */
+    private List<Path> listBodies() throws IOException
+    {
+        final List<Path> bodyPaths = new ArrayList<>();
+
+        if (Files.exists(cachePath)) {
+            try
+                (Stream<Path> cacheStream = Files.list(cachePath)) {
+                cacheStream
+                .filter((final Path p) -> p.getFileName().toString().endsWith(EnaConstants.HTTP_CACHE_BODY_SUFFIX))
+                .forEach(bodyPaths::add);
+            }
+        }
+
+        return bodyPaths;
+    }
+
+
+    /**
+     * Returns the time at which a cached response was last used.
+     *
+     * @param bodyPath the cached body of the response
+     *
+     * @return the time at which the response was last used in milliseconds,
+     *          or 0 if the file no longer exists
+     */
+    private static long getLastModifiedTime(final Path bodyPath)
+    {
+        try {
+            return Files.getLastModifiedTime(bodyPath).toMillis();
+        } catch (final IOException e) {
+            return 0;
+        }
+    }
+
+
+    /**
+     * Hashes a URL to a string that can be used as a file name.
+     *
+     * @param url the URL that is to be hashed
+     *
+     * @return a hexadecimal SHA-256 hash of the URL
+     */
+    private static String getCacheKey(final String url)
+    {
+        try {
+            final byte[] hash = MessageDigest.getInstance(EnaConstants.HTTP_CACHE_KEY_ALGORITHM)
+                                .digest(url.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder keyBuilder = new StringBuilder(hash.length * 2);
+
+            for (final byte b : hash)
+                keyBuilder.append(String.format("%02x", b));
+
+            return keyBuilder.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            // SHA-256 is supported by every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/**
+ * This {@linkplain InputStream} counts the number of bytes that were read from
+ * an underlying stream.
+ *
+ * @author Robin Weiss
+ */
+public class CountingInputStream extends FilterInputStream
+{
+    private long byteCount;
+
+
+    /**
+     * Constructor.
+     *
+     * @param inputStream the stream of which the bytes are counted
+     */
+    public CountingInputStream(final InputStream inputStream)
+    {
+        super(inputStream);
+    }
+
+
+    @Override
+    public int read() throws IOException
+    {
+        final int value = super.read();
+
+        if (value != -1)
+            byteCount++;
+
+        return value;
+    }
+
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int length) throws IOException
+    {
+        final int readBytes = super.read(buffer, offset, length);
+
+        if (readBytes > 0)
+            byteCount += readBytes;
+
+        return readBytes;
+    }
+
+
+    @Override
+    public long skip(final long length) throws IOException
+    {
+        final long skippedBytes = super.skip(length);
+        byteCount += skippedBytes;
+        return skippedBytes;
+    }
+
+
+    /**
+     * Returns the number of bytes that were read so far.
+     *
+     * @return the number of bytes that were read so far
+     */
+    public long getByteCount()
+    {
+        return byteCount;
+    }
+}
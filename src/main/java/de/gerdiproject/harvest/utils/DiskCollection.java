@@ -33,8 +33,12 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
  * This allows to store String values on disk while being considerably faster than
  * an SQLite database.
  *
+ * @deprecated every operation lists the folder, which does not scale to millions of values,
+ *             use the {@linkplain DiskQueue} instead
+ *
  * @author Robin Weiss
  */
+@Deprecated
 public class DiskCollection
 {
     private final Path parentPath;
@@ -0,0 +1,469 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import de.gerdiproject.harvest.ena.constants.EnaConstants;
+
+
+/**
+ * This class is a persistent FIFO queue of {@linkplain String} values.
+ * Values are appended to segment files of limited size, so adding and removing
+ * a value only costs a buffered write or read.<br>
+ * The positions of the head and tail are only stored at explicit checkpoints, in a
+ * separate file that is replaced atomically, so the queue can be checkpointed together
+ * with other state. After a crash, the queue is restored to its last checkpoint:
+ * values that were removed after the checkpoint are returned once more, and values
+ * that were added after the checkpoint are discarded. Consumed segments are deleted
+ * by the first checkpoint after all of their values were removed.
+ *
+ * @author Robin Weiss
+ */
+public class DiskQueue implements Closeable
+{
+    private static final int LENGTH_BYTES = Integer.BYTES;
+
+    private final Path folderPath;
+    private final Path pointerPath;
+    private final long segmentSize;
+
+    private int headSegment;
+    private long headOffset;
+    private int tailSegment;
+    private long tailOffset;
+    private long flushedTailOffset;
+    private int size;
+    private boolean isOpen;
+
+    private DataInputStream headInput;
+    private DataOutputStream tailOutput;
+
+
+    /**
+     * Constructor.
+     *
+     * @param folder the folder in which the segment files are stored
+     */
+    public DiskQueue(final File folder)
+    {
+        this(folder, EnaConstants.QUEUE_SEGMENT_SIZE);
+    }
+
+
+    /**
+     * Constructor.
+     *
+     * @param folder the folder in which the segment files are stored
+     * @param segmentSize the number of bytes after which a new segment file is started
+     */
+    public DiskQueue(final File folder, final long segmentSize)
+    {
+        this.folderPath = folder.toPath();
+        this.pointerPath = folderPath.resolve(EnaConstants.QUEUE_POINTER_FILE);
+        this.segmentSize = segmentSize;
+    }
+
+
+    /**
+     * Removes all values and deletes all files inside the queue folder.
+     *
+     * @throws IOException if the files could not be deleted, or the folder could not be created
+     */
+    public synchronized void clear() throws IOException
+    {
+        closeStreams();
+        isOpen = false;
+
+        if (Files.exists(folderPath)) {
+            try
+                (Stream<Path> fileStream = Files.list(folderPath)) {
+                final Iterator<Path> fileIter = fileStream.iterator();
+
+                while (fileIter.hasNext())
+                    Files.delete(fileIter.next());
+            }
+        }
+
+        Files.createDirectories(folderPath);
+        headSegment = 0;
+        headOffset = 0;
+        tailSegment = 0;
+        tailOffset = 0;
+        size = 0;
+    }
+
+
+    /**
+     * Appends a {@linkplain String} value to the end of the queue.
+     *
+     * @param value the value to be added
+     *
+     * @throws IOException if the value could not be added
+     */
+    public synchronized void add(final String value) throws IOException
+    {
+        ensureOpen();
+
+        if (tailOffset >= segmentSize)
+            startNextSegment();
+
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        tailOutput.writeInt(bytes.length);
+        tailOutput.write(bytes);
+        tailOffset += LENGTH_BYTES + bytes.length;
+        size++;
+    }
+
+
+    /**
+     * Removes and returns the value at the head of the queue.
+     *
+     * @throws IOException if the value could not be read
+     *
+     * @return the oldest value of the queue, or null if the queue is empty
+     */
+    public synchronized String get() throws IOException
+    {
+        ensureOpen();
+
+        if (size == 0)
+            return null;
+
+        // full segments are complete on disk, so their end is the end of the file
+        while (headSegment < tailSegment && headOffset >= Files.size(getSegmentPath(headSegment))) {
+            closeHeadInput();
+            headSegment++;
+            headOffset = 0;
+        }
+
+        // values of the current segment may still be buffered
+        if (headSegment == tailSegment && flushedTailOffset < tailOffset) {
+            tailOutput.flush();
+            flushedTailOffset = tailOffset;
+        }
+
+        if (headInput == null)
+            openHeadInput();
+
+        final byte[] bytes = new byte[headInput.readInt()];
+        headInput.readFully(bytes);
+        headOffset += LENGTH_BYTES + bytes.length;
+        size--;
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Checks if the queue is empty.
+     *
+     * @throws IOException if the queue could not be opened
+     *
+     * @return true if the queue is empty
+     */
+    public synchronized boolean isEmpty() throws IOException
+    {
+        ensureOpen();
+        return size == 0;
+    }
+
+
+    /**
+     * Returns the number of values in the queue.
+     *
+     * @throws IOException if the queue could not be opened
+     *
+     * @return the number of values in the queue
+     */
+    public synchronized int size() throws IOException
+    {
+        ensureOpen();
+        return size;
+    }
+
+
+    /**
+     * Writes all buffered values and the positions of the head and tail to disk,
+     * creating the checkpoint to which the queue is restored after a crash.
+     *
+     * @throws IOException if the queue could not be written
+     */
+    public synchronized void flush() throws IOException
+    {
+        if (isOpen)
+            writePointers();
+    }
+
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        if (isOpen) {
+            writePointers();
+            closeStreams();
+            isOpen = false;
+        }
+    }
+
+
+    /**
+     * Restores the positions of the head and tail from disk, if the queue is not open yet,
+     * and discards values that were added after the last checkpoint.
+     *
+     * @throws IOException if the queue could not be restored
+     */
+    private void ensureOpen() throws IOException
+    {
+        if (isOpen)
+            return;
+
+        Files.createDirectories(folderPath);
+        readPointers();
+        truncateTail();
+        deleteConsumedSegments();
+
+        tailOutput = openTailOutput();
+        flushedTailOffset = tailOffset;
+        isOpen = true;
+    }
+
+
+    /**
+     * Reads the positions of the head and tail from the pointer file.
+     * If there is no pointer file, the queue starts empty.
+     *
+     * @throws IOException if the pointer file exists, but could not be read
+     */
+    private void readPointers() throws IOException
+    {
+        if (!Files.exists(pointerPath)) {
+            headSegment = 0;
+            headOffset = 0;
+            tailSegment = 0;
+            tailOffset = 0;
+            size = 0;
+            return;
+        }
+
+        try
+            (DataInputStream input = new DataInputStream(Files.newInputStream(pointerPath))) {
+            headSegment = input.readInt();
+            headOffset = input.readLong();
+            tailSegment = input.readInt();
+            tailOffset = input.readLong();
+            size = input.readInt();
+        }
+    }
+
+
+    /**
+     * Flushes the segment that is currently written, and replaces the pointer file atomically.
+     *
+     * @throws IOException if the pointers could not be written
+     */
+    private void writePointers() throws IOException
+    {
+        // the tail must never point beyond the data on disk
+        tailOutput.flush();
+        flushedTailOffset = tailOffset;
+
+        final Path tempPath = pointerPath.resolveSibling(pointerPath.getFileName() + EnaConstants.TEMP_FILE_SUFFIX);
+
+        try
+            (DataOutputStream output = new DataOutputStream(Files.newOutputStream(tempPath))) {
+            output.writeInt(headSegment);
+            output.writeLong(headOffset);
+            output.writeInt(tailSegment);
+            output.writeLong(tailOffset);
+            output.writeInt(size);
+        }
+
+        Files.move(tempPath, pointerPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // the head of the checkpoint must never point to a deleted segment
+        deleteConsumedSegments();
+    }
+
+
+    /**
+     * Removes all values that were appended after the last checkpoint,
+     * including values that were only partially written.
+     *
+     * @throws IOException if the segments could not be truncated or deleted
+     */
+    private void truncateTail() throws IOException
+    {
+        final Path tailPath = getSegmentPath(tailSegment);
+
+        if (Files.exists(tailPath)) {
+            try
+                (FileChannel channel = FileChannel.open(tailPath, StandardOpenOption.WRITE)) {
+                channel.truncate(tailOffset);
+            }
+        }
+
+        for (int i = tailSegment + 1; Files.exists(getSegmentPath(i)); i++)
+            Files.delete(getSegmentPath(i));
+    }
+
+
+    /**
+     * Deletes all segments before the head, because all of their values were removed.
+     *
+     * @throws IOException if a segment could not be deleted
+     */
+    private void deleteConsumedSegments() throws IOException
+    {
+        for (int i = headSegment - 1; i >= 0 && Files.exists(getSegmentPath(i)); i--)
+            Files.delete(getSegmentPath(i));
+    }
+
+
+    /**
+     * Finishes the current segment and starts appending values to the next one.
+     *
+     * @throws IOException if the segment could not be finished or created
+     */
+    private void startNextSegment() throws IOException
+    {
+        tailOutput.close();
+        tailSegment++;
+        tailOffset = 0;
+        flushedTailOffset = 0;
+        tailOutput = openTailOutput();
+    }
+
+
+    /**
+     * Opens the tail segment for appending values.
+     *
+     * @throws IOException if the segment could not be opened
+     *
+     * @return a stream that appends values to the tail segment
+     */
+    private DataOutputStream openTailOutput() throws IOException
+    {
+        return new DataOutputStream(new BufferedOutputStream(
+                                        Files.newOutputStream(
+                                            getSegmentPath(tailSegment),
+                                            StandardOpenOption.CREATE,
+                                            StandardOpenOption.WRITE,
+                                            StandardOpenOption.APPEND),
+                                        EnaConstants.QUEUE_BUFFER_SIZE));
+    }
+
+
+    /**
+     * Opens the head segment for reading values, starting at the head offset.
+     *
+     * @throws IOException if the segment could not be opened
+     */
+    private void openHeadInput() throws IOException
+    {
+        headInput = new DataInputStream(new BufferedInputStream(
+                                            Files.newInputStream(getSegmentPath(headSegment)),
+                                            EnaConstants.QUEUE_BUFFER_SIZE));
+        skipFully(headInput, headOffset);
+    }
+
+
+    /**
+     * Closes the streams of the head and tail segments.
+     *
+     * @throws IOException if the tail segment could not be flushed
+     */
+    private void closeStreams() throws IOException
+    {
+        closeHeadInput();
+
+        if (tailOutput != null) {
+            tailOutput.close();
+            tailOutput = null;
+        }
+    }
+
+
+    /**
+     * Closes the stream of the head segment.
+     *
+     * @throws IOException if the stream could not be closed
+     */
+    private void closeHeadInput() throws IOException
+    {
+        if (headInput != null) {
+            headInput.close();
+            headInput = null;
+        }
+    }
+
+
+    /**
+     * Returns the path of a segment file.
+     *
+     * @param segment the number of the segment
+     *
+     * @return the path of the segment file
+     */
+    private Path getSegmentPath(final int segment)
+    {
+        return folderPath.resolve(String.format(EnaConstants.QUEUE_SEGMENT_FILE, segment));
+    }
+
+
+    /**
+     * Skips a number of bytes of a stream.
+     *
+     * @param input the stream of which bytes are skipped
+     * @param byteCount the number of bytes to be skipped
+     *
+     * @throws EOFException if the stream ends before all bytes were skipped
+     * @throws IOException if the stream could not be read
+     */
+    private static void skipFully(final DataInputStream input, final long byteCount) throws IOException
+    {
+        long remaining = byteCount;
+
+        while (remaining > 0) {
+            final long skipped = input.skip(remaining);
+
+            if (skipped > 0)
+                remaining -= skipped;
+
+            else if (input.read() == -1)
+                throw new EOFException();
+
+            else
+                remaining--;
+        }
+    }
+}
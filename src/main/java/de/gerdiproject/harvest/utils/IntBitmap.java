@@ -0,0 +1,336 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import de.gerdiproject.harvest.ena.constants.EnaConstants;
+
+
+/**
+ * This class is a compressed set of non-negative integers, which is stored in a file.
+ * The integers are split into chunks by their upper 16 bits. Chunks with few integers
+ * store them as a sorted array of their lower 16 bits, while dense chunks switch to a
+ * bitmap of 8 kilobytes, so memory grows with the number of integers rather than with
+ * the highest integer.
+ *
+ * @author Robin Weiss
+ */
+public class IntBitmap
+{
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+    private static final int BITMAP_WORDS = (1 << CHUNK_BITS) / Long.SIZE;
+
+    // beyond this number of values, a bitmap is smaller than an array of chars
+    private static final int MAX_ARRAY_SIZE = BITMAP_WORDS * Long.BYTES / Character.BYTES;
+    private static final int INITIAL_ARRAY_SIZE = 4;
+
+    private final Path bitmapPath;
+    private final Map<Integer, Chunk> chunks;
+    private int size;
+
+
+    /**
+     * Constructor.
+     *
+     * @param bitmapFile the file in which the integers are stored
+     */
+    public IntBitmap(final File bitmapFile)
+    {
+        this.bitmapPath = bitmapFile.toPath();
+        this.chunks = new TreeMap<>();
+    }
+
+
+    /**
+     * Adds an integer to the set.
+     *
+     * @param value a non-negative integer
+     *
+     * @return true if the integer was not part of the set before
+     */
+    public synchronized boolean add(final int value)
+    {
+        final Integer key = value >>> CHUNK_BITS;
+        Chunk chunk = chunks.get(key);
+
+        if (chunk == null) {
+            chunk = new Chunk();
+            chunks.put(key, chunk);
+        }
+
+        final boolean isAdded = chunk.add((char)(value & CHUNK_MASK));
+
+        if (isAdded)
+            size++;
+
+        return isAdded;
+    }
+
+
+    /**
+     * Checks if an integer is part of the set.
+     *
+     * @param value a non-negative integer
+     *
+     * @return true if the integer is part of the set
+     */
+    public synchronized boolean contains(final int value)
+    {
+        final Chunk chunk = chunks.get(value >>> CHUNK_BITS);
+        return chunk != null && chunk.contains((char)(value & CHUNK_MASK));
+    }
+
+
+    /**
+     * Returns the number of integers in the set.
+     *
+     * @return the number of integers in the set
+     */
+    public synchronized int size()
+    {
+        return size;
+    }
+
+
+    /**
+     * Removes all integers from the set, and deletes the file.
+     *
+     * @throws IOException if the file exists, but could not be deleted
+     */
+    public synchronized void clear() throws IOException
+    {
+        chunks.clear();
+        size = 0;
+        Files.deleteIfExists(bitmapPath);
+    }
+
+
+    /**
+     * Replaces the integers of the set with the content of the file,
+     * unless the file does not exist.
+     *
+     * @throws IOException if the file exists, but could not be read
+     */
+    public synchronized void load() throws IOException
+    {
+        chunks.clear();
+        size = 0;
+
+        if (!Files.exists(bitmapPath))
+            return;
+
+        try
+            (DataInputStream input = new DataInputStream(
+                                         new BufferedInputStream(
+                                             new GZIPInputStream(Files.newInputStream(bitmapPath))))) {
+            final int chunkCount = input.readInt();
+
+            for (int i = 0; i < chunkCount; i++) {
+                final int key = input.readInt();
+                final Chunk chunk = Chunk.read(input);
+                chunks.put(key, chunk);
+                size += chunk.cardinality;
+            }
+        }
+    }
+
+
+    /**
+     * Writes the integers to the file.
+     * The file is replaced atomically, so an interrupted write cannot corrupt it.
+     *
+     * @throws IOException if the file could not be written
+     */
+    public synchronized void save() throws IOException
+    {
+        final Path parentPath = bitmapPath.toAbsolutePath().getParent();
+
+        if (parentPath != null)
+            Files.createDirectories(parentPath);
+
+        final Path tempPath = bitmapPath.resolveSibling(bitmapPath.getFileName() + EnaConstants.TEMP_FILE_SUFFIX);
+
+        try
+            (DataOutputStream output = new DataOutputStream(
+                                           new BufferedOutputStream(
+                                               new GZIPOutputStream(Files.newOutputStream(tempPath))))) {
+            output.writeInt(chunks.size());
+
+            for (final Map.Entry<Integer, Chunk> entry : chunks.entrySet()) {
+                output.writeInt(entry.getKey());
+                entry.getValue().write(output);
+            }
+        }
+
+        Files.move(tempPath, bitmapPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+
+    /**
+     * This class stores the lower 16 bits of the integers that share the same upper 16 bits,
+     * either as a sorted array or as a bitmap.
+     *
+     * @author Robin Weiss
+     */
+    private static class Chunk
+    {
+        private char[] values = new char[INITIAL_ARRAY_SIZE];
+        private long[] words;
+        private int cardinality;
+
+
+        /**
+         * Adds a value to the chunk, converting the sorted array
+         * to a bitmap when it would become larger than the bitmap.
+         *
+         * @param value the lower 16 bits of an integer
+         *
+         * @return true if the value was not part of the chunk before
+         */
+        public boolean add(final char value)
+        {
+            if (words != null) {
+                final long mask = 1L << value;
+                final int wordIndex = value >>> 6;
+
+                if ((words[wordIndex] & mask) != 0)
+                    return false;
+
+                words[wordIndex] |= mask;
+                cardinality++;
+                return true;
+            }
+
+            final int index = Arrays.binarySearch(values, 0, cardinality, value);
+
+            if (index >= 0)
+                return false;
+
+            if (cardinality == MAX_ARRAY_SIZE) {
+                convertToBitmap();
+                return add(value);
+            }
+
+            final int insertionIndex = -index - 1;
+
+            if (cardinality == values.length)
+                values = Arrays.copyOf(values, Math.min(values.length * 2, MAX_ARRAY_SIZE));
+
+            System.arraycopy(values, insertionIndex, values, insertionIndex + 1, cardinality - insertionIndex);
+            values[insertionIndex] = value;
+            cardinality++;
+            return true;
+        }
+
+
+        /**
+         * Checks if a value is part of the chunk.
+         *
+         * @param value the lower 16 bits of an integer
+         *
+         * @return true if the value is part of the chunk
+         */
+        public boolean contains(final char value)
+        {
+            if (words != null)
+                return (words[value >>> 6] & 1L << value) != 0;
+
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+
+        /**
+         * Writes the chunk in its current representation.
+         *
+         * @param output the stream to which the chunk is written
+         *
+         * @throws IOException if the chunk could not be written
+         */
+        public void write(final DataOutputStream output) throws IOException
+        {
+            output.writeInt(cardinality);
+
+            if (words != null) {
+                for (final long word : words)
+                    output.writeLong(word);
+            } else {
+                for (int i = 0; i < cardinality; i++)
+                    output.writeChar(values[i]);
+            }
+        }
+
+
+        /**
+         * Reads a chunk that was written by {@linkplain #write(DataOutputStream)}.
+         *
+         * @param input the stream from which the chunk is read
+         *
+         * @throws IOException if the chunk could not be read
+         *
+         * @return the chunk
+         */
+        public static Chunk read(final DataInputStream input) throws IOException
+        {
+            final Chunk chunk = new Chunk();
+            chunk.cardinality = input.readInt();
+
+            if (chunk.cardinality > MAX_ARRAY_SIZE) {
+                chunk.values = null;
+                chunk.words = new long[BITMAP_WORDS];
+
+                for (int i = 0; i < BITMAP_WORDS; i++)
+                    chunk.words[i] = input.readLong();
+            } else {
+                chunk.values = new char[Math.max(chunk.cardinality, INITIAL_ARRAY_SIZE)];
+
+                for (int i = 0; i < chunk.cardinality; i++)
+                    chunk.values[i] = input.readChar();
+            }
+
+            return chunk;
+        }
+
+
+        /**
+         * Replaces the sorted array by a bitmap.
+         */
+        private void convertToBitmap()
+        {
+            words = new long[BITMAP_WORDS];
+
+            for (int i = 0; i < cardinality; i++)
+                words[values[i] >>> 6] |= 1L << values[i];
+
+            values = null;
+        }
+    }
+}
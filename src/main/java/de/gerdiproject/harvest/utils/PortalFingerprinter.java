@@ -0,0 +1,116 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import de.gerdiproject.harvest.ena.constants.EnaUrlConstants;
+
+
+/**
+ * This class assembles cheap fingerprints of ENA data sets by querying
+ * aggregated values from the ENA Portal API, such as the number of records
+ * and the newest update date. The fingerprints change whenever records
+ * are added, removed, or updated, without having to retrieve the records.
+ *
+ * @author Robin Weiss
+ */
+public class PortalFingerprinter
+{
+    private final StreamingHttpRequester httpRequester = new StreamingHttpRequester();
+
+
+    /**
+     * Assembles a fingerprint out of the number of records that match a query,
+     * and the newest update date among them.
+     *
+     * @param result the ENA Portal API result type, e.g. read_run
+     * @param query an ENA Portal API query
+     *
+     * @return a fingerprint of the matching records, or null if it could not be retrieved
+     */
+    public String getFingerprint(final String result, final String query)
+    {
+        final String count = getCount(result, query);
+
+        if (count == null)
+            return null;
+
+        final String encodedQuery = StreamingHttpRequester.encodeUrlParameter(query);
+
+        try {
+            final String lastUpdated = getLastValue(String.format(EnaUrlConstants.PORTAL_NEWEST_URL, result, encodedQuery));
+            return lastUpdated == null ? null : count + '@' + lastUpdated;
+        } catch (final IOException e) {
+            return null;
+        }
+    }
+
+
+    /**
+     * Retrieves the number of records that match a query.
+     *
+     * @param result the ENA Portal API result type, e.g. taxon
+     * @param query an ENA Portal API query
+     *
+     * @return the number of matching records, or null if it could not be retrieved
+     */
+    public String getCount(final String result, final String query)
+    {
+        final String encodedQuery = StreamingHttpRequester.encodeUrlParameter(query);
+
+        try {
+            return getLastValue(String.format(EnaUrlConstants.PORTAL_COUNT_URL, result, encodedQuery));
+        } catch (final IOException e) {
+            return null;
+        }
+    }
+
+
+    /**
+     * Retrieves a tab-separated response and returns the last value of the last line.
+     *
+     * @param url the URL of the request
+     *
+     * @throws IOException if the response could not be retrieved
+     *
+     * @return the last value of the response, or null if the response is empty
+     */
+    private String getLastValue(final String url) throws IOException
+    {
+        String lastLine = null;
+
+        try
+            (BufferedReader reader = new BufferedReader(
+                                         new InputStreamReader(httpRequester.getInputStreamFromUrl(url), StandardCharsets.UTF_8))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty())
+                    lastLine = line;
+            }
+        }
+
+        if (lastLine == null)
+            return null;
+
+        return lastLine.substring(lastLine.lastIndexOf('\t') + 1).trim();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+import de.gerdiproject.harvest.ena.constants.EnaConstants;
+
+
+/**
+ * This class sends HTTP GET requests and returns the response bodies
+ * as {@linkplain InputStream}s, allowing them to be processed before
+ * they have been downloaded completely.
+ *
+ * @author Robin Weiss
+ */
+public class StreamingHttpRequester
+{
+    /**
+     * Sends a GET request to a specified URL and returns the response body as a stream.
+     * Responses without content are returned as empty streams.
+     * The caller is responsible for closing the stream.
+     *
+     * @param url the URL that is to be requested
+     *
+     * @throws IOException if the request failed or the response was not successful
+     *
+     * @return a stream of the response body
+     */
+    public InputStream getInputStreamFromUrl(final String url) throws IOException
+    {
+        final HttpURLConnection connection = openConnection(url);
+        final int responseCode = connection.getResponseCode();
+
+        if (responseCode == HttpURLConnection.HTTP_NO_CONTENT)
+            return getEmptyBody(connection);
+
+        if (responseCode != HttpURLConnection.HTTP_OK) {
+            connection.disconnect();
+            throw new IOException(String.format(EnaConstants.HTTP_STATUS_ERROR, responseCode, url));
+        }
+
+        return connection.getInputStream();
+    }
+
+
+    /**
+     * Creates a GET request to a specified URL, without sending it yet.
+     *
+     * @param url the URL that is to be requested
+     *
+     * @throws IOException if the URL is malformed or the connection could not be opened
+     *
+     * @return a connection with all common request headers and timeouts
+     */
+    protected HttpURLConnection openConnection(final String url) throws IOException
+    {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestProperty(EnaConstants.USER_AGENT_HEADER, EnaConstants.USER_AGENT);
+        connection.setConnectTimeout(EnaConstants.HTTP_TIMEOUT);
+        connection.setReadTimeout(EnaConstants.HTTP_TIMEOUT);
+        return connection;
+    }
+
+
+    /**
+     * Closes the connection of a response without content and returns its empty body.
+     *
+     * @param connection the connection of the response
+     *
+     * @return an empty stream
+     */
+    protected static InputStream getEmptyBody(final HttpURLConnection connection)
+    {
+        connection.disconnect();
+        return new ByteArrayInputStream(new byte[0]);
+    }
+
+
+    /**
+     * URL-encodes the value of a URL query parameter.
+     *
+     * @param value the value that is to be encoded
+     *
+     * @return the encoded value
+     */
+    public static String encodeUrlParameter(final String value)
+    {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+        } catch (final UnsupportedEncodingException e) {
+            // UTF-8 is always supported
+            throw new IllegalStateException(e);
+        }
+    }
+}
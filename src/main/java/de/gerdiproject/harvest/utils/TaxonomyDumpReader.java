@@ -0,0 +1,197 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.parser.ParseSettings;
+import org.jsoup.parser.Tag;
+
+
+/**
+ * This class reads the taxa of an ENA taxonomy XML dump one at a time, such that
+ * dumps of any size can be processed without parsing the whole document.
+ * Each top-level taxon of the dump is converted to an XML {@linkplain Element}
+ * that has the same names and attributes as a taxon that is parsed from
+ * an HTTP response of the ENA browser API.
+ *
+ * @author Robin Weiss
+ */
+public class TaxonomyDumpReader implements Closeable
+{
+    // the root element of the dump is at depth 1, so its taxa are at depth 2
+    private static final int TAXON_DEPTH = 2;
+
+    private final InputStream input;
+    private final XMLStreamReader reader;
+    private final String taxonElementName;
+    private int depth;
+
+
+    /**
+     * Constructor.
+     *
+     * @param input the stream of the XML dump, which is closed together with this reader
+     * @param taxonElementName the name of the XML elements that represent taxa
+     *
+     * @throws IOException if the XML dump could not be opened
+     */
+    public TaxonomyDumpReader(final InputStream input, final String taxonElementName) throws IOException
+    {
+        this.input = input;
+        this.taxonElementName = taxonElementName;
+
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        try {
+            this.reader = factory.createXMLStreamReader(input);
+        } catch (final XMLStreamException e) {
+            input.close();
+            throw new IOException(e);
+        }
+    }
+
+
+    /**
+     * Reads the next top-level taxon of the dump.
+     *
+     * @throws IOException if the XML dump could not be read
+     *
+     * @return the XML element of the next taxon, or null if there are no more taxa
+     */
+    public Element next() throws IOException
+    {
+        try {
+            while (reader.hasNext()) {
+                final int event = reader.next();
+
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+
+                    if (depth == TAXON_DEPTH && taxonElementName.equals(reader.getLocalName()))
+                        return readElement();
+
+                } else if (event == XMLStreamConstants.END_ELEMENT)
+                    depth--;
+            }
+
+            return null;
+
+        } catch (final XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+
+    @Override
+    public void close() throws IOException
+    {
+        // closing the XML reader does not close the underlying stream
+        try {
+            reader.close();
+        } catch (final XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            input.close();
+        }
+    }
+
+
+    /**
+     * Converts the element at the current position of the stream and all of its
+     * descendants to an XML {@linkplain Element}. The stream is positioned at
+     * the end of the element afterwards.
+     *
+     * @throws XMLStreamException if the XML dump could not be read
+     *
+     * @return the XML element
+     */
+    private Element readElement() throws XMLStreamException
+    {
+        Element element = createElement();
+        final int elementDepth = depth;
+
+        while (depth >= elementDepth) {
+            final int event = reader.next();
+
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    final Element child = createElement();
+                    element.appendChild(child);
+                    element = child;
+                    break;
+
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+
+                    if (depth >= elementDepth)
+                        element = element.parent();
+
+                    break;
+
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                    // the indentation between elements is dropped
+                    if (!reader.isWhiteSpace())
+                        element.appendChild(new TextNode(reader.getText()));
+
+                    break;
+
+                default:
+                    break;
+            }
+        }
+
+        return element;
+    }
+
+
+    /**
+     * Creates an XML {@linkplain Element} out of the start tag at the current position
+     * of the stream. Names are normalized like they are when an HTTP response is parsed.
+     *
+     * @return an XML element without children
+     */
+    private Element createElement()
+    {
+        final Element element = new Element(
+            Tag.valueOf(reader.getLocalName(), ParseSettings.htmlDefault),
+            "");
+
+        final int attributeCount = reader.getAttributeCount();
+
+        for (int i = 0; i < attributeCount; i++)
+            element.attr(
+                reader.getAttributeLocalName(i).toLowerCase(Locale.ENGLISH),
+                reader.getAttributeValue(i));
+
+        return element;
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+
+/**
+ * This class reads tab-separated values line by line. Lines are read into
+ * a reusable character buffer, and fields are only marked by their offsets
+ * within the buffer, such that no {@linkplain String} is created for fields
+ * that are never retrieved.
+ *
+ * @author Robin Weiss
+ */
+public class TsvReader implements Closeable
+{
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final int DEFAULT_FIELD_CAPACITY = 32;
+
+    private final Reader reader;
+    private char[] buffer;
+    private int bufferEnd;
+    private int lineEnd;
+    private boolean isEndOfStream;
+
+    private int[] fieldStarts;
+    private int[] fieldEnds;
+    private int fieldCount;
+
+
+    /**
+     * Constructor.
+     *
+     * @param reader the reader of the tab-separated values
+     */
+    public TsvReader(final Reader reader)
+    {
+        this.reader = reader;
+        this.buffer = new char[DEFAULT_BUFFER_SIZE];
+        this.fieldStarts = new int[DEFAULT_FIELD_CAPACITY];
+        this.fieldEnds = new int[DEFAULT_FIELD_CAPACITY];
+    }
+
+
+    /**
+     * Reads the next line and splits it into fields.
+     * The fields of the previous line are no longer accessible afterwards.
+     *
+     * @throws IOException if the line could not be read
+     *
+     * @return true if a line was read, or false if the end of the stream was reached
+     */
+    public boolean nextLine() throws IOException
+    {
+        // the remainder of the buffer is moved to its beginning, which makes room for the next line
+        final int remainder = bufferEnd - lineEnd;
+        System.arraycopy(buffer, lineEnd, buffer, 0, remainder);
+        bufferEnd = remainder;
+        lineEnd = 0;
+        fieldCount = 0;
+
+        int fieldStart = 0;
+        int position = 0;
+
+        while (true) {
+            if (position == bufferEnd && !fillBuffer()) {
+                // the last line may not be terminated
+                if (position == 0)
+                    return false;
+
+                addField(fieldStart, position);
+                lineEnd = position;
+                return true;
+            }
+
+            final char c = buffer[position];
+
+            if (c == '\t') {
+                addField(fieldStart, position);
+                fieldStart = position + 1;
+
+            } else if (c == '\n') {
+                addField(fieldStart, position > fieldStart && buffer[position - 1] == '\r' ? position - 1 : position);
+                lineEnd = position + 1;
+                return true;
+            }
+
+            position++;
+        }
+    }
+
+
+    /**
+     * Returns the number of fields of the current line.
+     *
+     * @return the number of fields of the current line
+     */
+    public int getFieldCount()
+    {
+        return fieldCount;
+    }
+
+
+    /**
+     * Creates a {@linkplain String} out of a field of the current line.
+     *
+     * @param index the index of the field
+     *
+     * @return the value of the field, or null if the current line has fewer fields
+     */
+    public String getField(final int index)
+    {
+        if (index >= fieldCount)
+            return null;
+
+        return new String(buffer, fieldStarts[index], fieldEnds[index] - fieldStarts[index]);
+    }
+
+
+    /**
+     * Checks if a field of the current line is equal to a specified value,
+     * without creating a {@linkplain String} out of the field.
+     *
+     * @param index the index of the field
+     * @param value the value to which the field is compared
+     *
+     * @return true if the field exists and is equal to the value
+     */
+    public boolean isFieldEqualTo(final int index, final String value)
+    {
+        if (index >= fieldCount)
+            return false;
+
+        final int start = fieldStarts[index];
+        final int length = fieldEnds[index] - start;
+
+        if (length != value.length())
+            return false;
+
+        for (int i = 0; i < length; i++) {
+            if (buffer[start + i] != value.charAt(i))
+                return false;
+        }
+
+        return true;
+    }
+
+
+    @Override
+    public void close() throws IOException
+    {
+        reader.close();
+    }
+
+
+    /**
+     * Reads more characters from the reader, doubling the size of the buffer if it is full.
+     *
+     * @throws IOException if the characters could not be read
+     *
+     * @return true if characters were read, or false if the end of the stream was reached
+     */
+    private boolean fillBuffer() throws IOException
+    {
+        if (isEndOfStream)
+            return false;
+
+        if (bufferEnd == buffer.length)
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+
+        final int readCount = reader.read(buffer, bufferEnd, buffer.length - bufferEnd);
+
+        if (readCount == -1) {
+            isEndOfStream = true;
+            return false;
+        }
+
+        bufferEnd += readCount;
+        return true;
+    }
+
+
+    /**
+     * Marks the boundaries of a field of the current line.
+     *
+     * @param start the offset of the first character of the field
+     * @param end the offset after the last character of the field
+     */
+    private void addField(final int start, final int end)
+    {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+
+
+/**
+ * This iterator reads an XML stream using StAX and returns each XML element
+ * with a specified name as soon as its closing tag was read.
+ * Only a single element is held in memory at any given time,
+ * regardless of the size of the whole XML document.<br>
+ * The elements are parsed by Jsoup, so they can be processed exactly like
+ * elements that were selected from a completely parsed document.
+ *
+ * @author Robin Weiss
+ */
+public class XmlElementIterator implements Iterator<Element>, Closeable
+{
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    private final InputStream inputStream;
+    private final XMLStreamReader xmlReader;
+    private final String elementName;
+
+    private Element nextElement;
+    private boolean isClosed;
+
+
+    /**
+     * Constructor.
+     *
+     * @param inputStream the stream of an XML document
+     * @param elementName the name of the XML elements that are to be returned
+     *
+     * @throws IOException if the stream cannot be parsed as XML
+     */
+    public XmlElementIterator(final InputStream inputStream, final String elementName) throws IOException
+    {
+        this.inputStream = inputStream;
+        this.elementName = elementName;
+
+        try {
+            this.xmlReader = INPUT_FACTORY.createXMLStreamReader(inputStream);
+        } catch (final XMLStreamException e) {
+            inputStream.close();
+            throw new IOException(e);
+        }
+    }
+
+
+    @Override
+    public boolean hasNext()
+    {
+        if (nextElement == null && !isClosed) {
+            try {
+                nextElement = readNextElement();
+
+                if (nextElement == null)
+                    close();
+
+            } catch (final XMLStreamException e) {
+                closeQuietly();
+                throw new UncheckedIOException(new IOException(e));
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        return nextElement != null;
+    }
+
+
+    @Override
+    public Element next()
+    {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        final Element element = nextElement;
+        nextElement = null;
+        return element;
+    }
+
+
+    @Override
+    public void close() throws IOException
+    {
+        if (!isClosed) {
+            isClosed = true;
+
+            try {
+                xmlReader.close();
+            } catch (final XMLStreamException e) {
+                throw new IOException(e);
+            } finally {
+                inputStream.close();
+            }
+        }
+    }
+
+
+    /**
+     * Skips the stream until the next element with a fitting name is found,
+     * and parses this element.
+     *
+     * @throws XMLStreamException if the XML is malformed
+     *
+     * @return the next parsed element, or null if the end of the document was reached
+     */
+    private Element readNextElement() throws XMLStreamException
+    {
+        while (xmlReader.hasNext()) {
+            if (xmlReader.next() == XMLStreamConstants.START_ELEMENT
+                && elementName.equals(xmlReader.getLocalName())) {
+                final String elementXml = copyCurrentElement();
+                return Jsoup.parseBodyFragment(elementXml).selectFirst(elementName);
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Copies the element at the current position of the reader, including all of its
+     * children, to a String. Afterwards, the reader is positioned at the closing tag
+     * of the element.
+     *
+     * @throws XMLStreamException if the XML is malformed
+     *
+     * @return the XML representation of the current element
+     */
+    private String copyCurrentElement() throws XMLStreamException
+    {
+        final StringWriter stringWriter = new StringWriter();
+        final XMLStreamWriter xmlWriter = OUTPUT_FACTORY.createXMLStreamWriter(stringWriter);
+        int depth = 0;
+
+        do {
+            switch (xmlReader.getEventType()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    final String name = xmlReader.getLocalName();
+                    final int attributeCount = xmlReader.getAttributeCount();
+                    final String[] attributes = new String[attributeCount * 2];
+
+                    for (int i = 0; i < attributeCount; i++) {
+                        attributes[2 * i] = xmlReader.getAttributeLocalName(i);
+                        attributes[2 * i + 1] = xmlReader.getAttributeValue(i);
+                    }
+
+                    // write elements without content as self-closing tags
+                    if (xmlReader.next() == XMLStreamConstants.END_ELEMENT)
+                        xmlWriter.writeEmptyElement(name);
+                    else {
+                        xmlWriter.writeStartElement(name);
+                        depth++;
+                    }
+
+                    for (int i = 0; i < attributes.length; i += 2)
+                        xmlWriter.writeAttribute(attributes[i], attributes[i + 1]);
+
+                    // the reader is already positioned at the next event
+                    if (xmlReader.getEventType() == XMLStreamConstants.END_ELEMENT)
+                        break;
+                    else
+                        continue;
+
+                case XMLStreamConstants.END_ELEMENT:
+                    xmlWriter.writeEndElement();
+                    depth--;
+                    break;
+
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    xmlWriter.writeCharacters(xmlReader.getTextCharacters(), xmlReader.getTextStart(), xmlReader.getTextLength());
+                    break;
+
+                default:
+                    // comments and processing instructions are not needed
+                    break;
+            }
+
+            if (depth > 0)
+                xmlReader.next();
+
+        } while (depth > 0);
+
+        // terminates the tag of an empty element, which close() leaves open
+        xmlWriter.writeEndDocument();
+        xmlWriter.close();
+        return stringWriter.toString();
+    }
+
+
+    /**
+     * Closes the iterator, ignoring any exceptions that may occur.
+     */
+    private void closeQuietly()
+    {
+        try {
+            close();
+        } catch (final IOException ignored) { // NOPMD the stream is already broken
+        }
+    }
+
+
+    /**
+     * Creates a StAX input factory that does not resolve DTDs or external entities.
+     *
+     * @return a StAX input factory
+     */
+    private static XMLInputFactory createInputFactory()
+    {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+}
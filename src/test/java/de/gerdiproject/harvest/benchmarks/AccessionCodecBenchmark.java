@@ -0,0 +1,173 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.gerdiproject.harvest.ena.constants.EnaConstants;
+import de.gerdiproject.harvest.ena.constants.EnaUrlConstants;
+import de.gerdiproject.harvest.utils.AccessionCodec;
+import de.gerdiproject.harvest.utils.AccessionRange;
+
+/**
+ * This JMH benchmark compares the string-based handling of accessions, as it was done
+ * before the {@linkplain AccessionCodec} existed, with the primitive encoding.
+ * It can be run via the JMH runner, e.g.:
+ * {@code java -cp <test-classpath> org.openjdk.jmh.Main AccessionCodecBenchmark}
+ *
+ * @author Robin Weiss
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessionCodecBenchmark
+{
+    private static final String LEGACY_RANGE_URL = "https://www.ebi.ac.uk/ena/data/view/%s-%s&display=xml&header=true";
+    private static final String LEGACY_ACCESSION_FORMAT = "%s%06d";
+    private static final String[] ACCESSIONS = {
+        "BC000001", "MOCK00000001", "ERR1234567", "SAMEA123456", "GCA_000001405.28", "invalid"
+    };
+
+    private final AccessionRange range = AccessionRange.parse("BC000001-BC999999");
+    private final StringBuilder buffer = new StringBuilder();
+    private Pattern[] legacyPatterns;
+    private int number;
+
+
+    /**
+     * Compiles the accession formats one by one, as the string-based code did implicitly.
+     */
+    @Setup
+    public void setUp()
+    {
+        legacyPatterns = new Pattern[EnaConstants.ACCESSION_NUMBER_FORMATS.size()];
+
+        for (int i = 0; i < legacyPatterns.length; i++)
+            legacyPatterns[i] = Pattern.compile(EnaConstants.ACCESSION_NUMBER_FORMATS.get(i));
+    }
+
+
+    @Benchmark
+    public String formatRangeUrlLegacy()
+    {
+        number = number % 999000 + 1;
+        return String.format(
+                   LEGACY_RANGE_URL,
+                   String.format(LEGACY_ACCESSION_FORMAT, range.getPrefix(), number),
+                   String.format(LEGACY_ACCESSION_FORMAT, range.getPrefix(), number + 50));
+    }
+
+
+    @Benchmark
+    public String formatRangeUrlCodec()
+    {
+        number = number % 999000 + 1;
+        buffer.setLength(0);
+        buffer.append(EnaUrlConstants.RANGE_ACCESSION_URL_PREFIX);
+        range.appendAccession(number, buffer).append(EnaConstants.ACCESSION_RANGE_SEPARATOR);
+        range.appendAccession(number + 50, buffer).append(EnaUrlConstants.RANGE_ACCESSION_URL_SUFFIX);
+        return buffer.toString();
+    }
+
+
+    @Benchmark
+    public void classifyLegacy(final Blackhole blackhole)
+    {
+        // String.matches() compiles the regex on every call
+        for (final String accession : ACCESSIONS) {
+            boolean isValid = false;
+
+            for (final String regex : EnaConstants.ACCESSION_NUMBER_FORMATS) {
+                if (accession.matches(regex)) {
+                    isValid = true;
+                    break;
+                }
+            }
+
+            blackhole.consume(isValid);
+        }
+    }
+
+
+    @Benchmark
+    public void classifyPrecompiledList(final Blackhole blackhole)
+    {
+        for (final String accession : ACCESSIONS) {
+            boolean isValid = false;
+
+            for (final Pattern pattern : legacyPatterns) {
+                if (pattern.matcher(accession).matches()) {
+                    isValid = true;
+                    break;
+                }
+            }
+
+            blackhole.consume(isValid);
+        }
+    }
+
+
+    @Benchmark
+    public void classifyCodec(final Blackhole blackhole)
+    {
+        for (final String accession : ACCESSIONS)
+            blackhole.consume(AccessionCodec.isValidAccession(accession));
+    }
+
+
+    @Benchmark
+    public void parseAndIncrementLegacy(final Blackhole blackhole)
+    {
+        for (final String accession : ACCESSIONS) {
+            final String prefix = accession.replaceAll("\\d.*", "");
+            final String digits = accession.substring(prefix.length());
+
+            if (!digits.isEmpty() && digits.chars().allMatch(Character::isDigit))
+                blackhole.consume(String.format("%s%0" + digits.length() + "d", prefix, Integer.parseInt(digits) + 1));
+        }
+    }
+
+
+    @Benchmark
+    public void parseAndIncrementCodec(final Blackhole blackhole)
+    {
+        for (final String accession : ACCESSIONS) {
+            final long code = AccessionCodec.parse(accession);
+
+            if (code != AccessionCodec.INVALID) {
+                buffer.setLength(0);
+                blackhole.consume(AccessionCodec.appendTo(AccessionCodec.add(code, 1), buffer).length());
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.gerdiproject.harvest.utils.DiskCollection;
+import de.gerdiproject.harvest.utils.DiskQueue;
+
+/**
+ * This JMH benchmark compares the folder-based {@linkplain DiskCollection} with the
+ * segment-based {@linkplain DiskQueue}, by queueing taxon IDs and polling them the way
+ * the taxon extractor does, checking for emptiness before each poll.
+ * It can be run via the JMH runner, e.g.:
+ * {@code java -cp <test-classpath> org.openjdk.jmh.Main TaxonQueueBenchmark}
+ *
+ * @author Robin Weiss
+ */
+@SuppressWarnings("deprecation")
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaxonQueueBenchmark
+{
+    @Param({"1000", "10000"})
+    private int taxonCount;
+
+    private File benchmarkFolder;
+    private DiskCollection diskCollection;
+    private DiskQueue diskQueue;
+
+
+    /**
+     * Creates both queues in a temporary folder.
+     *
+     * @throws IOException if the folder could not be created
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException
+    {
+        benchmarkFolder = Files.createTempDirectory(TaxonQueueBenchmark.class.getSimpleName()).toFile();
+        diskCollection = new DiskCollection(new File(benchmarkFolder, "collection"));
+        diskQueue = new DiskQueue(new File(benchmarkFolder, "queue"));
+        diskCollection.clear();
+        diskQueue.clear();
+    }
+
+
+    /**
+     * Deletes both queues and the temporary folder.
+     *
+     * @throws IOException if the files could not be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        diskCollection.clear();
+        diskQueue.clear();
+        Files.delete(new File(benchmarkFolder, "collection").toPath());
+        Files.delete(new File(benchmarkFolder, "queue").toPath());
+        Files.delete(benchmarkFolder.toPath());
+    }
+
+
+    @Benchmark
+    public void addAndPollDiskCollection(final Blackhole blackhole) throws IOException
+    {
+        for (int i = 0; i < taxonCount; i++)
+            diskCollection.add(Integer.toString(i));
+
+        while (!diskCollection.isEmpty())
+            blackhole.consume(diskCollection.get());
+    }
+
+
+    @Benchmark
+    public void addAndPollDiskQueue(final Blackhole blackhole) throws IOException
+    {
+        for (int i = 0; i < taxonCount; i++)
+            diskQueue.add(Integer.toString(i));
+
+        while (!diskQueue.isEmpty())
+            blackhole.consume(diskQueue.get());
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import de.gerdiproject.harvest.ena.constants.EnaConstants;
+import de.gerdiproject.harvest.ena.constants.EnaFastqConstants;
+import de.gerdiproject.harvest.etls.extractors.vos.EnaFastqVO;
+import de.gerdiproject.harvest.etls.extractors.vos.EnaFastqVOAdapter;
+import de.gerdiproject.harvest.etls.extractors.vos.EnaReferenceVO;
+import de.gerdiproject.harvest.etls.extractors.vos.EnaReferenceVOAdapter;
+import de.gerdiproject.harvest.utils.BoundedInterner;
+import de.gerdiproject.json.GsonUtils;
+
+/**
+ * This JMH benchmark compares the reflective decoding of {@linkplain EnaFastqVO}s
+ * and {@linkplain EnaReferenceVO}s with the decoding via their streaming adapters.
+ * The decoded JSON arrays are assembled from the mocked inputs of the transformer tests.
+ * It can be run via the JMH runner, with the GC profiler measuring the allocated bytes per decoding, e.g.:
+ * {@code java -cp <test-classpath> org.openjdk.jmh.Main VoDecodingBenchmark -prof gc}
+ *
+ * @author Robin Weiss
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VoDecodingBenchmark
+{
+    private static final String FASTQ_RESOURCE =
+        "/de/gerdiproject/harvest/etls/transformers/EnaFastqTransformerTest/input.json";
+    private static final String REFERENCES_RESOURCE =
+        "/de/gerdiproject/harvest/etls/transformers/EnaTaxonTransformerTest/input-references.json";
+
+    @Param({"1", "1000"})
+    private int arraySize;
+
+    private Gson reflectiveGson;
+    private Gson adapterGson;
+    private String fastqJson;
+    private String referencesJson;
+
+
+    /**
+     * Creates both {@linkplain Gson} variants and assembles the JSON arrays
+     * that are to be decoded.
+     *
+     * @throws IOException if a resource could not be read
+     */
+    @Setup
+    public void setUp() throws IOException
+    {
+        reflectiveGson = GsonUtils.createGerdiDocumentGsonBuilder().create();
+        adapterGson = GsonUtils.createGerdiDocumentGsonBuilder()
+                      .registerTypeAdapter(EnaFastqVO.class, new EnaFastqVOAdapter(new BoundedInterner<>(EnaConstants.DICTIONARY_SIZE)))
+                      .registerTypeAdapter(EnaReferenceVO.class, new EnaReferenceVOAdapter())
+                      .create();
+
+        fastqJson = repeat(readResource(FASTQ_RESOURCE));
+
+        // the references are already an array, so only its first element is repeated
+        referencesJson = repeat(readResource(REFERENCES_RESOURCE).getAsJsonArray().get(0));
+    }
+
+
+    @Benchmark
+    public List<EnaFastqVO> decodeFastqReflective()
+    {
+        return reflectiveGson.fromJson(fastqJson, EnaFastqConstants.JSON_TYPE);
+    }
+
+
+    @Benchmark
+    public List<EnaFastqVO> decodeFastqAdapter()
+    {
+        return adapterGson.fromJson(fastqJson, EnaFastqConstants.JSON_TYPE);
+    }
+
+
+    @Benchmark
+    public List<EnaReferenceVO> decodeReferencesReflective()
+    {
+        return reflectiveGson.fromJson(referencesJson, EnaConstants.REFERENCE_LIST_TYPE);
+    }
+
+
+    @Benchmark
+    public List<EnaReferenceVO> decodeReferencesAdapter()
+    {
+        return adapterGson.fromJson(referencesJson, EnaConstants.REFERENCE_LIST_TYPE);
+    }
+
+
+    /**
+     * Parses a JSON resource.
+     *
+     * @param resourcePath the absolute path of the resource
+     *
+     * @throws IOException if the resource could not be read
+     *
+     * @return the parsed JSON
+     */
+    private static JsonElement readResource(final String resourcePath) throws IOException
+    {
+        try
+            (InputStream inputStream = VoDecodingBenchmark.class.getResourceAsStream(resourcePath);
+             Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+            return new JsonParser().parse(reader);
+        }
+    }
+
+
+    /**
+     * Creates a JSON array that contains the same element a number of times.
+     *
+     * @param element the element that is repeated
+     *
+     * @return a JSON array string
+     */
+    private String repeat(final JsonElement element)
+    {
+        final JsonArray array = new JsonArray();
+
+        for (int i = 0; i < arraySize; i++)
+            array.add(element);
+
+        return array.toString();
+    }
+}
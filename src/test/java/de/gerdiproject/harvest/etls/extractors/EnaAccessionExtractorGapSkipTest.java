@@ -0,0 +1,266 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.etls.extractors;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.jsoup.nodes.Element;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.gerdiproject.harvest.ena.constants.EnaConstants;
+import de.gerdiproject.harvest.etls.EnaAccessionETL;
+import de.gerdiproject.harvest.utils.AccessionRange;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * This class provides Unit Tests for skipping empty accession numbers
+ * in the {@linkplain EnaAccessionExtractor}. The range requests are answered
+ * by a local HTTP server, which only has entries for a few accession numbers.
+ *
+ * @author Robin Weiss
+ */
+@RunWith(Parameterized.class) @RequiredArgsConstructor
+public class EnaAccessionExtractorGapSkipTest
+{
+    private static final String RANGE = "MOCK00000001-MOCK00000020";
+    private static final int BATCH_SIZE = 2;
+
+
+    @Parameters(name = "prefetch depth: {0}")
+    public static Object[] getParameters()
+    {
+        return new Object[] {0, 1, 2};
+    }
+
+
+    private final int prefetchDepth;
+    private final List<Integer> populatedNumbers = new ArrayList<>();
+    private HttpServer server;
+    private EnaAccessionExtractor extractor;
+
+
+    /**
+     * Starts the local HTTP server and creates an extractor that sends its range requests
+     * to this server, and probes ahead after the first empty batch.
+     *
+     * @throws IOException if the server could not be started
+     */
+    @Before
+    public void before() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handleRequest);
+        server.start();
+
+        extractor = new EnaAccessionExtractor() {
+            @Override
+            protected String getRangeUrl(final AccessionRange range, final int fromNumber, final int toNumber)
+            {
+                return String.format("http://localhost:%d/%d-%d", server.getAddress().getPort(), fromNumber, toNumber);
+            }
+        };
+        extractor.dedicatedEtl = new GapSkippingETL(prefetchDepth);
+        extractor.accessionRanges = Collections.singletonList(AccessionRange.parse(RANGE));
+    }
+
+
+    /**
+     * Stops the extractor and the local HTTP server.
+     */
+    @After
+    public void after()
+    {
+        extractor.clear();
+        server.stop(0);
+    }
+
+
+    /**
+     * Checks if the iteration ends if the remaining accession numbers
+     * of the range are skipped, without requesting another batch.
+     */
+    @Test
+    public void testEmptyTail()
+    {
+        populatedNumbers.addAll(Arrays.asList(1, 2));
+
+        assertEquals(Arrays.asList(1, 2), extractNumbers());
+    }
+
+
+    /**
+     * Checks if entries that follow a skipped gap are still returned.
+     */
+    @Test
+    public void testEntriesAfterGap()
+    {
+        populatedNumbers.addAll(Arrays.asList(1, 2, 15, 20));
+
+        assertEquals(Arrays.asList(1, 2, 15, 20), extractNumbers());
+    }
+
+
+    /**
+     * Checks if a range without any entries is skipped.
+     */
+    @Test
+    public void testEmptyRange()
+    {
+        assertEquals(Collections.emptyList(), extractNumbers());
+    }
+
+
+    /**
+     * Extracts all entries of the range.
+     *
+     * @return the accession numbers of the extracted entries
+     */
+    private List<Integer> extractNumbers()
+    {
+        final List<Integer> numbers = new ArrayList<>();
+        final Iterator<Element> entries = extractor.extractAll();
+
+        while (entries.hasNext()) {
+            final String accession = entries.next().attr(EnaConstants.ACCESSION);
+            numbers.add(Integer.parseInt(accession.substring(accession.length() - 8)));
+        }
+
+        return numbers;
+    }
+
+
+    /**
+     * Answers a range request with the entries of all populated accession numbers within the range.
+     *
+     * @param exchange the request and response
+     *
+     * @throws IOException if the response could not be sent
+     */
+    private void handleRequest(final HttpExchange exchange) throws IOException
+    {
+        final String[] rangeNumbers = exchange.getRequestURI().getPath().substring(1).split("-");
+        final int fromNumber = Integer.parseInt(rangeNumbers[0]);
+        final int toNumber = Integer.parseInt(rangeNumbers[1]);
+        final StringBuilder responseBuilder = new StringBuilder("<ROOT>");
+
+        for (final int number : populatedNumbers) {
+            if (number >= fromNumber && number <= toNumber)
+                responseBuilder.append(String.format("<entry accession=\"MOCK%08d\"/>", number));
+        }
+
+        final byte[] body = responseBuilder.append("</ROOT>").toString().getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, body.length);
+
+        try
+            (OutputStream responseStream = exchange.getResponseBody()) {
+            responseStream.write(body);
+        }
+
+        exchange.close();
+    }
+
+
+    /**
+     * An ETL that streams small batches without an HTTP cache,
+     * and skips gaps after the first empty batch.
+     */
+    private static class GapSkippingETL extends EnaAccessionETL
+    {
+        private final int prefetchDepth;
+
+
+        /**
+         * Constructor.
+         *
+         * @param prefetchDepth the number of batches that are requested in advance
+         */
+        GapSkippingETL(final int prefetchDepth)
+        {
+            super();
+            this.prefetchDepth = prefetchDepth;
+        }
+
+
+        @Override
+        public int getBatchSize()
+        {
+            return BATCH_SIZE;
+        }
+
+
+        @Override
+        public int getPrefetchDepth()
+        {
+            return prefetchDepth;
+        }
+
+
+        @Override
+        public boolean isStreamingEntries()
+        {
+            return true;
+        }
+
+
+        @Override
+        public int getGapSkipThreshold()
+        {
+            return 1;
+        }
+
+
+        @Override
+        public int getParallelPartitions()
+        {
+            return 1;
+        }
+
+
+        @Override
+        public boolean isColdStart()
+        {
+            return true;
+        }
+
+
+        @Override
+        public boolean isSkippingUnchanged()
+        {
+            return false;
+        }
+    }
+}
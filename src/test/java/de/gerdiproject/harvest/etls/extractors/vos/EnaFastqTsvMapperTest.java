@@ -0,0 +1,191 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.etls.extractors.vos;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import de.gerdiproject.harvest.ena.constants.EnaConstants;
+import de.gerdiproject.harvest.ena.constants.EnaFastqConstants;
+import de.gerdiproject.harvest.utils.BoundedInterner;
+import de.gerdiproject.harvest.utils.TsvReader;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * This class provides Unit Tests for the {@linkplain EnaFastqTsvMapper}.
+ * The mocked JSON responses of the EnaFastqExtractorTest are converted
+ * to tab-separated values, which must be mapped to the same VOs as the JSON.
+ *
+ * @author Robin Weiss
+ */
+@RunWith(Parameterized.class) @RequiredArgsConstructor
+public class EnaFastqTsvMapperTest
+{
+    private static final String INPUT_RESOURCE =
+        "/de/gerdiproject/harvest/etls/extractors/EnaFastqExtractorTest/shortenedHttpRequests/%s.response";
+
+
+    @Parameters(name = "accession: {0}000001")
+    public static Object[] getParameters()
+    {
+        return EnaFastqConstants.ACCESSION_PREFIXES.toArray();
+    }
+
+
+    private final String accessionPrefix;
+    private final Gson gson = new Gson();
+    private JsonArray jsonRuns;
+
+
+    /**
+     * Reads the mocked JSON response of the accession prefix.
+     *
+     * @throws IOException if the mocked response could not be read
+     */
+    @Before
+    public void before() throws IOException
+    {
+        try
+            (Reader reader = new InputStreamReader(
+                                 getClass().getResourceAsStream(String.format(INPUT_RESOURCE, accessionPrefix)),
+                                 StandardCharsets.UTF_8)) {
+            jsonRuns = gson.fromJson(reader, JsonArray.class);
+        }
+
+        assertFalse(jsonRuns.size() == 0);
+    }
+
+
+    /**
+     * Checks if tab-separated runs are mapped to the same VOs as JSON runs.
+     *
+     * @throws IOException if the tab-separated values could not be read
+     */
+    @Test
+    public void testSameVOsAsJson() throws IOException
+    {
+        final List<EnaFastqVO> expectedRuns = gson.fromJson(jsonRuns, EnaFastqConstants.JSON_TYPE);
+
+        assertEquals(expectedRuns, readTsv(toTsv(jsonRuns)));
+    }
+
+
+    /**
+     * Checks if Windows line breaks and a missing last line break are handled.
+     *
+     * @throws IOException if the tab-separated values could not be read
+     */
+    @Test
+    public void testLineBreaks() throws IOException
+    {
+        final List<EnaFastqVO> expectedRuns = gson.fromJson(jsonRuns, EnaFastqConstants.JSON_TYPE);
+        final String tsv = toTsv(jsonRuns);
+        final String windowsTsv = tsv.substring(0, tsv.length() - 1).replace("\n", "\r\n");
+
+        assertEquals(expectedRuns, readTsv(windowsTsv));
+    }
+
+
+    /**
+     * Checks if a response without any lines yields no VOs.
+     *
+     * @throws IOException if the tab-separated values could not be read
+     */
+    @Test
+    public void testEmptyResponse() throws IOException
+    {
+        assertEquals(0, readTsv("").size());
+    }
+
+
+    /**
+     * Maps tab-separated values to VOs.
+     *
+     * @param tsv the tab-separated values, including a header line
+     *
+     * @throws IOException if the tab-separated values could not be read
+     *
+     * @return all VOs that were mapped
+     */
+    private static List<EnaFastqVO> readTsv(final String tsv) throws IOException
+    {
+        final List<EnaFastqVO> runs = new ArrayList<>();
+
+        try
+            (TsvReader reader = new TsvReader(new StringReader(tsv))) {
+            final EnaFastqTsvMapper mapper = new EnaFastqTsvMapper(reader, new BoundedInterner<>(EnaConstants.DICTIONARY_SIZE));
+            EnaFastqVO run;
+
+            while ((run = mapper.read()) != null)
+                runs.add(run);
+        }
+
+        return runs;
+    }
+
+
+    /**
+     * Converts JSON runs to tab-separated values, with a header line
+     * that contains the JSON field names of the first run.
+     *
+     * @param runs a JSON array of runs
+     *
+     * @return the tab-separated values of the runs
+     */
+    private static String toTsv(final JsonArray runs)
+    {
+        final StringBuilder tsvBuilder = new StringBuilder();
+        final List<String> columnNames = new ArrayList<>();
+
+        for (final Map.Entry<String, JsonElement> field : runs.get(0).getAsJsonObject().entrySet())
+            columnNames.add(field.getKey());
+
+        tsvBuilder.append(String.join("\t", columnNames)).append('\n');
+
+        for (final JsonElement run : runs) {
+            final JsonObject runObject = run.getAsJsonObject();
+            final List<String> values = new ArrayList<>();
+
+            for (final String columnName : columnNames)
+                values.add(runObject.has(columnName) ? runObject.get(columnName).getAsString() : "");
+
+            tsvBuilder.append(String.join("\t", values)).append('\n');
+        }
+
+        return tsvBuilder.toString();
+    }
+}
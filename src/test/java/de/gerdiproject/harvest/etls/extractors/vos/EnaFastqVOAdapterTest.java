@@ -0,0 +1,115 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.etls.extractors.vos;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+
+import de.gerdiproject.harvest.ena.constants.EnaConstants;
+import de.gerdiproject.harvest.ena.constants.EnaFastqConstants;
+import de.gerdiproject.harvest.utils.BoundedInterner;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * This class provides Unit Tests for the {@linkplain EnaFastqVOAdapter}.
+ * The mocked JSON responses of the EnaFastqExtractorTest must be decoded
+ * to the same VOs as by reflection.
+ *
+ * @author Robin Weiss
+ */
+@RunWith(Parameterized.class) @RequiredArgsConstructor
+public class EnaFastqVOAdapterTest
+{
+    private static final String INPUT_RESOURCE =
+        "/de/gerdiproject/harvest/etls/extractors/EnaFastqExtractorTest/shortenedHttpRequests/%s.response";
+
+
+    @Parameters(name = "accession: {0}000001")
+    public static Object[] getParameters()
+    {
+        return EnaFastqConstants.ACCESSION_PREFIXES.toArray();
+    }
+
+
+    private final String accessionPrefix;
+    private final Gson reflectiveGson = new Gson();
+    private final Gson adapterGson = new GsonBuilder()
+                                      .registerTypeAdapter(EnaFastqVO.class, new EnaFastqVOAdapter(new BoundedInterner<>(EnaConstants.DICTIONARY_SIZE)))
+                                      .create();
+    private JsonArray jsonRuns;
+
+
+    /**
+     * Reads the mocked JSON response of the accession prefix.
+     *
+     * @throws IOException if the mocked response could not be read
+     */
+    @Before
+    public void before() throws IOException
+    {
+        try
+            (Reader reader = new InputStreamReader(
+                                 getClass().getResourceAsStream(String.format(INPUT_RESOURCE, accessionPrefix)),
+                                 StandardCharsets.UTF_8)) {
+            jsonRuns = reflectiveGson.fromJson(reader, JsonArray.class);
+        }
+
+        assertFalse(jsonRuns.size() == 0);
+    }
+
+
+    /**
+     * Checks if JSON runs are decoded to the same VOs as by reflection.
+     */
+    @Test
+    public void testSameVOsAsReflection()
+    {
+        final List<EnaFastqVO> expectedRuns = reflectiveGson.fromJson(jsonRuns, EnaFastqConstants.JSON_TYPE);
+
+        assertEquals(expectedRuns, adapterGson.fromJson(jsonRuns.toString(), EnaFastqConstants.JSON_TYPE));
+    }
+
+
+    /**
+     * Checks if encoded VOs are decoded to the same VOs.
+     */
+    @Test
+    public void testRoundTrip()
+    {
+        final List<EnaFastqVO> runs = adapterGson.fromJson(jsonRuns.toString(), EnaFastqConstants.JSON_TYPE);
+        final String encodedRuns = adapterGson.toJson(runs, EnaFastqConstants.JSON_TYPE);
+
+        assertEquals(runs, adapterGson.fromJson(encodedRuns, EnaFastqConstants.JSON_TYPE));
+        assertEquals(runs, reflectiveGson.fromJson(encodedRuns, EnaFastqConstants.JSON_TYPE));
+    }
+}
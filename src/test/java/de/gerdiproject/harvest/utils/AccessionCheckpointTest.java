@@ -0,0 +1,157 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.gerdiproject.harvest.ena.constants.EnaConstants;
+
+/**
+ * This class provides Unit Tests for the {@linkplain AccessionCheckpoint}.
+ *
+ * @author Robin Weiss
+ */
+public class AccessionCheckpointTest
+{
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final AccessionRange range = AccessionRange.parse("BC000001-BC001000");
+    private File checkpointFile;
+
+
+    /**
+     * Creates the path of the checkpoint file inside a folder that does not exist yet.
+     */
+    @Before
+    public void before()
+    {
+        checkpointFile = new File(new File(tempFolder.getRoot(), "cache"), EnaConstants.CHECKPOINT_FILE);
+    }
+
+
+    /**
+     * Checks if ranges without a cursor start at their first number.
+     *
+     * @throws IOException if the checkpoint file could not be read
+     */
+    @Test
+    public void testColdStart() throws IOException
+    {
+        final AccessionCheckpoint checkpoint = new AccessionCheckpoint(checkpointFile);
+        checkpoint.load();
+
+        assertTrue(checkpoint.isEmpty());
+        assertEquals(1, checkpoint.getCursor(range));
+    }
+
+
+    /**
+     * Checks if saved cursors are restored by another checkpoint,
+     * and only apply to the range for which they were saved.
+     *
+     * @throws IOException if the checkpoint file could not be accessed
+     */
+    @Test
+    public void testSaveAndLoad() throws IOException
+    {
+        final AccessionCheckpoint checkpoint = new AccessionCheckpoint(checkpointFile);
+        checkpoint.save(range, 500);
+        checkpoint.save(AccessionRange.parse("A"), 42);
+        checkpoint.save(range, 501);
+
+        final AccessionCheckpoint loadedCheckpoint = new AccessionCheckpoint(checkpointFile);
+        loadedCheckpoint.load();
+
+        assertFalse(loadedCheckpoint.isEmpty());
+        assertEquals(501, loadedCheckpoint.getCursor(range));
+        assertEquals(42, loadedCheckpoint.getCursor(AccessionRange.parse("A")));
+        assertEquals(1, loadedCheckpoint.getCursor(AccessionRange.parse("BC000001-BC002000")));
+    }
+
+
+    /**
+     * Checks if a cursor behind the last number marks a completely harvested range.
+     *
+     * @throws IOException if the checkpoint file could not be written
+     */
+    @Test
+    public void testFinishedRange() throws IOException
+    {
+        final AccessionCheckpoint checkpoint = new AccessionCheckpoint(checkpointFile);
+        checkpoint.save(range, 1001);
+
+        assertEquals(1001, checkpoint.getCursor(range));
+    }
+
+
+    /**
+     * Checks if malformed cursors and cursors outside of their range are ignored.
+     *
+     * @throws IOException if the checkpoint file could not be accessed
+     */
+    @Test
+    public void testInvalidCursors() throws IOException
+    {
+        final AccessionRange otherRange = AccessionRange.parse("BC000100-BC000200");
+
+        Files.createDirectories(checkpointFile.getParentFile().toPath());
+        Files.write(
+            checkpointFile.toPath(),
+            Arrays.asList(range + "=abc", otherRange + "=5000"),
+            StandardCharsets.ISO_8859_1);
+
+        final AccessionCheckpoint checkpoint = new AccessionCheckpoint(checkpointFile);
+        checkpoint.load();
+
+        assertEquals(1, checkpoint.getCursor(range));
+        assertEquals(100, checkpoint.getCursor(otherRange));
+    }
+
+
+    /**
+     * Checks if deleting the checkpoint removes all cursors and the file.
+     *
+     * @throws IOException if the checkpoint file could not be accessed
+     */
+    @Test
+    public void testDelete() throws IOException
+    {
+        final AccessionCheckpoint checkpoint = new AccessionCheckpoint(checkpointFile);
+        checkpoint.save(range, 500);
+        assertTrue(checkpointFile.exists());
+
+        checkpoint.delete();
+
+        assertTrue(checkpoint.isEmpty());
+        assertFalse(checkpointFile.exists());
+        assertEquals(1, checkpoint.getCursor(range));
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * This class provides Unit Tests for the {@linkplain AccessionCodec}.
+ *
+ * @author Robin Weiss
+ */
+public class AccessionCodecTest
+{
+    private static final String[] ACCESSIONS = {
+        "A00001", "BC000042", "ERR1337", "SRR999999999", "GCA_000000001", "ABCDEF0", "Z99999"
+    };
+
+
+    /**
+     * Checks if parsed accessions are formatted to the same string.
+     */
+    @Test
+    public void testParseRoundTrip()
+    {
+        for (final String accession : ACCESSIONS)
+            assertEquals(accession, AccessionCodec.toString(AccessionCodec.parse(accession)));
+    }
+
+
+    /**
+     * Checks if encoded accessions are decoded to their prefix, number, and width.
+     */
+    @Test
+    public void testEncodeRoundTrip()
+    {
+        final long code = AccessionCodec.encode("GCA_", 1337, 9);
+
+        assertEquals("GCA_", AccessionCodec.getPrefix(code));
+        assertEquals(1337, AccessionCodec.getNumber(code));
+        assertEquals(9, AccessionCodec.getWidth(code));
+        assertEquals("GCA_000001337", AccessionCodec.toString(code));
+        assertEquals(AccessionCodec.parse("GCA_000001337"), code);
+    }
+
+
+    /**
+     * Checks if numbers that have more digits than the width are not truncated.
+     */
+    @Test
+    public void testNumberWiderThanWidth()
+    {
+        assertEquals("BC1000000", AccessionCodec.toString(AccessionCodec.encode("BC", 1000000, 6)));
+        assertEquals("BC0", AccessionCodec.toString(AccessionCodec.encode("BC", 0, 0)));
+        assertEquals("x1000000000", AccessionCodec.appendTo(AccessionCodec.encode("", 1000000000, 0), new StringBuilder("x")).toString());
+    }
+
+
+    /**
+     * Checks if numbers are replaced and incremented without changing the series.
+     */
+    @Test
+    public void testChangeNumber()
+    {
+        final long code = AccessionCodec.parse("BC000999");
+        final long nextCode = AccessionCodec.add(code, 1);
+
+        assertEquals("BC001000", AccessionCodec.toString(nextCode));
+        assertEquals("BC000001", AccessionCodec.toString(AccessionCodec.withNumber(code, 1)));
+        assertTrue(AccessionCodec.isSameSeries(code, nextCode));
+        assertFalse(AccessionCodec.isSameSeries(code, AccessionCodec.parse("BD000999")));
+        assertFalse(AccessionCodec.isSameSeries(code, AccessionCodec.parse("BC0000999")));
+    }
+
+
+    /**
+     * Checks if accessions of the same series are ordered by their numbers,
+     * and accessions of the same width are ordered by their prefixes, if they
+     * are compared as unsigned values.
+     */
+    @Test
+    public void testOrder()
+    {
+        assertTrue(compare("BC000001", "BC000002") < 0);
+        assertTrue(compare("BC999999", "BD000000") < 0);
+        assertTrue(compare("B000001", "BA000001") < 0);
+        assertTrue(compare("ERR000001", "SRR000001") < 0);
+        assertTrue(compare("SRR000001", "SRR000002") < 0);
+        assertTrue(compare("Z99999", "ZZ000000") < 0);
+    }
+
+
+    /**
+     * Checks if accessions that cannot be encoded are parsed as invalid.
+     */
+    @Test
+    public void testParseInvalid()
+    {
+        final String[] invalidAccessions = {
+            "", "BC", "bc000001", "BC0000A1", "ABCDEFG1", "BC1234567890", "BC-000001"
+        };
+
+        for (final String accession : invalidAccessions)
+            assertEquals(accession, AccessionCodec.INVALID, AccessionCodec.parse(accession));
+    }
+
+
+    /**
+     * Checks if prefixes with invalid characters are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testEncodeInvalidPrefix()
+    {
+        AccessionCodec.encode("B1", 1, 6);
+    }
+
+
+    /**
+     * Checks if widths beyond the longest accession number are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testEncodeInvalidWidth()
+    {
+        AccessionCodec.encode("BC", 1, 10);
+    }
+
+
+    /**
+     * Checks if numbers that become negative are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddBelowZero()
+    {
+        AccessionCodec.add(AccessionCodec.parse("BC000000"), -1);
+    }
+
+
+    /**
+     * Checks if accessions are validated against the known accession formats.
+     */
+    @Test
+    public void testIsValidAccession()
+    {
+        assertTrue(AccessionCodec.isValidAccession("BC000042"));
+        assertTrue(AccessionCodec.isValidAccession("BC000042.1"));
+        assertFalse(AccessionCodec.isValidAccession("BC42"));
+    }
+
+
+    /**
+     * Compares two accessions via their unsigned codes.
+     *
+     * @param accession the first accession
+     * @param otherAccession the second accession
+     *
+     * @return a negative number if the first accession is ordered before the second one,
+     *          0 if both are equal, or a positive number otherwise
+     */
+    private static int compare(final String accession, final String otherAccession)
+    {
+        return Long.compareUnsigned(AccessionCodec.parse(accession), AccessionCodec.parse(otherAccession));
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * This class provides Unit Tests for the {@linkplain AccessionRange}.
+ *
+ * @author Robin Weiss
+ */
+public class AccessionRangeTest
+{
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+
+    /**
+     * Checks if a single accession spans all following numbers of the same length.
+     */
+    @Test
+    public void testParseAccession()
+    {
+        final AccessionRange range = AccessionRange.parse("BC000042");
+
+        assertEquals("BC", range.getPrefix());
+        assertEquals(42, range.getFromNumber());
+        assertEquals(999999, range.getToNumber());
+        assertEquals("BC000042-BC999999", range.toString());
+    }
+
+
+    /**
+     * Checks if a pair of accessions is parsed case-insensitively.
+     */
+    @Test
+    public void testParsePair()
+    {
+        final AccessionRange range = AccessionRange.parse(" bc000001-BC050000 ");
+
+        assertEquals(1, range.getFromNumber());
+        assertEquals(50000, range.getToNumber());
+        assertEquals(50000, range.size());
+    }
+
+
+    /**
+     * Checks if a letter prefix spans all numbers of the common length for its size.
+     */
+    @Test
+    public void testParsePrefix()
+    {
+        assertEquals("A00000-A99999", AccessionRange.parse("A").toString());
+        assertEquals("ABCD00000000-ABCD99999999", AccessionRange.parse("ABCD").toString());
+    }
+
+
+    /**
+     * Checks if the versions of accessions are ignored, because a range
+     * spans all versions of its accessions.
+     */
+    @Test
+    public void testParseVersionedAccessions()
+    {
+        assertEquals("BC000001-BC999999", AccessionRange.parse("BC000001.1").toString());
+        assertEquals("BC000001-BC050000", AccessionRange.parse("BC000001.2-BC050000.13").toString());
+    }
+
+
+    /**
+     * Checks if accessions are assembled from the prefix and the zero-padded number.
+     */
+    @Test
+    public void testGetAccession()
+    {
+        final AccessionRange range = AccessionRange.parse("GCA_000000001");
+
+        assertEquals("GCA_000001337", range.getAccession(1337));
+        assertEquals("xGCA_000000002", range.appendAccession(2, new StringBuilder("x")).toString());
+    }
+
+
+    /**
+     * Checks if lists of ranges are split by commas, semicolons, and whitespace.
+     */
+    @Test
+    public void testParseList()
+    {
+        final List<AccessionRange> ranges = AccessionRange.parseList("BC000001-BC000010, A;\nERR000001");
+
+        assertEquals(3, ranges.size());
+        assertEquals("BC000001-BC000010", ranges.get(0).toString());
+        assertEquals("A00000-A99999", ranges.get(1).toString());
+        assertEquals("ERR000001-ERR999999", ranges.get(2).toString());
+    }
+
+
+    /**
+     * Checks if ranges are read from files, skipping comment lines.
+     *
+     * @throws IOException if the range file could not be written
+     */
+    @Test
+    public void testParseListFromFile() throws IOException
+    {
+        final File rangeFile = tempFolder.newFile("ranges.txt");
+        Files.write(rangeFile.toPath(), Arrays.asList("# comment", "BC000001-BC000010", "", "A"), StandardCharsets.UTF_8);
+
+        final List<AccessionRange> ranges = AccessionRange.parseList("@" + rangeFile.getAbsolutePath());
+
+        assertEquals(2, ranges.size());
+        assertEquals("A00000-A99999", ranges.get(1).toString());
+    }
+
+
+    /**
+     * Checks if ranges that end before they start are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testDescendingRange()
+    {
+        AccessionRange.parse("BC000010-BC000001");
+    }
+
+
+    /**
+     * Checks if ranges with different prefixes are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMixedPrefixes()
+    {
+        AccessionRange.parse("BC000001-BD000010");
+    }
+
+
+    /**
+     * Checks if ranges with different numbers of digits are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMixedNumberLengths()
+    {
+        AccessionRange.parse("BC000001-BC0000010");
+    }
+
+
+    /**
+     * Checks if version suffixes are rejected unless they follow a number.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testVersionWithoutNumber()
+    {
+        AccessionRange.parse("BC.1");
+    }
+
+
+    /**
+     * Checks if prefixes without a common number length are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testPrefixWithoutNumberLength()
+    {
+        AccessionRange.parse("ABCDE");
+    }
+
+
+    /**
+     * Checks if missing range files are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingRangeFile()
+    {
+        AccessionRange.parseList("@" + new File(tempFolder.getRoot(), "missing.txt").getAbsolutePath());
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * This class provides Unit Tests for the {@linkplain AccessionVersionIndex}.
+ *
+ * @author Robin Weiss
+ */
+public class AccessionVersionIndexTest
+{
+    private static final String ACCESSION = "BC000001";
+    private static final String VERSION = "1";
+    private static final String LAST_UPDATED = "2019-01-01";
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File indexFile;
+    private AccessionVersionIndex testedObject;
+
+
+    /**
+     * Creates an empty index in a temporary folder.
+     */
+    @Before
+    public void before()
+    {
+        indexFile = new File(tempFolder.getRoot(), "index.bin.gz");
+        testedObject = new AccessionVersionIndex(indexFile);
+    }
+
+
+    /**
+     * Checks if accessions that were never indexed are changed.
+     */
+    @Test
+    public void testUnknownAccessionHasChanged()
+    {
+        assertTrue(testedObject.hasChanged(ACCESSION, VERSION, LAST_UPDATED));
+    }
+
+
+    /**
+     * Checks if staged versions are ignored until they are committed.
+     */
+    @Test
+    public void testStagedVersionHasChanged()
+    {
+        testedObject.update(ACCESSION, VERSION, LAST_UPDATED);
+
+        assertTrue(testedObject.hasChanged(ACCESSION, VERSION, LAST_UPDATED));
+        assertEquals(0, testedObject.size());
+    }
+
+
+    /**
+     * Checks if committed versions are unchanged, unless the version
+     * or the last update date differ.
+     */
+    @Test
+    public void testCommittedVersion()
+    {
+        testedObject.update(ACCESSION, VERSION, LAST_UPDATED);
+        testedObject.commit();
+
+        assertFalse(testedObject.hasChanged(ACCESSION, VERSION, LAST_UPDATED));
+        assertTrue(testedObject.hasChanged(ACCESSION, "2", LAST_UPDATED));
+        assertTrue(testedObject.hasChanged(ACCESSION, VERSION, "2019-01-02"));
+        assertTrue(testedObject.hasChanged("BC000002", VERSION, LAST_UPDATED));
+    }
+
+
+    /**
+     * Checks if committed versions are written to the index file and read again.
+     *
+     * @throws IOException if the index file could not be accessed
+     */
+    @Test
+    public void testSaveAndLoad() throws IOException
+    {
+        for (int i = 0; i < 1000; i++)
+            testedObject.update("BC" + i, VERSION, LAST_UPDATED);
+
+        testedObject.update("ERR" + 1, VERSION, LAST_UPDATED);
+        testedObject.commit();
+        testedObject.save();
+
+        final AccessionVersionIndex loadedIndex = new AccessionVersionIndex(indexFile);
+        loadedIndex.load();
+
+        assertEquals(1001, loadedIndex.size());
+        assertFalse(loadedIndex.hasChanged("BC999", VERSION, LAST_UPDATED));
+        assertFalse(loadedIndex.hasChanged("ERR1", VERSION, LAST_UPDATED));
+    }
+
+
+    /**
+     * Checks if versions that were not committed are not written to the index file,
+     * like the versions of entries that were retrieved before a harvest was aborted.
+     *
+     * @throws IOException if the index file could not be accessed
+     */
+    @Test
+    public void testUncommittedVersionIsNotSaved() throws IOException
+    {
+        testedObject.update(ACCESSION, VERSION, LAST_UPDATED);
+        testedObject.commit();
+        testedObject.update("BC000002", VERSION, LAST_UPDATED);
+        testedObject.save();
+
+        final AccessionVersionIndex loadedIndex = new AccessionVersionIndex(indexFile);
+        loadedIndex.load();
+
+        assertFalse(loadedIndex.hasChanged(ACCESSION, VERSION, LAST_UPDATED));
+        assertTrue(loadedIndex.hasChanged("BC000002", VERSION, LAST_UPDATED));
+    }
+
+
+    /**
+     * Checks if loading the index discards staged versions.
+     *
+     * @throws IOException if the index file could not be accessed
+     */
+    @Test
+    public void testLoadDiscardsStagedVersions() throws IOException
+    {
+        testedObject.update(ACCESSION, VERSION, LAST_UPDATED);
+        testedObject.load();
+        testedObject.commit();
+
+        assertTrue(testedObject.hasChanged(ACCESSION, VERSION, LAST_UPDATED));
+    }
+
+
+    /**
+     * Checks if accessions that cannot be indexed are always changed.
+     */
+    @Test
+    public void testUnindexableAccessionHasChanged()
+    {
+        final String longAccession = "BC1234567890";
+        testedObject.update(longAccession, VERSION, LAST_UPDATED);
+        testedObject.update(null, VERSION, LAST_UPDATED);
+        testedObject.commit();
+
+        assertTrue(testedObject.hasChanged(longAccession, VERSION, LAST_UPDATED));
+        assertTrue(testedObject.hasChanged(null, VERSION, LAST_UPDATED));
+        assertEquals(0, testedObject.size());
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.gerdiproject.harvest.ena.constants.EnaConstants;
+
+/**
+ * This class provides Unit Tests for the {@linkplain CachingHttpRequester}.
+ * The requests are answered by a local HTTP server that supports ETags,
+ * and responds without content to resources with empty bodies.
+ *
+ * @author Robin Weiss
+ */
+public class CachingHttpRequesterTest
+{
+    // random bytes cannot be compressed, so each cached body has roughly this size
+    private static final int BODY_SIZE = 4096;
+    private static final long MAX_CACHE_SIZE = 10000;
+
+    // the file system timestamps that decide which responses are least recently used
+    private static final long TIMESTAMP_DELAY = 20;
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final Map<String, byte[]> bodies = new ConcurrentHashMap<>();
+    private final Map<String, String> eTags = new ConcurrentHashMap<>();
+    private final List<String> receivedETags = new CopyOnWriteArrayList<>();
+    private final Random random = new Random(1337);
+
+    private HttpServer server;
+    private File cacheFolder;
+    private CachingHttpRequester requester;
+
+
+    /**
+     * Starts the local HTTP server and creates a requester with an enabled cache.
+     *
+     * @throws IOException if the server could not be started
+     */
+    @Before
+    public void before() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handleRequest);
+        server.start();
+
+        cacheFolder = new File(tempFolder.getRoot(), EnaConstants.HTTP_CACHE_FOLDER);
+        requester = new CachingHttpRequester(cacheFolder);
+        requester.setMaxCacheSize(MAX_CACHE_SIZE);
+    }
+
+
+    /**
+     * Stops the local HTTP server.
+     */
+    @After
+    public void after()
+    {
+        server.stop(0);
+    }
+
+
+    /**
+     * Checks if a response is downloaded once, and read from the cache
+     * when the server confirms that it was not modified.
+     *
+     * @throws IOException if a request failed
+     */
+    @Test
+    public void testNotModified() throws IOException
+    {
+        final byte[] body = addResource("/a", "\"v1\"");
+
+        assertArrayEquals(body, request("/a"));
+        assertArrayEquals(body, request("/a"));
+
+        assertEquals(1, requester.getMissCount());
+        assertEquals(1, requester.getHitCount());
+        assertNull(receivedETags.get(0));
+        assertEquals("\"v1\"", receivedETags.get(1));
+    }
+
+
+    /**
+     * Checks if a modified response replaces the cached response.
+     *
+     * @throws IOException if a request failed
+     */
+    @Test
+    public void testModified() throws IOException
+    {
+        addResource("/a", "\"v1\"");
+        request("/a");
+
+        final byte[] modifiedBody = addResource("/a", "\"v2\"");
+
+        assertArrayEquals(modifiedBody, request("/a"));
+        assertArrayEquals(modifiedBody, request("/a"));
+
+        assertEquals(2, requester.getMissCount());
+        assertEquals(1, requester.getHitCount());
+        assertEquals("\"v2\"", receivedETags.get(2));
+    }
+
+
+    /**
+     * Checks if responses without validators are not cached.
+     *
+     * @throws IOException if a request failed
+     */
+    @Test
+    public void testNoValidators() throws IOException
+    {
+        final byte[] body = addResource("/a", null);
+
+        assertArrayEquals(body, request("/a"));
+        assertArrayEquals(body, request("/a"));
+
+        assertEquals(0, requester.getHitCount());
+        assertNull(receivedETags.get(1));
+    }
+
+
+    /**
+     * Checks if nothing is cached if the maximum cache size is 0.
+     *
+     * @throws IOException if a request failed
+     */
+    @Test
+    public void testDisabled() throws IOException
+    {
+        requester.setMaxCacheSize(0);
+        final byte[] body = addResource("/a", "\"v1\"");
+
+        assertArrayEquals(body, request("/a"));
+        assertArrayEquals(body, request("/a"));
+
+        assertEquals(0, requester.getMissCount());
+        assertEquals(0, requester.getHitCount());
+        assertNull(receivedETags.get(1));
+        assertFalse(cacheFolder.exists());
+    }
+
+
+    /**
+     * Checks if the least recently used response is evicted when the cache
+     * exceeds its maximum size, and if revalidated responses count as used.
+     *
+     * @throws IOException if a request failed
+     * @throws InterruptedException if the test was interrupted while waiting
+     */
+    @Test
+    public void testEviction() throws IOException, InterruptedException
+    {
+        addResource("/a", "\"a\"");
+        addResource("/b", "\"b\"");
+        addResource("/c", "\"c\"");
+
+        request("/a");
+        Thread.sleep(TIMESTAMP_DELAY);
+        request("/b");
+        Thread.sleep(TIMESTAMP_DELAY);
+
+        // revalidating /a makes /b the least recently used response
+        request("/a");
+        Thread.sleep(TIMESTAMP_DELAY);
+        request("/c");
+
+        // /b is requested last, because caching it again evicts another response
+        receivedETags.clear();
+        request("/a");
+        request("/c");
+        request("/b");
+
+        assertEquals("\"a\"", receivedETags.get(0));
+        assertEquals("\"c\"", receivedETags.get(1));
+        assertNull(receivedETags.get(2));
+    }
+
+
+    /**
+     * Checks if unsuccessful responses cause an {@linkplain IOException}.
+     *
+     * @throws IOException if a request failed
+     */
+    @Test(expected = IOException.class)
+    public void testNotFound() throws IOException
+    {
+        request("/missing");
+    }
+
+
+    /**
+     * Checks if responses without content are read as empty bodies, and are not cached.
+     *
+     * @throws IOException if a request failed
+     */
+    @Test
+    public void testNoContent() throws IOException
+    {
+        bodies.put("/empty", new byte[0]);
+        eTags.put("/empty", "\"e\"");
+
+        assertEquals(0, request("/empty").length);
+        assertEquals(0, request("/empty").length);
+
+        assertEquals(0, requester.getHitCount());
+        assertNull(receivedETags.get(1));
+    }
+
+
+    /**
+     * Checks if responses without content are read as empty bodies
+     * if the cache is disabled.
+     *
+     * @throws IOException if a request failed
+     */
+    @Test
+    public void testNoContentDisabled() throws IOException
+    {
+        requester.setMaxCacheSize(0);
+        bodies.put("/empty", new byte[0]);
+
+        assertEquals(0, request("/empty").length);
+    }
+
+
+    /**
+     * Adds or replaces a resource of the local HTTP server.
+     *
+     * @param path the URL path of the resource
+     * @param eTag the ETag of the resource, or null if it has none
+     *
+     * @return the random body of the resource
+     */
+    private byte[] addResource(final String path, final String eTag)
+    {
+        final byte[] body = new byte[BODY_SIZE];
+        random.nextBytes(body);
+        bodies.put(path, body);
+
+        if (eTag == null)
+            eTags.remove(path);
+        else
+            eTags.put(path, eTag);
+
+        return body;
+    }
+
+
+    /**
+     * Requests a resource of the local HTTP server and reads the response body.
+     *
+     * @param path the URL path of the resource
+     *
+     * @throws IOException if the request failed
+     *
+     * @return the response body
+     */
+    private byte[] request(final String path) throws IOException
+    {
+        final String url = String.format("http://localhost:%d%s", server.getAddress().getPort(), path);
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        try
+            (InputStream responseStream = requester.getInputStreamFromUrl(url)) {
+            final byte[] buffer = new byte[BODY_SIZE];
+            int readBytes;
+
+            while ((readBytes = responseStream.read(buffer)) != -1)
+                body.write(buffer, 0, readBytes);
+        }
+
+        return body.toByteArray();
+    }
+
+
+    /**
+     * Answers a request of the local HTTP server, responding with 304 if the
+     * ETag of the request matches the resource.
+     *
+     * @param exchange the request and response
+     *
+     * @throws IOException if the response could not be sent
+     */
+    private void handleRequest(final HttpExchange exchange) throws IOException
+    {
+        final String path = exchange.getRequestURI().getPath();
+        final String requestETag = exchange.getRequestHeaders().getFirst(EnaConstants.IF_NONE_MATCH_HEADER);
+        receivedETags.add(requestETag);
+
+        final byte[] body = bodies.get(path);
+        final String eTag = eTags.get(path);
+
+        if (body == null)
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_FOUND, -1);
+
+        else if (eTag != null && eTag.equals(requestETag))
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_MODIFIED, -1);
+
+        else if (body.length == 0) {
+            if (eTag != null)
+                exchange.getResponseHeaders().set(EnaConstants.ETAG_HEADER, eTag);
+
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_NO_CONTENT, -1);
+        }
+
+        else {
+            if (eTag != null)
+                exchange.getResponseHeaders().set(EnaConstants.ETAG_HEADER, eTag);
+
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, body.length);
+
+            try
+                (OutputStream responseStream = exchange.getResponseBody()) {
+                responseStream.write(body);
+            }
+        }
+
+        exchange.close();
+    }
+}
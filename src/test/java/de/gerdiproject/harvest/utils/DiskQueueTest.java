@@ -0,0 +1,315 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.gerdiproject.harvest.ena.constants.EnaConstants;
+
+/**
+ * This class provides Unit Tests for the {@linkplain DiskQueue}.
+ *
+ * @author Robin Weiss
+ */
+public class DiskQueueTest
+{
+    // every value is written to a segment of its own
+    private static final long SEGMENT_SIZE = 1L;
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File queueFolder;
+
+
+    /**
+     * Creates the path of the queue folder, which is created by the queue.
+     */
+    @Before
+    public void before()
+    {
+        queueFolder = new File(tempFolder.getRoot(), "queue");
+    }
+
+
+    /**
+     * Checks if values are returned in the order in which they were added.
+     *
+     * @throws IOException if the queue could not be accessed
+     */
+    @Test
+    public void testFirstInFirstOut() throws IOException
+    {
+        try
+            (DiskQueue queue = new DiskQueue(queueFolder)) {
+            assertTrue(queue.isEmpty());
+
+            queue.add("first");
+            queue.add("second");
+            queue.add("");
+            assertEquals(3, queue.size());
+
+            assertEquals("first", queue.get());
+            assertEquals("second", queue.get());
+            assertEquals("", queue.get());
+            assertNull(queue.get());
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+
+    /**
+     * Checks if values span multiple segments, and if segments are deleted
+     * by the first checkpoint after all of their values were removed.
+     *
+     * @throws IOException if the queue could not be accessed
+     */
+    @Test
+    public void testSegments() throws IOException
+    {
+        try
+            (DiskQueue queue = new DiskQueue(queueFolder, SEGMENT_SIZE)) {
+            for (int i = 0; i < 10; i++)
+                queue.add("value" + i);
+
+            assertTrue(getSegmentFile(9).exists());
+
+            for (int i = 0; i < 10; i++)
+                assertEquals("value" + i, queue.get());
+
+            assertTrue(getSegmentFile(0).exists());
+
+            queue.flush();
+            assertFalse(getSegmentFile(0).exists());
+            assertFalse(getSegmentFile(8).exists());
+            assertTrue(getSegmentFile(9).exists());
+        }
+    }
+
+
+    /**
+     * Checks if the values of a closed queue are restored when it is reopened.
+     *
+     * @throws IOException if the queue could not be accessed
+     */
+    @Test
+    public void testReopen() throws IOException
+    {
+        try
+            (DiskQueue queue = new DiskQueue(queueFolder, SEGMENT_SIZE)) {
+            queue.add("a");
+            queue.add("b");
+            queue.add("c");
+            assertEquals("a", queue.get());
+        }
+
+        try
+            (DiskQueue queue = new DiskQueue(queueFolder, SEGMENT_SIZE)) {
+            assertEquals(2, queue.size());
+            assertEquals("b", queue.get());
+            queue.add("d");
+            assertEquals("c", queue.get());
+            assertEquals("d", queue.get());
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+
+    /**
+     * Checks if values that were written to a segment after the last checkpoint
+     * are discarded, including a value that was only partially written.
+     *
+     * @throws IOException if the queue could not be accessed
+     */
+    @Test
+    public void testDiscardAfterCheckpoint() throws IOException
+    {
+        try
+            (DiskQueue queue = new DiskQueue(queueFolder)) {
+            queue.add("checkpointed");
+        }
+
+        final File segmentFile = getSegmentFile(0);
+        final long checkpointedLength = segmentFile.length();
+
+        // simulate a crash after values were written, but before the pointers were stored
+        try
+            (DataOutputStream output = new DataOutputStream(
+                                           Files.newOutputStream(segmentFile.toPath(), StandardOpenOption.APPEND))) {
+            final byte[] bytes = "discarded".getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+
+            // a value that was interrupted while it was written
+            output.writeInt(100);
+            output.write("partial".getBytes(StandardCharsets.UTF_8));
+        }
+
+        try
+            (DiskQueue queue = new DiskQueue(queueFolder)) {
+            assertEquals(1, queue.size());
+            assertEquals(checkpointedLength, segmentFile.length());
+
+            queue.add("appended");
+            assertEquals("checkpointed", queue.get());
+            assertEquals("appended", queue.get());
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+
+    /**
+     * Checks if segments that were started after the last checkpoint are deleted.
+     *
+     * @throws IOException if the queue could not be accessed
+     */
+    @Test
+    public void testDiscardNextSegment() throws IOException
+    {
+        try
+            (DiskQueue queue = new DiskQueue(queueFolder, SEGMENT_SIZE)) {
+            queue.add("checkpointed");
+        }
+
+        try
+            (DataOutputStream output = new DataOutputStream(Files.newOutputStream(getSegmentFile(1).toPath()))) {
+            final byte[] bytes = "discarded".getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+
+        try
+            (DiskQueue queue = new DiskQueue(queueFolder, SEGMENT_SIZE)) {
+            assertEquals(1, queue.size());
+            assertFalse(getSegmentFile(1).exists());
+            assertEquals("checkpointed", queue.get());
+            assertNull(queue.get());
+        }
+    }
+
+
+    /**
+     * Checks if a queue that was never closed is restored from its last checkpoint,
+     * returning values once more that were removed after the checkpoint.
+     *
+     * @throws IOException if the queue could not be accessed
+     */
+    @Test
+    public void testRestoreAfterCrash() throws IOException
+    {
+        final DiskQueue crashedQueue = new DiskQueue(queueFolder);
+        crashedQueue.add("a");
+        crashedQueue.add("b");
+        crashedQueue.flush();
+        assertEquals("a", crashedQueue.get());
+
+        try
+            (DiskQueue queue = new DiskQueue(queueFolder)) {
+            assertEquals(2, queue.size());
+            assertEquals("a", queue.get());
+            assertEquals("b", queue.get());
+        } finally {
+            crashedQueue.close();
+        }
+    }
+
+
+    /**
+     * Checks if removing values never stores the pointers, not even when
+     * consumed segments are left behind, so that all values that were removed
+     * after the last checkpoint are returned once more.
+     *
+     * @throws IOException if the queue could not be accessed
+     */
+    @Test
+    public void testNoCheckpointOnRemoval() throws IOException
+    {
+        final DiskQueue crashedQueue = new DiskQueue(queueFolder, SEGMENT_SIZE);
+        crashedQueue.add("a");
+        crashedQueue.add("b");
+        crashedQueue.add("c");
+        crashedQueue.flush();
+
+        assertEquals("a", crashedQueue.get());
+        assertEquals("b", crashedQueue.get());
+        assertEquals("c", crashedQueue.get());
+        crashedQueue.add("d");
+
+        try
+            (DiskQueue queue = new DiskQueue(queueFolder, SEGMENT_SIZE)) {
+            assertEquals(3, queue.size());
+            assertEquals("a", queue.get());
+            assertEquals("b", queue.get());
+            assertEquals("c", queue.get());
+            assertTrue(queue.isEmpty());
+        } finally {
+            crashedQueue.close();
+        }
+    }
+
+
+    /**
+     * Checks if clearing the queue removes all values and files.
+     *
+     * @throws IOException if the queue could not be accessed
+     */
+    @Test
+    public void testClear() throws IOException
+    {
+        try
+            (DiskQueue queue = new DiskQueue(queueFolder, SEGMENT_SIZE)) {
+            queue.add("a");
+            queue.add("b");
+            queue.flush();
+
+            queue.clear();
+            assertEquals(0, queueFolder.list().length);
+            assertTrue(queue.isEmpty());
+
+            queue.add("c");
+            assertEquals("c", queue.get());
+        }
+    }
+
+
+    /**
+     * Returns a segment file of the queue folder.
+     *
+     * @param segment the number of the segment
+     *
+     * @return the segment file
+     */
+    private File getSegmentFile(final int segment)
+    {
+        return new File(queueFolder, String.format(EnaConstants.QUEUE_SEGMENT_FILE, segment));
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * This class provides Unit Tests for the {@linkplain IntBitmap}.
+ *
+ * @author Robin Weiss
+ */
+public class IntBitmapTest
+{
+    // the number of values after which a chunk is converted to a bitmap
+    private static final int MAX_ARRAY_SIZE = 4096;
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File bitmapFile;
+
+
+    /**
+     * Creates the path of the bitmap file.
+     */
+    @Before
+    public void before()
+    {
+        bitmapFile = new File(tempFolder.getRoot(), "bitmap.bin");
+    }
+
+
+    /**
+     * Checks if integers of different chunks are added and found.
+     */
+    @Test
+    public void testAddAndContains()
+    {
+        final IntBitmap bitmap = new IntBitmap(bitmapFile);
+
+        assertTrue(bitmap.add(0));
+        assertTrue(bitmap.add(CHUNK_SIZE - 1));
+        assertTrue(bitmap.add(CHUNK_SIZE));
+        assertTrue(bitmap.add(Integer.MAX_VALUE));
+        assertFalse(bitmap.add(CHUNK_SIZE));
+
+        assertEquals(4, bitmap.size());
+        assertTrue(bitmap.contains(CHUNK_SIZE - 1));
+        assertTrue(bitmap.contains(Integer.MAX_VALUE));
+        assertFalse(bitmap.contains(1));
+        assertFalse(bitmap.contains(CHUNK_SIZE + 1));
+    }
+
+
+    /**
+     * Checks if integers are kept when a chunk is converted from a sorted array to a bitmap,
+     * and if integers that are added in descending order are sorted correctly.
+     */
+    @Test
+    public void testChunkConversion()
+    {
+        final IntBitmap bitmap = new IntBitmap(bitmapFile);
+
+        // every other integer, so the array is full before the chunk is dense
+        for (int i = MAX_ARRAY_SIZE - 1; i >= 0; i--)
+            assertTrue(bitmap.add(2 * i));
+
+        assertEquals(MAX_ARRAY_SIZE, bitmap.size());
+        assertTrue(bitmap.add(1));
+        assertFalse(bitmap.add(2));
+        assertTrue(bitmap.add(CHUNK_SIZE - 1));
+
+        assertEquals(MAX_ARRAY_SIZE + 2, bitmap.size());
+
+        for (int i = 0; i < MAX_ARRAY_SIZE; i++) {
+            assertTrue(bitmap.contains(2 * i));
+            assertEquals(i == 0, bitmap.contains(2 * i + 1));
+        }
+
+        assertTrue(bitmap.contains(CHUNK_SIZE - 1));
+        assertFalse(bitmap.contains(CHUNK_SIZE));
+    }
+
+
+    /**
+     * Checks if sparse and dense chunks are restored from the file.
+     *
+     * @throws IOException if the file could not be accessed
+     */
+    @Test
+    public void testSaveAndLoad() throws IOException
+    {
+        final IntBitmap bitmap = new IntBitmap(bitmapFile);
+
+        for (int i = 0; i < CHUNK_SIZE; i += 3)
+            bitmap.add(i);
+
+        bitmap.add(5 * CHUNK_SIZE + 42);
+        bitmap.save();
+
+        final IntBitmap loadedBitmap = new IntBitmap(bitmapFile);
+        loadedBitmap.load();
+
+        assertEquals(bitmap.size(), loadedBitmap.size());
+
+        for (int i = 0; i < CHUNK_SIZE; i++)
+            assertEquals(i % 3 == 0, loadedBitmap.contains(i));
+
+        assertTrue(loadedBitmap.contains(5 * CHUNK_SIZE + 42));
+        assertFalse(loadedBitmap.contains(5 * CHUNK_SIZE + 43));
+    }
+
+
+    /**
+     * Checks if loading a missing file results in an empty set.
+     *
+     * @throws IOException if the file could not be accessed
+     */
+    @Test
+    public void testLoadMissingFile() throws IOException
+    {
+        final IntBitmap bitmap = new IntBitmap(bitmapFile);
+        bitmap.add(1);
+        bitmap.load();
+
+        assertEquals(0, bitmap.size());
+        assertFalse(bitmap.contains(1));
+    }
+
+
+    /**
+     * Checks if clearing the set removes all integers and the file.
+     *
+     * @throws IOException if the file could not be accessed
+     */
+    @Test
+    public void testClear() throws IOException
+    {
+        final IntBitmap bitmap = new IntBitmap(bitmapFile);
+        bitmap.add(1);
+        bitmap.save();
+        assertTrue(bitmapFile.exists());
+
+        bitmap.clear();
+
+        assertEquals(0, bitmap.size());
+        assertFalse(bitmap.contains(1));
+        assertFalse(bitmapFile.exists());
+    }
+}
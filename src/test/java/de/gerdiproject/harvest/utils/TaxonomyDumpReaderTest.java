@@ -0,0 +1,164 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.jsoup.nodes.Element;
+import org.junit.Test;
+
+import de.gerdiproject.harvest.ena.constants.EnaTaxonConstants;
+
+/**
+ * This class provides Unit Tests for the {@linkplain TaxonomyDumpReader}.
+ *
+ * @author Robin Weiss
+ */
+public class TaxonomyDumpReaderTest
+{
+    private static final String DUMP = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                                       + "<TAXON_SET>\n"
+                                       + "  <taxon scientificName=\"mocked other\" taxId=\"2\" parentTaxId=\"1\">\n"
+                                       + "    <lineage>\n"
+                                       + "      <taxon scientificName=\"MockusNamus\" taxId=\"1\"/>\n"
+                                       + "    </lineage>\n"
+                                       + "    <synonym type=\"common name\" name=\"Other Common Name\"/>\n"
+                                       + "  </taxon>\n"
+                                       + "  <taxon scientificName=\"mocked another\" taxId=\"1337\"><![CDATA[text]]></taxon>\n"
+                                       + "</TAXON_SET>\n";
+
+
+    /**
+     * Checks if only the top-level taxa of the dump are returned, in the order of the dump.
+     *
+     * @throws IOException if the dump could not be read
+     */
+    @Test
+    public void testTopLevelTaxa() throws IOException
+    {
+        try
+            (TaxonomyDumpReader reader = createReader(DUMP)) {
+            assertEquals("2", reader.next().attr("taxid"));
+            assertEquals("1337", reader.next().attr("taxid"));
+            assertNull(reader.next());
+        }
+    }
+
+
+    /**
+     * Checks if taxa are converted with lowercase names and attributes,
+     * and without the indentation between elements.
+     *
+     * @throws IOException if the dump could not be read
+     */
+    @Test
+    public void testElementConversion() throws IOException
+    {
+        try
+            (TaxonomyDumpReader reader = createReader(DUMP)) {
+            final Element taxon = reader.next();
+
+            assertEquals(EnaTaxonConstants.TAXON_ELEMENT, taxon.tagName());
+            assertEquals("mocked other", taxon.attr("scientificname"));
+            assertEquals(2, taxon.children().size());
+            assertEquals(0, taxon.textNodes().size());
+            assertEquals("MockusNamus", taxon.selectFirst("lineage > taxon").attr("scientificname"));
+            assertEquals("Other Common Name", taxon.selectFirst("synonym").attr("name"));
+
+            assertEquals("text", reader.next().text());
+        }
+    }
+
+
+    /**
+     * Checks if closing the reader closes the stream of the dump.
+     *
+     * @throws IOException if the dump could not be read
+     */
+    @Test
+    public void testCloseClosesStream() throws IOException
+    {
+        final ClosingInputStream input = new ClosingInputStream(DUMP);
+        new TaxonomyDumpReader(input, EnaTaxonConstants.TAXON_ELEMENT).close();
+
+        assertTrue(input.isClosed);
+    }
+
+
+    /**
+     * Checks if malformed dumps cause an {@linkplain IOException}.
+     *
+     * @throws IOException if the dump could not be read
+     */
+    @Test(expected = IOException.class)
+    public void testMalformedDump() throws IOException
+    {
+        try
+            (TaxonomyDumpReader reader = createReader("<TAXON_SET><taxon taxId=\"1\"></TAXON_SET>")) {
+            reader.next();
+        }
+    }
+
+
+    /**
+     * Creates a reader of a dump.
+     *
+     * @param dump the XML content of the dump
+     *
+     * @throws IOException if the dump could not be opened
+     *
+     * @return a reader of the dump
+     */
+    private static TaxonomyDumpReader createReader(final String dump) throws IOException
+    {
+        return new TaxonomyDumpReader(new ClosingInputStream(dump), EnaTaxonConstants.TAXON_ELEMENT);
+    }
+
+
+    /**
+     * An in-memory stream that remembers whether it was closed.
+     */
+    private static class ClosingInputStream extends ByteArrayInputStream
+    {
+        private boolean isClosed;
+
+
+        /**
+         * Constructor.
+         *
+         * @param content the content of the stream
+         */
+        ClosingInputStream(final String content)
+        {
+            super(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+
+        @Override
+        public void close() throws IOException
+        {
+            isClosed = true;
+            super.close();
+        }
+    }
+}
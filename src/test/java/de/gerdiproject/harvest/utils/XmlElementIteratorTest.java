@@ -0,0 +1,188 @@
+/*
+ *  Copyright © 2019 Robin Weiss (http://www.gerdi-project.de/)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package de.gerdiproject.harvest.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+import org.jsoup.nodes.Element;
+import org.junit.Test;
+
+import de.gerdiproject.harvest.ena.constants.EnaConstants;
+
+/**
+ * This class provides Unit Tests for the {@linkplain XmlElementIterator}.
+ *
+ * @author Robin Weiss
+ */
+public class XmlElementIteratorTest
+{
+    private static final String DOCUMENT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                                           + "<ROOT>\n"
+                                           + "  <!-- a comment -->\n"
+                                           + "  <entry accession=\"BC000001\" version=\"2\">\n"
+                                           + "    <description>first &amp; <![CDATA[<only>]]></description>\n"
+                                           + "    <xref db=\"taxon\" id=\"9606\"/>\n"
+                                           + "  </entry>\n"
+                                           + "  <other><entry accession=\"BC000002\"/></other>\n"
+                                           + "</ROOT>\n";
+
+
+    /**
+     * Checks if all elements with the specified name are returned in document order,
+     * regardless of their depth.
+     *
+     * @throws IOException if the document could not be read
+     */
+    @Test
+    public void testElementOrder() throws IOException
+    {
+        try
+            (XmlElementIterator entries = createIterator(DOCUMENT)) {
+            assertTrue(entries.hasNext());
+            assertEquals("BC000001", entries.next().attr("accession"));
+            assertEquals("BC000002", entries.next().attr("accession"));
+            assertFalse(entries.hasNext());
+        }
+    }
+
+
+    /**
+     * Checks if elements are copied with their attributes, children, and text.
+     *
+     * @throws IOException if the document could not be read
+     */
+    @Test
+    public void testElementContent() throws IOException
+    {
+        try
+            (XmlElementIterator entries = createIterator(DOCUMENT)) {
+            final Element entry = entries.next();
+
+            assertEquals("2", entry.attr("version"));
+            assertEquals("first & <only>", entry.selectFirst("description").text());
+            assertEquals("9606", entry.selectFirst("xref").attr("id"));
+            assertEquals(2, entry.children().size());
+        }
+    }
+
+
+    /**
+     * Checks if empty documents have no elements, and if the stream
+     * is closed once the end of the document was reached.
+     *
+     * @throws IOException if the document could not be read
+     */
+    @Test
+    public void testEmptyDocument() throws IOException
+    {
+        final ClosingInputStream input = new ClosingInputStream("<ROOT/>");
+
+        try
+            (XmlElementIterator entries = new XmlElementIterator(input, EnaConstants.ENTRY)) {
+            assertFalse(entries.hasNext());
+            assertTrue(input.isClosed);
+        }
+    }
+
+
+    /**
+     * Checks if iterating beyond the last element is rejected.
+     *
+     * @throws IOException if the document could not be read
+     */
+    @Test(expected = NoSuchElementException.class)
+    public void testNextAfterEnd() throws IOException
+    {
+        try
+            (XmlElementIterator entries = createIterator("<ROOT/>")) {
+            entries.next();
+        }
+    }
+
+
+    /**
+     * Checks if malformed XML causes an {@linkplain UncheckedIOException},
+     * and closes the stream.
+     *
+     * @throws IOException if the document could not be opened
+     */
+    @Test
+    public void testMalformedDocument() throws IOException
+    {
+        final ClosingInputStream input = new ClosingInputStream("<ROOT><entry></ROOT>");
+
+        try
+            (XmlElementIterator entries = new XmlElementIterator(input, EnaConstants.ENTRY)) {
+            entries.hasNext();
+            throw new AssertionError("malformed XML was not rejected");
+
+        } catch (final UncheckedIOException e) {
+            assertTrue(input.isClosed);
+        }
+    }
+
+
+    /**
+     * Creates an iterator over the entries of an XML document.
+     *
+     * @param document the XML document
+     *
+     * @throws IOException if the document could not be opened
+     *
+     * @return an iterator over the entries of the document
+     */
+    private static XmlElementIterator createIterator(final String document) throws IOException
+    {
+        return new XmlElementIterator(new ClosingInputStream(document), EnaConstants.ENTRY);
+    }
+
+
+    /**
+     * An in-memory stream that remembers whether it was closed.
+     */
+    private static class ClosingInputStream extends ByteArrayInputStream
+    {
+        private boolean isClosed;
+
+
+        /**
+         * Constructor.
+         *
+         * @param content the content of the stream
+         */
+        ClosingInputStream(final String content)
+        {
+            super(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+
+        @Override
+        public void close() throws IOException
+        {
+            isClosed = true;
+            super.close();
+        }
+    }
+}